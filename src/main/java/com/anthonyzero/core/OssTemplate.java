@@ -2,29 +2,93 @@ package com.anthonyzero.core;
 
 
 import com.amazonaws.HttpMethod;
+import com.amazonaws.SdkClientException;
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.internal.InputSubstream;
 import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.bucket.BucketCache;
+import com.anthonyzero.core.channel.OssSeekableByteChannel;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.checksum.ChecksumInputStream;
+import com.anthonyzero.core.checksum.OssChecksums;
+import com.anthonyzero.core.checksum.StreamChecksum;
+import com.anthonyzero.core.codec.CompressingInputStream;
+import com.anthonyzero.core.codec.DecompressingInputStream;
+import com.anthonyzero.core.codec.OssCodec;
+import com.anthonyzero.core.codec.OssCodecRegistry;
+import com.anthonyzero.core.crypto.OssEncryptor;
 import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.ChecksumAlgorithm;
 import com.anthonyzero.support.PolicyType;
 import com.anthonyzero.support.TimeUtil;
-import lombok.RequiredArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.util.StreamUtils;
 import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.channels.SeekableByteChannel;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 
-@RequiredArgsConstructor
 public class OssTemplate {
 
+    private static final String BUCKET_ALREADY_OWNED_BY_YOU = "BucketAlreadyOwnedByYou";
+
     private final OssProperties ossProperties;
-    private final AmazonS3 amazonS3;
+
+    /**
+     * 存储客户端，由 oss.engine 选择实现
+     */
+    @Getter
+    private final OssClient ossClient;
+
+    /**
+     * 压缩编解码器
+     */
+    @Setter
+    private OssCodecRegistry codecRegistry = OssCodecRegistry.defaults();
+
+    /**
+     * 客户端加密，未配置密钥时为 null
+     */
+    @Setter
+    private OssEncryptor encryptor;
+
+    /**
+     * bucket 状态缓存，其他途径修改 bucket 后可以通过它作废缓存
+     */
+    @Getter
+    private final BucketCache bucketCache;
+
+    /**
+     * 随机访问通道的预取线程池，首次打开通道时创建
+     */
+    private ExecutorService prefetchExecutor;
+
+    public OssTemplate(OssProperties ossProperties, OssClient ossClient) {
+        this.ossProperties = ossProperties;
+        this.ossClient = ossClient;
+        OssProperties.BucketCache cache = ossProperties.getBucketCache();
+        this.bucketCache = new BucketCache(cache.isEnabled() ? cache.getTtl() : 0);
+    }
+
+    public OssTemplate(OssProperties ossProperties, AmazonS3 amazonS3) {
+        this(ossProperties, new AmazonS3OssClient(amazonS3));
+    }
 
 
     /**
@@ -33,19 +97,32 @@ public class OssTemplate {
      * @param bucketName bucket名称
      */
     public boolean existBucket(String bucketName) {
-        return amazonS3.doesBucketExistV2(bucketName);
+        return bucketCache.exists(bucketName, () -> ossClient.doesBucketExist(bucketName));
     }
 
     /**
      * 创建bucket
+     * <p>
+     * 缓存中已存在时不发请求，否则直接创建；bucket 已归属当前账号（BucketAlreadyOwnedByYou）视为成功，
+     * 名称被其他账号占用（BucketAlreadyExists）时抛出异常且不写入缓存
      *
      * @param bucketName bucket名称
      */
     public boolean createBucket(String bucketName) {
-        if (!amazonS3.doesBucketExistV2(bucketName)) {
-            Bucket bucket = amazonS3.createBucket(bucketName);
-            return bucket.getName() != null;
+        if (Boolean.TRUE.equals(bucketCache.peek(bucketName))) {
+            return true;
         }
+        try {
+            Bucket bucket = ossClient.createBucket(bucketName);
+            if (bucket.getName() == null) {
+                return false;
+            }
+        } catch (AmazonS3Exception e) {
+            if (!BUCKET_ALREADY_OWNED_BY_YOU.equals(e.getErrorCode())) {
+                throw e;
+            }
+        }
+        bucketCache.created(bucketName);
         return true;
     }
 
@@ -58,11 +135,41 @@ public class OssTemplate {
     public boolean createBucket(String bucketName, PolicyType policyType) {
         boolean created = createBucket(bucketName);
         if (created) {
-            amazonS3.setBucketPolicy(bucketName, PolicyType.getPolicy(policyType, bucketName));
+            setBucketPolicy(bucketName, policyType);
         }
         return created;
     }
 
+    /**
+     * 设置bucket策略，与缓存中的策略相同时不发请求
+     *
+     * @param bucketName bucket名称
+     * @param policyType policy
+     * @see <a href=
+     * "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/PutBucketPolicy">AWS API
+     * Documentation</a>
+     */
+    public void setBucketPolicy(String bucketName, PolicyType policyType) {
+        String policyText = PolicyType.getPolicy(policyType, bucketName);
+        if (!bucketCache.hasPolicy(bucketName, policyText)) {
+            ossClient.setBucketPolicy(bucketName, policyText);
+            bucketCache.policySet(bucketName, policyText);
+        }
+    }
+
+    /**
+     * 获取bucket策略
+     *
+     * @param bucketName bucket名称
+     * @return 策略 JSON，未设置时返回 null
+     * @see <a href=
+     * "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/GetBucketPolicy">AWS API
+     * Documentation</a>
+     */
+    public String getBucketPolicy(String bucketName) {
+        return bucketCache.getPolicy(bucketName, () -> ossClient.getBucketPolicy(bucketName));
+    }
+
     /**
      * 获取全部bucket
      * <p>
@@ -72,7 +179,7 @@ public class OssTemplate {
      * Documentation</a>
      */
     public List<Bucket> getAllBuckets() {
-        return amazonS3.listBuckets();
+        return ossClient.listBuckets();
     }
 
     /**
@@ -84,7 +191,7 @@ public class OssTemplate {
      * Documentation</a>
      */
     public Optional<Bucket> getBucket(String bucketName) {
-        return amazonS3.listBuckets().stream().filter(b -> b.getName().equals(bucketName)).findFirst();
+        return bucketCache.getBucket(bucketName, ossClient::listBuckets);
     }
 
     /**
@@ -96,7 +203,8 @@ public class OssTemplate {
      * Documentation</a>
      */
     public void removeBucket(String bucketName) {
-        amazonS3.deleteBucket(bucketName);
+        ossClient.deleteBucket(bucketName);
+        bucketCache.removed(bucketName);
     }
 
     /**
@@ -121,7 +229,7 @@ public class OssTemplate {
      * Documentation</a>
      */
     public List<S3ObjectSummary> getAllObjectsByPrefix(String bucketName, String prefix) {
-        ObjectListing objectListing = amazonS3.listObjects(bucketName, prefix);
+        ObjectListing objectListing = ossClient.listObjects(bucketName, prefix);
         return new ArrayList<>(objectListing.getObjectSummaries());
     }
 
@@ -201,7 +309,7 @@ public class OssTemplate {
      * @return url
      */
     public String getObjectUrl(String bucketName, String objectName) {
-        URL url = amazonS3.getUrl(bucketName, objectName);
+        URL url = ossClient.getUrl(bucketName, objectName);
         return url.toString();
     }
 
@@ -260,7 +368,7 @@ public class OssTemplate {
         // Set the pre-signed URL to expire after `expires`.
         GeneratePresignedUrlRequest presignedUrlRequest = new GeneratePresignedUrlRequest(bucketName, objectName).withMethod(method).withExpiration(TimeUtil.formDuration(time, timeUnit));
         // Generate the pre-signed URL.
-        URL url = amazonS3.generatePresignedUrl(presignedUrlRequest);
+        URL url = ossClient.generatePresignedUrl(presignedUrlRequest);
         return url.toString();
     }
 
@@ -314,13 +422,82 @@ public class OssTemplate {
      */
     public PutObjectResult putObject(String bucketName, String objectName, InputStream stream, int size, String contextType) {
         ObjectMetadata objectMetadata = new ObjectMetadata();
-        objectMetadata.setContentLength(size);
         objectMetadata.setContentType(contextType);
+        OssCodec codec = getCompressionCodec(bucketName, objectName);
+        String keyId = getEncryptionKeyId(bucketName, objectName);
+        if (codec != null || keyId != null) {
+            return putTransformedObject(bucketName, objectName, stream, objectMetadata, codec, keyId);
+        }
+        if (ossProperties.getChecksum().isEnabled() && size > ossProperties.getMultipart().getPartSize()
+                && !(stream instanceof ByteArrayInputStream)) {
+            // 校验值随请求头发送，需要先读完数据；大对象改为分片上传，每次只缓冲一个分片
+            try {
+                return putObjectResult(uploadParts(bucketName, objectName, stream, objectMetadata));
+            } catch (IOException e) {
+                throw new SdkClientException("上传失败: " + bucketName + "/" + objectName, e);
+            }
+        }
+        objectMetadata.setContentLength(size);
+        return putObject(bucketName, objectName, stream, size, objectMetadata);
+    }
+
+    private PutObjectResult putObject(String bucketName, String objectName, InputStream stream, int size,
+                                      ObjectMetadata objectMetadata) {
+        return ossClient.putObject(putObjectRequest(bucketName, objectName, stream, size, objectMetadata));
+    }
+
+    private PutObjectRequest putObjectRequest(String bucketName, String objectName, InputStream stream, int size,
+                                              ObjectMetadata objectMetadata) {
+        if (ossProperties.getChecksum().isEnabled()) {
+            stream = checksum(stream, size, objectMetadata);
+        }
         PutObjectRequest putObjectRequest = new PutObjectRequest(bucketName, objectName, stream, objectMetadata);
         // Setting the read limit value to one byte greater than the size of stream will
         // reliably avoid a ResetException
         putObjectRequest.getRequestClientOptions().setReadLimit(size + 1);
-        return amazonS3.putObject(putObjectRequest);
+        return putObjectRequest;
+    }
+
+    /**
+     * 异步上传，适合大量并发的小对象，压缩、加密与校验在调用线程完成
+     *
+     * @param objectName  文件名称
+     * @param data        文件内容
+     * @param contextType 类型
+     */
+    public CompletableFuture<PutObjectResult> putObjectAsync(String objectName, byte[] data, String contextType) {
+        return putObjectAsync(getBucketName(), objectName, data, contextType);
+    }
+
+    /**
+     * 异步上传，适合大量并发的小对象，压缩、加密与校验在调用线程完成
+     * <p>
+     * 使用 v2-async 引擎时请求在 Netty 事件循环上收发，不额外占用线程
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param data        文件内容
+     * @param contextType 类型
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/PutObject">AWS
+     * API Documentation</a>
+     */
+    public CompletableFuture<PutObjectResult> putObjectAsync(String bucketName, String objectName, byte[] data,
+                                                             String contextType) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contextType);
+        OssCodec codec = getCompressionCodec(bucketName, objectName);
+        String keyId = getEncryptionKeyId(bucketName, objectName);
+        if (codec != null || keyId != null) {
+            try {
+                data = StreamUtils.copyToByteArray(
+                        transform(new ByteArrayInputStream(data), objectMetadata, codec, keyId));
+            } catch (IOException e) {
+                throw new SdkClientException("上传失败: " + bucketName + "/" + objectName, e);
+            }
+        }
+        objectMetadata.setContentLength(data.length);
+        return ossClient.putObjectAsync(putObjectRequest(bucketName, objectName, new ByteArrayInputStream(data),
+                data.length, objectMetadata));
     }
 
     /**
@@ -343,7 +520,30 @@ public class OssTemplate {
      * API Documentation</a>
      */
     public S3Object getObjectInfo(String bucketName, String objectName) {
-        return amazonS3.getObject(bucketName, objectName);
+        return ossClient.getObject(new GetObjectRequest(bucketName, objectName));
+    }
+
+    /**
+     * 获取文件元数据，不下载内容
+     *
+     * @param objectName 文件名称
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/HeadObject">AWS
+     * API Documentation</a>
+     */
+    public ObjectMetadata getObjectMetadata(String objectName) {
+        return getObjectMetadata(getBucketName(), objectName);
+    }
+
+    /**
+     * 获取文件元数据，不下载内容
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/HeadObject">AWS
+     * API Documentation</a>
+     */
+    public ObjectMetadata getObjectMetadata(String bucketName, String objectName) {
+        return ossClient.getObjectMetadata(bucketName, objectName);
     }
 
     /**
@@ -368,7 +568,231 @@ public class OssTemplate {
      * API Documentation</a>
      */
     public S3Object getObject(String bucketName, String objectName) {
-        return amazonS3.getObject(bucketName, objectName);
+        return decoding(ossClient.getObject(new GetObjectRequest(bucketName, objectName)));
+    }
+
+    /**
+     * 获取文件的指定区间
+     * <p>
+     * 客户端加密的对象只下载并解密区间覆盖的帧；压缩的对象返回压缩后的原始数据
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @param start      起始位置
+     * @param end        结束位置（包含）
+     * @return 二进制流
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/GetObject">AWS
+     * API Documentation</a>
+     */
+    public S3Object getObject(String bucketName, String objectName, long start, long end) {
+        if (encryptor == null) {
+            return ossClient.getObject(new GetObjectRequest(bucketName, objectName).withRange(start, end));
+        }
+        // 是否解密由对象元数据决定，与当前的加密规则无关；按配置的帧长对齐请求，元数据与预期一致时只需要一次请求
+        int frameSize = encryptor.getFrameSize();
+        S3Object s3Object;
+        try {
+            s3Object = getCiphertextRange(bucketName, objectName, start, end, frameSize);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() != 416) {
+                throw e;
+            }
+            // 对齐后的起点超出了未加密对象的长度
+            return ossClient.getObject(new GetObjectRequest(bucketName, objectName).withRange(start, end));
+        }
+        ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+        if (!encryptor.isEncrypted(objectMetadata)) {
+            return plaintextRange(s3Object, start, end);
+        }
+        if (encryptor.getFrameSize(objectMetadata) != frameSize) {
+            closeQuietly(s3Object);
+            s3Object = getCiphertextRange(bucketName, objectName, start, end, encryptor.getFrameSize(objectMetadata));
+            objectMetadata = s3Object.getObjectMetadata();
+        }
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        InputStream decrypted;
+        try {
+            decrypted = encryptor.decryptRange(content, objectMetadata, start, end);
+        } catch (RuntimeException e) {
+            closeQuietly(s3Object);
+            throw e;
+        }
+        s3Object.setObjectContent(new S3ObjectInputStream(decrypted, content.getHttpRequest()));
+        return s3Object;
+    }
+
+    /**
+     * 异步下载，完成时返回解密、解压后的完整内容，适合大量并发的小对象
+     *
+     * @param objectName 文件名称
+     * @return 文件内容
+     */
+    public CompletableFuture<byte[]> getObjectAsync(String objectName) {
+        return getObjectAsync(getBucketName(), objectName);
+    }
+
+    /**
+     * 异步下载，完成时返回解密、解压后的完整内容，适合大量并发的小对象
+     * <p>
+     * 使用 v2-async 引擎时请求在 Netty 事件循环上收发，不额外占用线程
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return 文件内容
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/GetObject">AWS
+     * API Documentation</a>
+     */
+    public CompletableFuture<byte[]> getObjectAsync(String bucketName, String objectName) {
+        return ossClient.getObjectAsync(new GetObjectRequest(bucketName, objectName)).thenApply(s3Object -> {
+            try (S3Object decoded = decoding(s3Object)) {
+                return StreamUtils.copyToByteArray(decoded.getObjectContent());
+            } catch (IOException e) {
+                throw new SdkClientException("下载失败: " + bucketName + "/" + objectName, e);
+            }
+        });
+    }
+
+    /**
+     * 分片上传文件，适用于大小未知或较大的流，分片大小见 {@link OssProperties.Multipart}
+     *
+     * @param objectName  文件名称
+     * @param stream      文件流
+     * @param contextType 类型
+     * @throws IOException IOException
+     */
+    public CompleteMultipartUploadResult putObjectMultipart(String objectName, InputStream stream, String contextType)
+            throws IOException {
+        return putObjectMultipart(getBucketName(), objectName, stream, contextType);
+    }
+
+    /**
+     * 分片上传文件，适用于大小未知或较大的流，分片大小见 {@link OssProperties.Multipart}
+     * <p>
+     * 最多 {@link OssProperties.Multipart#getConcurrency()} 个分片同时上传；
+     * 开启校验时每个分片在读入缓冲区的同时计算 MD5 并通过 Content-MD5 交由服务端校验，
+     * 与 {@link OssProperties.Checksum#getAlgorithm()} 无关；分片大小记录在用户元数据中，下载时据此重算分片 ETag
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param stream      文件流
+     * @param contextType 类型
+     * @throws IOException IOException
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/UploadPart">AWS
+     * API Documentation</a>
+     */
+    public CompleteMultipartUploadResult putObjectMultipart(String bucketName, String objectName, InputStream stream,
+                                                            String contextType) throws IOException {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentType(contextType);
+        stream = transform(stream, objectMetadata, getCompressionCodec(bucketName, objectName),
+                getEncryptionKeyId(bucketName, objectName));
+        return uploadParts(bucketName, objectName, stream, objectMetadata);
+    }
+
+    private CompleteMultipartUploadResult uploadParts(String bucketName, String objectName, InputStream stream,
+                                                      ObjectMetadata objectMetadata) throws IOException {
+        int partSize = ossProperties.getMultipart().getPartSize();
+        boolean checksum = ossProperties.getChecksum().isEnabled();
+        if (checksum) {
+            objectMetadata.addUserMetadata(OssChecksums.PART_SIZE_METADATA, String.valueOf(partSize));
+        }
+        int concurrency = Math.max(1, ossProperties.getMultipart().getConcurrency());
+        String uploadId = ossClient.initiateMultipartUpload(
+                new InitiateMultipartUploadRequest(bucketName, objectName, objectMetadata)).getUploadId();
+        List<CompletableFuture<UploadPartResult>> parts = new ArrayList<>();
+        try {
+            // uploadPartAsync 在调用线程复制分片内容，缓冲区可以立即复用
+            byte[] buffer = new byte[partSize];
+            for (int partNumber = 1; ; partNumber++) {
+                StreamChecksum md5 = checksum ? StreamChecksum.of(ChecksumAlgorithm.MD5) : null;
+                int length = OssChecksums.fill(stream, buffer, md5);
+                if (length == 0 && partNumber > 1) {
+                    break;
+                }
+                UploadPartRequest uploadPartRequest = new UploadPartRequest().withBucketName(bucketName)
+                        .withKey(objectName).withUploadId(uploadId).withPartNumber(partNumber)
+                        .withInputStream(new ByteArrayInputStream(buffer, 0, length)).withPartSize(length);
+                if (md5 != null) {
+                    uploadPartRequest.setMd5Digest(md5.toBase64());
+                }
+                if (parts.size() >= concurrency) {
+                    // 同时上传的分片不超过 concurrency 个，限制内存中的分片数量
+                    join(parts.get(parts.size() - concurrency));
+                }
+                parts.add(ossClient.uploadPartAsync(uploadPartRequest));
+                if (length < partSize) {
+                    break;
+                }
+            }
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (CompletableFuture<UploadPartResult> part : parts) {
+                partETags.add(join(part).getPartETag());
+            }
+            return ossClient.completeMultipartUpload(
+                    new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags));
+        } catch (IOException | RuntimeException e) {
+            // 等待已发出的分片结束后再取消上传，避免取消后仍有分片写入
+            parts.forEach(part -> part.handle((result, error) -> null).join());
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, objectName, uploadId));
+            throw e;
+        }
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 打开只读随机访问通道，按需发起 Range GET，适合读取 Parquet footer、ZIP 中央目录等场景
+     * <p>
+     * 通道按原始字节读取，不支持压缩或客户端加密的对象，首次读取时抛出 {@link UnsupportedOperationException}
+     *
+     * @param objectName 文件名称
+     * @return 随机访问通道，使用完毕需要关闭
+     */
+    public SeekableByteChannel openChannel(String objectName) {
+        return openChannel(getBucketName(), objectName);
+    }
+
+    /**
+     * 打开只读随机访问通道，按需发起 Range GET，适合读取 Parquet footer、ZIP 中央目录等场景
+     * <p>
+     * 通道按原始字节读取，不支持压缩或客户端加密的对象：首次请求返回的元数据表明对象经过编码时，
+     * 读取与 {@link SeekableByteChannel#size()} 抛出 {@link UnsupportedOperationException}；
+     * 这类对象请使用 {@link #getObject(String, String)} 或 {@link #getObject(String, String, long, long)}
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return 随机访问通道，使用完毕需要关闭
+     * @see OssSeekableByteChannel
+     */
+    public SeekableByteChannel openChannel(String bucketName, String objectName) {
+        return new OssSeekableByteChannel(ossClient, bucketName, objectName, ossProperties.getChannel(),
+                getPrefetchExecutor(), this::isEncoded);
+    }
+
+    private synchronized ExecutorService getPrefetchExecutor() {
+        if (prefetchExecutor == null) {
+            prefetchExecutor = OssSeekableByteChannel.newPrefetchExecutor(
+                    ossProperties.getChannel().getPrefetchThreads());
+        }
+        return prefetchExecutor;
+    }
+
+    /**
+     * 关闭模板自身创建的线程池，不关闭 {@link OssClient}；已打开的通道改为同步读取
+     */
+    public synchronized void close() {
+        if (prefetchExecutor != null) {
+            prefetchExecutor.shutdown();
+        }
     }
 
     /**
@@ -393,7 +817,7 @@ public class OssTemplate {
      * Documentation</a>
      */
     public void removeObject(String bucketName, String objectName) {
-        amazonS3.deleteObject(bucketName, objectName);
+        ossClient.deleteObject(bucketName, objectName);
     }
 
 
@@ -438,6 +862,254 @@ public class OssTemplate {
     }
 
 
+    /**
+     * 按 {@link OssProperties.Compression} 的规则匹配压缩编码，未开启或未匹配时返回 null
+     */
+    private OssCodec getCompressionCodec(String bucketName, String objectName) {
+        OssProperties.Compression compression = ossProperties.getCompression();
+        if (!compression.isEnabled()) {
+            return null;
+        }
+        for (OssProperties.Compression.Rule rule : compression.getRules()) {
+            if ((!StringUtils.hasText(rule.getBucket()) || rule.getBucket().equals(bucketName))
+                    && objectName.startsWith(rule.getPrefix())) {
+                return codecRegistry.getCodec(rule.getCodec());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 按 {@link OssProperties.Encryption} 的规则匹配主密钥，未开启或未匹配时返回 null
+     */
+    private String getEncryptionKeyId(String bucketName, String objectName) {
+        OssProperties.Encryption encryption = ossProperties.getEncryption();
+        if (!encryption.isEnabled()) {
+            return null;
+        }
+        for (OssProperties.Encryption.Rule rule : encryption.getRules()) {
+            if ((!StringUtils.hasText(rule.getBucket()) || rule.getBucket().equals(bucketName))
+                    && objectName.startsWith(rule.getPrefix())) {
+                if (encryptor == null) {
+                    throw new IllegalStateException("已开启客户端加密，但未配置 OssKeyProvider");
+                }
+                return rule.getKeyId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 上传流水线：先压缩再加密，对应的元数据写入 objectMetadata
+     */
+    private InputStream transform(InputStream stream, ObjectMetadata objectMetadata, OssCodec codec, String keyId)
+            throws IOException {
+        if (codec != null) {
+            objectMetadata.addUserMetadata(OssCodecRegistry.CODEC_METADATA, codec.getName());
+            stream = new CompressingInputStream(stream, codec);
+        }
+        if (keyId != null) {
+            stream = encryptor.encrypt(stream, keyId, objectMetadata);
+        }
+        return stream;
+    }
+
+    /**
+     * 流式压缩、加密上传：处理后不超过一个分片时单次上传，否则分片上传
+     */
+    private PutObjectResult putTransformedObject(String bucketName, String objectName, InputStream stream,
+                                                 ObjectMetadata objectMetadata, OssCodec codec, String keyId) {
+        // 上传失败时关闭压缩流，释放压缩器占用的本地内存
+        try (InputStream transformed = transform(stream, objectMetadata, codec, keyId)) {
+            byte[] firstPart = new byte[ossProperties.getMultipart().getPartSize()];
+            int length = OssChecksums.fill(transformed, firstPart, null);
+            if (length < firstPart.length) {
+                objectMetadata.setContentLength(length);
+                return putObject(bucketName, objectName, new ByteArrayInputStream(firstPart, 0, length), length,
+                        objectMetadata);
+            }
+            return putObjectResult(uploadParts(bucketName, objectName,
+                    new SequenceInputStream(new ByteArrayInputStream(firstPart), transformed), objectMetadata));
+        } catch (IOException e) {
+            throw new SdkClientException("上传失败: " + bucketName + "/" + objectName, e);
+        }
+    }
+
+    private static PutObjectResult putObjectResult(CompleteMultipartUploadResult result) {
+        PutObjectResult putObjectResult = new PutObjectResult();
+        putObjectResult.setETag(result.getETag());
+        putObjectResult.setVersionId(result.getVersionId());
+        return putObjectResult;
+    }
+
+    /**
+     * 上传到该位置的内容是否需要压缩或加密
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     */
+    public boolean requiresEncoding(String bucketName, String objectName) {
+        return getCompressionCodec(bucketName, objectName) != null
+                || getEncryptionKeyId(bucketName, objectName) != null;
+    }
+
+    /**
+     * 下载该对象时是否需要校验、解密或解压，不需要时对象内容可以原样返回
+     *
+     * @param objectMetadata 对象元数据
+     */
+    public boolean requiresDecoding(ObjectMetadata objectMetadata) {
+        if (objectMetadata.getContentRange() != null) {
+            return false;
+        }
+        return ossProperties.getChecksum().isEnabled()
+                && OssChecksums.isVerifiable(objectMetadata, ossProperties.getChecksum().getAlgorithm())
+                || encryptor != null && encryptor.isEncrypted(objectMetadata)
+                || objectMetadata.getUserMetaDataOf(OssCodecRegistry.CODEC_METADATA) != null;
+    }
+
+    /**
+     * 对象是否经过压缩或客户端加密，这类对象的字节区间与原始内容不对应
+     *
+     * @param objectMetadata 对象元数据
+     */
+    public boolean isEncoded(ObjectMetadata objectMetadata) {
+        return objectMetadata.getUserMetaDataOf(OssCodecRegistry.CODEC_METADATA) != null
+                || encryptor != null && encryptor.isEncrypted(objectMetadata);
+    }
+
+    /**
+     * 对通过 {@link #getOssClient()} 完整下载的对象执行与 {@link #getObject(String, String)} 相同的校验、解密与解压，
+     * Range 请求的结果原样返回
+     *
+     * @param s3Object 下载的对象
+     * @return 传入的对象，内容替换为解码后的流
+     */
+    public S3Object decode(S3Object s3Object) {
+        return decoding(s3Object);
+    }
+
+    /**
+     * 完整下载的流水线：先校验再解密、解压
+     */
+    private S3Object decoding(S3Object s3Object) {
+        if (ossProperties.getChecksum().isEnabled()) {
+            OssChecksums.verifying(s3Object, ossProperties.getChecksum().getAlgorithm());
+        }
+        return decompressing(decrypting(s3Object));
+    }
+
+    /**
+     * 客户端加密的完整下载自动解密
+     */
+    private S3Object decrypting(S3Object s3Object) {
+        ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+        if (encryptor == null || !encryptor.isEncrypted(objectMetadata) || objectMetadata.getContentRange() != null) {
+            return s3Object;
+        }
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        InputStream decrypted;
+        try {
+            decrypted = encryptor.decrypt(content, objectMetadata);
+        } catch (RuntimeException e) {
+            closeQuietly(s3Object);
+            throw e;
+        }
+        s3Object.setObjectContent(new S3ObjectInputStream(decrypted, content.getHttpRequest()));
+        return s3Object;
+    }
+
+    private S3Object getCiphertextRange(String bucketName, String objectName, long start, long end, int frameSize) {
+        long[] range = OssEncryptor.ciphertextRange(start, end, frameSize);
+        return ossClient.getObject(new GetObjectRequest(bucketName, objectName).withRange(range[0], range[1]));
+    }
+
+    /**
+     * 未加密的对象从帧对齐的响应中截取请求的区间，对齐区间没有覆盖起点时才重新请求
+     */
+    private S3Object plaintextRange(S3Object s3Object, long start, long end) {
+        ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+        Long[] contentRange = objectMetadata.getContentRange();
+        if (contentRange == null || contentRange[0] > start || contentRange[1] < start) {
+            closeQuietly(s3Object);
+            return ossClient.getObject(new GetObjectRequest(s3Object.getBucketName(), s3Object.getKey())
+                    .withRange(start, end));
+        }
+        long last = Math.min(end, contentRange[1]);
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        InputStream sliced = new InputSubstream(content, start - contentRange[0], last - start + 1, true);
+        s3Object.setObjectContent(new S3ObjectInputStream(sliced, content.getHttpRequest()));
+        objectMetadata.setContentLength(last - start + 1);
+        objectMetadata.setHeader(Headers.CONTENT_RANGE,
+                "bytes " + start + "-" + last + "/" + objectMetadata.getInstanceLength());
+        return s3Object;
+    }
+
+    private static void closeQuietly(S3Object s3Object) {
+        s3Object.getObjectContent().abort();
+        try {
+            s3Object.close();
+        } catch (IOException ignored) {
+            // 连接已中止
+        }
+    }
+
+    /**
+     * 带有压缩编码元数据的完整下载自动解压，Range 请求返回原始数据
+     */
+    private S3Object decompressing(S3Object s3Object) {
+        ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+        String codecName = objectMetadata.getUserMetaDataOf(OssCodecRegistry.CODEC_METADATA);
+        if (codecName == null || objectMetadata.getContentRange() != null) {
+            return s3Object;
+        }
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        try {
+            InputStream decompressed = new DecompressingInputStream(content, codecRegistry.getCodec(codecName));
+            s3Object.setObjectContent(new S3ObjectInputStream(decompressed, content.getHttpRequest()));
+        } catch (IOException e) {
+            content.abort();
+            throw new SdkClientException("解压失败: " + s3Object.getBucketName() + "/" + s3Object.getKey(), e);
+        }
+        return s3Object;
+    }
+
+    /**
+     * 计算上传内容的校验值，写入 Content-MD5 或用户元数据
+     * <p>
+     * 校验值随请求头发送，必须在发送前读完数据：{@link ByteArrayInputStream} 原地计算后 reset，仍上传调用方的流；
+     * 其他流读入发送缓冲区，超过一个分片的流已由调用方改为分片上传
+     */
+    private InputStream checksum(InputStream stream, int size, ObjectMetadata objectMetadata) {
+        ChecksumAlgorithm algorithm = ossProperties.getChecksum().getAlgorithm();
+        StreamChecksum checksum = StreamChecksum.of(algorithm);
+        InputStream upload;
+        try {
+            if (stream instanceof ByteArrayInputStream) {
+                stream.mark(size + 1);
+                if (new ChecksumInputStream(stream, checksum, null, null).skip(size) < size) {
+                    throw new SdkClientException("上传流长度小于指定的大小: " + size);
+                }
+                stream.reset();
+                upload = stream;
+            } else {
+                byte[] buffer = new byte[size];
+                if (OssChecksums.fill(stream, buffer, checksum) < size) {
+                    throw new SdkClientException("上传流长度小于指定的大小: " + size);
+                }
+                upload = new ByteArrayInputStream(buffer);
+            }
+        } catch (IOException e) {
+            throw new SdkClientException("读取上传流失败", e);
+        }
+        if (algorithm == ChecksumAlgorithm.MD5) {
+            objectMetadata.setContentMD5(checksum.toBase64());
+        } else {
+            objectMetadata.addUserMetadata(OssChecksums.CRC32C_METADATA, checksum.toBase64());
+        }
+        return upload;
+    }
+
     private static URI convertToVirtualHostEndpoint(URI endpoint, String bucketName) {
         try {
             return new URI(String.format("%s://%s.%s", endpoint.getScheme(), bucketName, endpoint.getAuthority()));
@@ -0,0 +1,153 @@
+package com.anthonyzero.core.bucket;
+
+import com.amazonaws.services.s3.model.Bucket;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * bucket 状态缓存：是否存在、创建时间、策略，按 ttl 过期
+ * <p>
+ * 通过 {@link com.anthonyzero.core.OssTemplate} 创建、删除 bucket 或设置策略时同步更新；
+ * 其他途径修改 bucket 后可以调用 {@link #invalidate(String)} 或 {@link #invalidateAll()}。
+ * 创建时间来自 listBuckets，一次列举的结果整体缓存，之后按名称直接查找。
+ */
+public class BucketCache {
+
+    private final long ttlNanos;
+
+    private final Map<String, Entry<Boolean>> existence = new ConcurrentHashMap<>();
+
+    private final Map<String, Entry<String>> policies = new ConcurrentHashMap<>();
+
+    private volatile Entry<Map<String, Bucket>> listing;
+
+    /**
+     * @param ttlMillis 缓存时间，单位毫秒，不大于 0 时不缓存
+     */
+    public BucketCache(long ttlMillis) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * bucket 是否存在，未缓存时通过 loader 查询
+     */
+    public boolean exists(String bucketName, BooleanSupplier loader) {
+        Entry<Boolean> entry = existence.get(bucketName);
+        if (isValid(entry)) {
+            return entry.value;
+        }
+        boolean exists = loader.getAsBoolean();
+        put(existence, bucketName, exists);
+        return exists;
+    }
+
+    /**
+     * 缓存中的存在状态，未缓存或已过期时返回 null，不查询也不写入缓存
+     */
+    public Boolean peek(String bucketName) {
+        Entry<Boolean> entry = existence.get(bucketName);
+        return isValid(entry) ? entry.value : null;
+    }
+
+    /**
+     * 按名称查找 bucket，列举结果过期时通过 loader 重新列举
+     */
+    public Optional<Bucket> getBucket(String bucketName, Supplier<List<Bucket>> loader) {
+        Entry<Map<String, Bucket>> entry = listing;
+        if (!isValid(entry)) {
+            Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+            loader.get().forEach(bucket -> buckets.put(bucket.getName(), bucket));
+            entry = new Entry<>(buckets, System.nanoTime() + ttlNanos);
+            if (ttlNanos > 0) {
+                listing = entry;
+                buckets.keySet().forEach(name -> put(existence, name, true));
+            }
+        }
+        return Optional.ofNullable(entry.value.get(bucketName));
+    }
+
+    /**
+     * bucket 策略，未设置策略时为 null，未缓存时通过 loader 查询
+     */
+    public String getPolicy(String bucketName, Supplier<String> loader) {
+        Entry<String> entry = policies.get(bucketName);
+        if (isValid(entry)) {
+            return entry.value;
+        }
+        String policy = loader.get();
+        put(policies, bucketName, policy);
+        return policy;
+    }
+
+    /**
+     * 缓存中的策略是否与 policyText 相同，未缓存时返回 false
+     */
+    public boolean hasPolicy(String bucketName, String policyText) {
+        Entry<String> entry = policies.get(bucketName);
+        return isValid(entry) && policyText.equals(entry.value);
+    }
+
+    /**
+     * 已创建或确认存在；列举结果中没有该 bucket 时作废列举结果，下次查找重新列举以获得创建时间
+     */
+    public void created(String bucketName) {
+        put(existence, bucketName, true);
+        Entry<Map<String, Bucket>> entry = listing;
+        if (entry != null && !entry.value.containsKey(bucketName)) {
+            listing = null;
+        }
+    }
+
+    public void removed(String bucketName) {
+        put(existence, bucketName, false);
+        policies.remove(bucketName);
+        Entry<Map<String, Bucket>> entry = listing;
+        if (entry != null) {
+            entry.value.remove(bucketName);
+        }
+    }
+
+    public void policySet(String bucketName, String policyText) {
+        put(policies, bucketName, policyText);
+    }
+
+    public void invalidate(String bucketName) {
+        existence.remove(bucketName);
+        policies.remove(bucketName);
+        listing = null;
+    }
+
+    public void invalidateAll() {
+        existence.clear();
+        policies.clear();
+        listing = null;
+    }
+
+    private <T> void put(Map<String, Entry<T>> map, String bucketName, T value) {
+        if (ttlNanos > 0) {
+            map.put(bucketName, new Entry<>(value, System.nanoTime() + ttlNanos));
+        }
+    }
+
+    private static boolean isValid(Entry<?> entry) {
+        return entry != null && entry.expiresAt - System.nanoTime() > 0;
+    }
+
+    private static final class Entry<T> {
+
+        private final T value;
+
+        private final long expiresAt;
+
+        private Entry(T value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
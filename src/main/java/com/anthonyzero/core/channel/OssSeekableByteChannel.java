@@ -0,0 +1,424 @@
+package com.anthonyzero.core.channel;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * 基于 Range GET 的只读随机访问通道
+ *
+ * <p>对象按 blockSize 切块缓存（LRU），顺序读取时预读窗口按倍数增长，并异步预取下一个窗口；
+ * 随机 seek 后窗口重置为 1 块。未知对象大小时调用 {@link #size()} 会发起一次后缀 Range 请求，
+ * 同时缓存对象末尾的两个块，读取文件尾部（如 Parquet footer、ZIP 中央目录）只需要一次请求。
+ *
+ * <p>通道不是线程安全的读取游标，但预取线程与读取线程之间的状态是同步的。
+ *
+ * <p>通道读取的是对象存储中的原始字节。可以传入判断对象是否经过编码（压缩、客户端加密）的条件，
+ * 首次请求返回的元数据满足条件时抛出 {@link UnsupportedOperationException}，避免按错误的偏移返回密文或压缩数据。
+ */
+public class OssSeekableByteChannel implements SeekableByteChannel {
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final OssClient ossClient;
+
+    private final String bucketName;
+
+    private final String objectName;
+
+    private final int blockSize;
+
+    private final int maxReadaheadBlocks;
+
+    private final Executor executor;
+
+    private final Predicate<ObjectMetadata> encoded;
+
+    private final Map<Long, CompletableFuture<byte[]>> blocks;
+
+    private long size = -1;
+
+    private long position;
+
+    private long nextSequentialPosition;
+
+    private int readaheadBlocks = 1;
+
+    private volatile boolean open = true;
+
+    public OssSeekableByteChannel(OssClient ossClient, String bucketName, String objectName,
+                                  OssProperties.Channel properties) {
+        this(ossClient, bucketName, objectName, properties, PrefetchExecutorHolder.EXECUTOR);
+    }
+
+    /**
+     * @param encoded 对象是否经过编码，满足时通道不可用
+     */
+    public OssSeekableByteChannel(OssClient ossClient, String bucketName, String objectName,
+                                  OssProperties.Channel properties, Predicate<ObjectMetadata> encoded) {
+        this(ossClient, bucketName, objectName, properties, PrefetchExecutorHolder.EXECUTOR, encoded);
+    }
+
+    public OssSeekableByteChannel(OssClient ossClient, String bucketName, String objectName,
+                                  OssProperties.Channel properties, Executor executor) {
+        this(ossClient, bucketName, objectName, properties, executor, metadata -> false);
+    }
+
+    /**
+     * @param encoded 对象是否经过编码，满足时通道不可用
+     */
+    public OssSeekableByteChannel(OssClient ossClient, String bucketName, String objectName,
+                                  OssProperties.Channel properties, Executor executor,
+                                  Predicate<ObjectMetadata> encoded) {
+        if (properties.getBlockSize() <= 0 || properties.getMaxReadaheadBlocks() <= 0) {
+            throw new IllegalArgumentException("blockSize 与 maxReadaheadBlocks 必须大于 0");
+        }
+        this.ossClient = ossClient;
+        this.bucketName = bucketName;
+        this.objectName = objectName;
+        this.blockSize = properties.getBlockSize();
+        this.maxReadaheadBlocks = properties.getMaxReadaheadBlocks();
+        this.executor = executor;
+        this.encoded = encoded;
+        // 缓存至少要容纳一个完整的预读窗口加尾部两块，否则预取的数据会在读取前被淘汰
+        final int capacity = Math.max(properties.getCacheBlocks(), maxReadaheadBlocks * 2 + 2);
+        this.blocks = new LinkedHashMap<Long, CompletableFuture<byte[]>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<byte[]>> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    @Override
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        if (size < 0) {
+            if (position == 0) {
+                loadHead();
+            } else {
+                loadTail();
+            }
+        }
+        if (position >= size) {
+            return -1;
+        }
+        boolean sequential = position == nextSequentialPosition;
+        readaheadBlocks = sequential ? Math.min(readaheadBlocks * 2, maxReadaheadBlocks) : 1;
+
+        int total = 0;
+        while (dst.hasRemaining() && position < size) {
+            long index = position / blockSize;
+            // 未命中时至少拉取填满 dst 所需的块，单次大读取也只需一次请求
+            long needed = (position + dst.remaining() - 1) / blockSize - index + 1;
+            byte[] block = getBlock(index, (int) Math.min(Math.max(readaheadBlocks, needed), maxReadaheadBlocks));
+            int offset = (int) (position - index * blockSize);
+            int count = Math.min(dst.remaining(), block.length - offset);
+            dst.put(block, offset, count);
+            position += count;
+            total += count;
+        }
+        nextSequentialPosition = position;
+        if (sequential) {
+            prefetch(position / blockSize);
+        }
+        return total;
+    }
+
+    @Override
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    @Override
+    public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+        ensureOpen();
+        if (newPosition < 0) {
+            throw new IllegalArgumentException("position 不能小于 0");
+        }
+        position = newPosition;
+        return this;
+    }
+
+    @Override
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        if (size < 0) {
+            loadTail();
+        }
+        return size;
+    }
+
+    @Override
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public synchronized void close() {
+        open = false;
+        blocks.clear();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (!open) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    /**
+     * 从缓存获取块，未命中时同步拉取以该块开头的预读窗口
+     */
+    private byte[] getBlock(long index, int windowBlocks) throws IOException {
+        CompletableFuture<byte[]> future = blocks.get(index);
+        if (future == null || future.isCompletedExceptionally()) {
+            Map<Long, CompletableFuture<byte[]>> window = reserve(index, windowBlocks);
+            fetch(index, window);
+            future = window.get(index);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new java.io.InterruptedIOException("读取 " + objectName + " 被中断");
+        } catch (ExecutionException e) {
+            blocks.remove(index);
+            Throwable cause = e.getCause();
+            if (cause instanceof UnsupportedOperationException) {
+                throw (UnsupportedOperationException) cause;
+            }
+            throw cause instanceof IOException ? (IOException) cause
+                    : new IOException("读取 " + objectName + " 失败", cause);
+        }
+    }
+
+    /**
+     * 异步预取 [next, next + readaheadBlocks) 中第一段尚未缓存的连续块
+     */
+    private void prefetch(long next) {
+        long last = Math.min(next + readaheadBlocks, lastBlockIndex() + 1);
+        long first = next;
+        while (first < last && blocks.containsKey(first)) {
+            first++;
+        }
+        if (first >= last) {
+            return;
+        }
+        final long start = first;
+        final Map<Long, CompletableFuture<byte[]>> window = reserve(start, (int) (last - start));
+        try {
+            executor.execute(() -> {
+                if (!open) {
+                    window.values().forEach(f -> f.cancel(false));
+                    return;
+                }
+                try {
+                    fetch(start, window);
+                } catch (IOException ignored) {
+                    // 预取失败时 future 已经异常完成，读取线程会同步重试
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // 线程池已关闭，读取线程同步拉取
+            window.values().forEach(f -> f.cancel(false));
+        }
+    }
+
+    /**
+     * 为 [first, first + count) 中连续未缓存的块占位，遇到已缓存的块或对象末尾即停止
+     */
+    private Map<Long, CompletableFuture<byte[]>> reserve(long first, int count) {
+        Map<Long, CompletableFuture<byte[]>> window = new LinkedHashMap<>();
+        long last = size < 0 ? first + count : Math.min(first + count, lastBlockIndex() + 1);
+        for (long index = first; index < last; index++) {
+            CompletableFuture<byte[]> existing = blocks.get(index);
+            if (index != first && existing != null && !existing.isCompletedExceptionally()) {
+                break;
+            }
+            CompletableFuture<byte[]> future = new CompletableFuture<>();
+            blocks.put(index, future);
+            window.put(index, future);
+        }
+        return window;
+    }
+
+    /**
+     * 一次 Range GET 拉取整个窗口并拆分成块
+     */
+    private void fetch(long first, Map<Long, CompletableFuture<byte[]>> window) throws IOException {
+        long start = first * blockSize;
+        long end = (first + window.size()) * (long) blockSize - 1;
+        if (size >= 0) {
+            end = Math.min(end, size - 1);
+        }
+        try {
+            GetObjectRequest request = new GetObjectRequest(bucketName, objectName).withRange(start, end);
+            byte[] data;
+            try (S3Object object = ossClient.getObject(request)) {
+                data = readFully(object);
+            }
+            long index = first;
+            for (CompletableFuture<byte[]> future : window.values()) {
+                int offset = (int) ((index - first) * blockSize);
+                int length = Math.max(0, Math.min(blockSize, data.length - offset));
+                byte[] block = new byte[length];
+                System.arraycopy(data, offset, block, 0, length);
+                future.complete(block);
+                index++;
+            }
+        } catch (UnsupportedOperationException e) {
+            window.values().forEach(f -> f.completeExceptionally(e));
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            IOException failure = e instanceof IOException ? (IOException) e
+                    : new IOException("读取 " + bucketName + "/" + objectName + " 失败", e);
+            window.values().forEach(f -> f.completeExceptionally(failure));
+            throw failure;
+        }
+    }
+
+    /**
+     * 从 0 开始顺序读取且大小未知时，拉取首个块并从 Content-Range 得到对象大小
+     */
+    private void loadHead() throws IOException {
+        Map<Long, CompletableFuture<byte[]>> window = reserve(0, 1);
+        try {
+            fetch(0, window);
+        } catch (IOException e) {
+            if (isRangeNotSatisfiable(e)) {
+                blocks.clear();
+                size = 0;
+                return;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 后缀 Range 请求对象最后两块，同时得到对象大小
+     */
+    private void loadTail() throws IOException {
+        long tailLength = 2L * blockSize;
+        GetObjectRequest request = new GetObjectRequest(bucketName, objectName).withRange(0, tailLength - 1);
+        // SDK 不支持后缀 Range，这里用自定义请求头覆盖；保留 range 参数使 SDK 跳过整对象 MD5 校验
+        request.putCustomRequestHeader("Range", "bytes=-" + tailLength);
+        byte[] data;
+        long start;
+        try (S3Object object = ossClient.getObject(request)) {
+            ObjectMetadata metadata = object.getObjectMetadata();
+            data = readFully(object);
+            Long[] contentRange = metadata.getContentRange();
+            start = contentRange == null ? 0 : contentRange[0];
+            size = metadata.getInstanceLength();
+        } catch (AmazonServiceException e) {
+            if (e.getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                size = 0;
+                return;
+            }
+            throw new IOException("读取 " + bucketName + "/" + objectName + " 失败", e);
+        } catch (SdkClientException e) {
+            throw new IOException("读取 " + bucketName + "/" + objectName + " 失败", e);
+        }
+        // 只缓存被完整覆盖的块
+        for (long index = (start + blockSize - 1) / blockSize; index <= lastBlockIndex(); index++) {
+            long blockStart = index * blockSize;
+            int length = (int) Math.min(blockSize, size - blockStart);
+            byte[] block = new byte[length];
+            System.arraycopy(data, (int) (blockStart - start), block, 0, length);
+            blocks.put(index, CompletableFuture.completedFuture(block));
+        }
+    }
+
+    private long lastBlockIndex() {
+        return size <= 0 ? -1 : (size - 1) / blockSize;
+    }
+
+    private byte[] readFully(S3Object object) throws IOException {
+        ObjectMetadata metadata = object.getObjectMetadata();
+        if (size < 0) {
+            if (encoded.test(metadata)) {
+                object.getObjectContent().abort();
+                throw new UnsupportedOperationException("对象 " + bucketName + "/" + objectName
+                        + " 经过压缩或客户端加密，不支持随机读取，请使用 getObject 完整下载");
+            }
+            size = metadata.getInstanceLength();
+        }
+        byte[] data = new byte[(int) metadata.getContentLength()];
+        InputStream in = object.getObjectContent();
+        int offset = 0;
+        while (offset < data.length) {
+            int n = in.read(data, offset, data.length - offset);
+            if (n < 0) {
+                throw new IOException("读取 " + bucketName + "/" + objectName + " 时连接提前结束");
+            }
+            offset += n;
+        }
+        return data;
+    }
+
+    private static boolean isRangeNotSatisfiable(IOException e) {
+        return e.getCause() instanceof AmazonServiceException
+                && ((AmazonServiceException) e.getCause()).getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE;
+    }
+
+    /**
+     * 未指定线程池时使用的共享线程池，线程数与 CPU 核数相同，空闲时不常驻线程
+     */
+    private static class PrefetchExecutorHolder {
+
+        private static final ExecutorService EXECUTOR =
+                newPrefetchExecutor(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * 创建有界的预取线程池，超出线程数的预取排队执行
+     *
+     * @param threads 线程数
+     */
+    public static ExecutorService newPrefetchExecutor(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        int size = Math.max(1, threads);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(size, size, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "oss-channel-prefetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,105 @@
+package com.anthonyzero.core.checksum;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 读取过程中增量计算校验值，读到流末尾时与期望值比对，不一致抛出 {@link OssChecksumException}
+ */
+public class ChecksumInputStream extends FilterInputStream {
+
+    private final StreamChecksum checksum;
+
+    private final String expected;
+
+    private final String description;
+
+    private final byte[] single = new byte[1];
+
+    private boolean verified;
+
+    /**
+     * @param in          原始流
+     * @param checksum    校验值
+     * @param expected    期望的 Base64 校验值，为 null 时只计算不校验
+     * @param description 出错时用于描述对象
+     */
+    public ChecksumInputStream(InputStream in, StreamChecksum checksum, String expected, String description) {
+        super(in);
+        this.checksum = checksum;
+        this.expected = expected;
+        this.description = description;
+    }
+
+    public StreamChecksum getChecksum() {
+        return checksum;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            update(b, off, n);
+        } else if (n < 0 && !verified) {
+            verified = true;
+            verify(description);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的数据也要计入校验值
+        byte[] buffer = new byte[(int) Math.min(n, 8192)];
+        long skipped = 0;
+        while (skipped < n) {
+            int count = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+            if (count < 0) {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    @Override
+    public synchronized void mark(int readlimit) {
+        // 不支持 mark，避免重复计算
+    }
+
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("mark/reset not supported");
+    }
+
+    protected void update(byte[] b, int off, int len) {
+        checksum.update(b, off, len);
+    }
+
+    /**
+     * 读到流末尾时调用一次
+     *
+     * @param description 对象描述
+     */
+    protected void verify(String description) {
+        if (expected == null) {
+            return;
+        }
+        String actual = checksum.toBase64();
+        if (!expected.equals(actual)) {
+            throw new OssChecksumException("校验失败 " + description + ": 期望 " + expected + "，实际 " + actual);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.anthonyzero.core.checksum;
+
+import com.anthonyzero.support.ChecksumAlgorithm;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+
+/**
+ * 分片上传对象的下载校验：按分片大小切分数据流计算每片 MD5，
+ * 读到流末尾时计算 {@code md5(part1 md5 || part2 md5 ...)-N} 与 ETag 比对
+ */
+public class MultipartEtagInputStream extends ChecksumInputStream {
+
+    private final long partSize;
+
+    private final String expectedEtag;
+
+    private final ByteArrayOutputStream partDigests = new ByteArrayOutputStream();
+
+    private StreamChecksum part = StreamChecksum.of(ChecksumAlgorithm.MD5);
+
+    private long partRead;
+
+    private int parts;
+
+    /**
+     * @param in           原始流
+     * @param partSize     上传时的分片大小
+     * @param expectedEtag 对象 ETag，格式为 {@code hex-N}
+     * @param description  出错时用于描述对象
+     */
+    public MultipartEtagInputStream(InputStream in, long partSize, String expectedEtag, String description) {
+        super(in, null, null, description);
+        this.partSize = partSize;
+        this.expectedEtag = expectedEtag;
+    }
+
+    @Override
+    protected void update(byte[] b, int off, int len) {
+        while (len > 0) {
+            int count = (int) Math.min(len, partSize - partRead);
+            part.update(b, off, count);
+            partRead += count;
+            off += count;
+            len -= count;
+            if (partRead == partSize) {
+                finishPart();
+            }
+        }
+    }
+
+    @Override
+    protected void verify(String description) {
+        if (partRead > 0 || parts == 0) {
+            finishPart();
+        }
+        StreamChecksum composite = StreamChecksum.of(ChecksumAlgorithm.MD5);
+        byte[] digests = partDigests.toByteArray();
+        composite.update(digests, 0, digests.length);
+        String actual = OssChecksums.hex(composite.digest()) + "-" + parts;
+        if (!expectedEtag.equals(actual)) {
+            throw new OssChecksumException("校验失败 " + description + ": 期望 ETag " + expectedEtag
+                    + "，实际 " + actual);
+        }
+    }
+
+    private void finishPart() {
+        byte[] digest = part.digest();
+        partDigests.write(digest, 0, digest.length);
+        parts++;
+        part = StreamChecksum.of(ChecksumAlgorithm.MD5);
+        partRead = 0;
+    }
+}
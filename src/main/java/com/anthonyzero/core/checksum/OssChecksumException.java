@@ -0,0 +1,15 @@
+package com.anthonyzero.core.checksum;
+
+import com.amazonaws.SdkClientException;
+
+/**
+ * 客户端完整性校验失败
+ */
+public class OssChecksumException extends SdkClientException {
+
+    private static final long serialVersionUID = 1L;
+
+    public OssChecksumException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,132 @@
+package com.anthonyzero.core.checksum;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.S3ObjectInputStream;
+import com.amazonaws.services.s3.model.SSEAlgorithm;
+import com.anthonyzero.support.ChecksumAlgorithm;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Base64;
+
+/**
+ * 上传、下载路径上的校验工具
+ */
+public final class OssChecksums {
+
+    /**
+     * 保存 CRC32C 校验值的用户元数据
+     */
+    public static final String CRC32C_METADATA = "oss-crc32c";
+
+    /**
+     * 保存分片大小的用户元数据，下载时用于重算分片 ETag
+     */
+    public static final String PART_SIZE_METADATA = "oss-part-size";
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private OssChecksums() {
+    }
+
+    /**
+     * 从流中读取数据填满 buffer，同时更新校验值，只遍历一次数据
+     *
+     * @param in       数据流
+     * @param buffer   缓冲区
+     * @param checksum 校验值，可以为 null
+     * @return 实际读取的字节数，小于 buffer 长度表示流已结束
+     */
+    public static int fill(InputStream in, byte[] buffer, StreamChecksum checksum) throws IOException {
+        int offset = 0;
+        while (offset < buffer.length) {
+            int n = in.read(buffer, offset, buffer.length - offset);
+            if (n < 0) {
+                break;
+            }
+            if (checksum != null) {
+                checksum.update(buffer, offset, n);
+            }
+            offset += n;
+        }
+        return offset;
+    }
+
+    /**
+     * 为完整下载的对象包装校验流，读到流末尾时校验：
+     * <ul>
+     *     <li>存在 CRC32C 元数据时校验 CRC32C</li>
+     *     <li>分片上传且记录了分片大小时，重算分片 ETag</li>
+     *     <li>使用 MD5 算法且 ETag 为对象 MD5 时校验 MD5</li>
+     * </ul>
+     * Range 请求的结果不做校验
+     *
+     * @param object    下载的对象
+     * @param algorithm 配置的校验算法
+     * @return 传入的对象
+     */
+    public static S3Object verifying(S3Object object, ChecksumAlgorithm algorithm) {
+        ObjectMetadata metadata = object.getObjectMetadata();
+        if (metadata.getContentRange() != null) {
+            return object;
+        }
+        S3ObjectInputStream content = object.getObjectContent();
+        String description = object.getBucketName() + "/" + object.getKey();
+        String crc32c = metadata.getUserMetaDataOf(CRC32C_METADATA);
+        String partSize = metadata.getUserMetaDataOf(PART_SIZE_METADATA);
+        String etag = metadata.getETag();
+        InputStream verifying = null;
+        if (crc32c != null) {
+            verifying = new ChecksumInputStream(content, StreamChecksum.of(ChecksumAlgorithm.CRC32C), crc32c,
+                    description);
+        } else if (etag != null && etag.contains("-")) {
+            if (partSize != null) {
+                verifying = new MultipartEtagInputStream(content, Long.parseLong(partSize), etag, description);
+            }
+        } else if (algorithm == ChecksumAlgorithm.MD5 && etag != null && etag.length() == 32
+                && !SSEAlgorithm.KMS.getAlgorithm().equals(metadata.getSSEAlgorithm())) {
+            verifying = new ChecksumInputStream(content, StreamChecksum.of(ChecksumAlgorithm.MD5),
+                    Base64.getEncoder().encodeToString(unhex(etag)), description);
+        }
+        if (verifying != null) {
+            object.setObjectContent(new S3ObjectInputStream(verifying, content.getHttpRequest()));
+        }
+        return object;
+    }
+
+    /**
+     * {@link #verifying(S3Object, ChecksumAlgorithm)} 是否会校验该对象
+     */
+    public static boolean isVerifiable(ObjectMetadata metadata, ChecksumAlgorithm algorithm) {
+        if (metadata.getContentRange() != null) {
+            return false;
+        }
+        String etag = metadata.getETag();
+        if (metadata.getUserMetaDataOf(CRC32C_METADATA) != null) {
+            return true;
+        }
+        if (etag != null && etag.contains("-")) {
+            return metadata.getUserMetaDataOf(PART_SIZE_METADATA) != null;
+        }
+        return algorithm == ChecksumAlgorithm.MD5 && etag != null && etag.length() == 32
+                && !SSEAlgorithm.KMS.getAlgorithm().equals(metadata.getSSEAlgorithm());
+    }
+
+    public static String hex(byte[] data) {
+        char[] chars = new char[data.length * 2];
+        for (int i = 0; i < data.length; i++) {
+            chars[i * 2] = HEX[(data[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[data[i] & 0xF];
+        }
+        return new String(chars);
+    }
+
+    private static byte[] unhex(String hex) {
+        byte[] data = new byte[hex.length() / 2];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return data;
+    }
+}
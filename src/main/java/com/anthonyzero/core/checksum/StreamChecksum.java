@@ -0,0 +1,88 @@
+package com.anthonyzero.core.checksum;
+
+import com.anthonyzero.support.ChecksumAlgorithm;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.Checksum;
+
+/**
+ * 随数据流增量计算的校验值
+ */
+public abstract class StreamChecksum {
+
+    /**
+     * 创建指定算法的校验值
+     *
+     * @param algorithm 校验算法
+     */
+    public static StreamChecksum of(ChecksumAlgorithm algorithm) {
+        switch (algorithm) {
+            case CRC32C:
+                return new Crc32cChecksum();
+            case MD5:
+                return new Md5Checksum();
+            default:
+                throw new IllegalArgumentException("不支持的校验算法: " + algorithm);
+        }
+    }
+
+    public abstract void update(byte[] b, int off, int len);
+
+    /**
+     * 校验值原始字节，CRC32C 为 4 字节大端序
+     */
+    public abstract byte[] digest();
+
+    /**
+     * Base64 编码的校验值，与 S3 Content-MD5 / x-amz-checksum-crc32c 的格式一致
+     */
+    public String toBase64() {
+        return Base64.getEncoder().encodeToString(digest());
+    }
+
+    private static class Crc32cChecksum extends StreamChecksum {
+
+        private final Checksum crc32c = Crc32c.create();
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            crc32c.update(b, off, len);
+        }
+
+        @Override
+        public byte[] digest() {
+            long value = crc32c.getValue();
+            return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+        }
+    }
+
+    private static class Md5Checksum extends StreamChecksum {
+
+        private final MessageDigest md5;
+
+        private byte[] digest;
+
+        Md5Checksum() {
+            try {
+                md5 = MessageDigest.getInstance("MD5");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void update(byte[] b, int off, int len) {
+            md5.update(b, off, len);
+        }
+
+        @Override
+        public byte[] digest() {
+            if (digest == null) {
+                digest = md5.digest();
+            }
+            return digest;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.anthonyzero.core.client;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.*;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于 AWS SDK v1 同步客户端的引擎
+ * <p>
+ * 异步方法在固定大小的线程池中执行同步请求，线程数与 SDK 默认连接池大小一致，
+ * 并发请求数超过连接数时在队列中等待。
+ */
+public class AmazonS3OssClient implements OssClient {
+
+    @Getter
+    private final AmazonS3 amazonS3;
+
+    private final ExecutorService executor;
+
+    public AmazonS3OssClient(AmazonS3 amazonS3) {
+        this(amazonS3, ClientConfiguration.DEFAULT_MAX_CONNECTIONS);
+    }
+
+    public AmazonS3OssClient(AmazonS3 amazonS3, int asyncThreads) {
+        this.amazonS3 = amazonS3;
+        AtomicInteger counter = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(asyncThreads, asyncThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "oss-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 未使用异步方法时不常驻线程
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        return amazonS3.doesBucketExistV2(bucketName);
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return amazonS3.createBucket(bucketName);
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        amazonS3.setBucketPolicy(bucketName, policyText);
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        return amazonS3.getBucketPolicy(bucketName).getPolicyText();
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        return amazonS3.listBuckets();
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        amazonS3.deleteBucket(bucketName);
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return amazonS3.listObjects(bucketName, prefix);
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return amazonS3.listNextBatchOfObjects(previousObjectListing);
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return amazonS3.getUrl(bucketName, key);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return amazonS3.generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return amazonS3.putObject(request);
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        return amazonS3.getObject(request);
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return amazonS3.getObjectMetadata(bucketName, key);
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        amazonS3.deleteObject(bucketName, key);
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return amazonS3.initiateMultipartUpload(request);
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return amazonS3.uploadPart(request);
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return amazonS3.completeMultipartUpload(request);
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        amazonS3.abortMultipartUpload(request);
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        byte[] data = OssClients.readContent(request);
+        PutObjectRequest buffered = request.clone().withFile(null).withInputStream(new ByteArrayInputStream(data));
+        ObjectMetadata objectMetadata = request.getMetadata() == null ? new ObjectMetadata() : request.getMetadata().clone();
+        objectMetadata.setContentLength(data.length);
+        buffered.setMetadata(objectMetadata);
+        buffered.getRequestClientOptions().setReadLimit(data.length + 1);
+        return CompletableFuture.supplyAsync(() -> amazonS3.putObject(buffered), executor);
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        return CompletableFuture.supplyAsync(() -> amazonS3.initiateMultipartUpload(request), executor);
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        byte[] data = OssClients.readContent(request);
+        UploadPartRequest buffered = new UploadPartRequest().withBucketName(request.getBucketName())
+                .withKey(request.getKey()).withUploadId(request.getUploadId())
+                .withPartNumber(request.getPartNumber()).withMD5Digest(request.getMd5Digest())
+                .withInputStream(new ByteArrayInputStream(data)).withPartSize(data.length)
+                .withLastPart(request.isLastPart());
+        return CompletableFuture.supplyAsync(() -> amazonS3.uploadPart(buffered), executor);
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        return CompletableFuture.supplyAsync(() -> {
+            S3Object s3Object = amazonS3.getObject(request);
+            if (s3Object == null) {
+                return null;
+            }
+            try {
+                return OssClients.buffered(s3Object);
+            } catch (IOException e) {
+                throw new SdkClientException("读取 " + request.getBucketName() + "/" + request.getKey() + " 失败", e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 只关闭异步线程池，AmazonS3 由创建者负责关闭
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
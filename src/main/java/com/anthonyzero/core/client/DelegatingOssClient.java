@@ -0,0 +1,17 @@
+package com.anthonyzero.core.client;
+
+/**
+ * 可以取得被装饰客户端的 {@link OssClient} 装饰器
+ * <p>
+ * 只有绕过装饰器直接使用被装饰客户端不影响正确性时才应实现，例如按需读取的下载可以跳过延迟创建与对冲；
+ * 出错后需要切换端点的装饰器不应实现。
+ *
+ * @see OssClients#asyncDelegate(OssClient)
+ */
+public interface DelegatingOssClient extends OssClient {
+
+    /**
+     * @return 被装饰的客户端
+     */
+    OssClient getDelegate();
+}
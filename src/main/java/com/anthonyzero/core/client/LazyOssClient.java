@@ -0,0 +1,202 @@
+package com.anthonyzero.core.client;
+
+import com.amazonaws.services.s3.model.*;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 首次使用时才创建的 {@link OssClient}
+ * <p>
+ * 创建 SDK 客户端需要加载大量模型类、区域元数据与 JSON 解析配置，延迟到首次请求可以缩短应用启动时间；
+ * 也可以调用 {@link #warmUpAsync()} 在启动完成后于后台提前创建，避免首次请求承担这部分耗时。
+ */
+public class LazyOssClient implements DelegatingOssClient {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final Supplier<OssClient> factory;
+
+    private volatile OssClient delegate;
+
+    private volatile boolean closed;
+
+    public LazyOssClient(Supplier<OssClient> factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * @return 是否已经创建
+     */
+    public boolean isInitialized() {
+        return delegate != null;
+    }
+
+    /**
+     * 返回实际的客户端，尚未创建时在当前线程创建
+     */
+    @Override
+    public OssClient getDelegate() {
+        OssClient client = delegate;
+        if (client == null) {
+            synchronized (this) {
+                client = delegate;
+                if (client == null) {
+                    if (closed) {
+                        throw new IllegalStateException("客户端已关闭");
+                    }
+                    client = factory.get();
+                    delegate = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 在后台线程创建客户端，创建失败时留到首次请求再次创建
+     */
+    public void warmUpAsync() {
+        if (isInitialized()) {
+            return;
+        }
+        Thread thread = new Thread(() -> {
+            try {
+                getDelegate();
+            } catch (RuntimeException ignored) {
+                // 首次请求时重新创建并抛出异常
+            }
+        }, "oss-warm-up-" + THREAD_NUMBER.incrementAndGet());
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        return getDelegate().doesBucketExist(bucketName);
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return getDelegate().createBucket(bucketName);
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        getDelegate().setBucketPolicy(bucketName, policyText);
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        return getDelegate().getBucketPolicy(bucketName);
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        return getDelegate().listBuckets();
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        getDelegate().deleteBucket(bucketName);
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return getDelegate().listObjects(bucketName, prefix);
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return getDelegate().listNextBatchOfObjects(previousObjectListing);
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return getDelegate().getUrl(bucketName, key);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return getDelegate().generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return getDelegate().putObject(request);
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        return getDelegate().getObject(request);
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return getDelegate().getObjectMetadata(bucketName, key);
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        getDelegate().deleteObject(bucketName, key);
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return getDelegate().initiateMultipartUpload(request);
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return getDelegate().uploadPart(request);
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return getDelegate().completeMultipartUpload(request);
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        getDelegate().abortMultipartUpload(request);
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        return getDelegate().putObjectAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        return getDelegate().initiateMultipartUploadAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        return getDelegate().uploadPartAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        return getDelegate().getObjectAsync(request);
+    }
+
+    /**
+     * 尚未创建时不再创建
+     */
+    @Override
+    public void close() {
+        OssClient client;
+        synchronized (this) {
+            closed = true;
+            client = delegate;
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.anthonyzero.core.client;
+
+import com.amazonaws.services.s3.model.*;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 存储客户端抽象，{@link com.anthonyzero.core.OssTemplate} 只通过该接口访问对象存储
+ * <p>
+ * 请求、响应统一使用 AWS SDK v1 的模型类，服务端错误统一抛出
+ * {@link AmazonS3Exception}，客户端错误抛出 {@link com.amazonaws.SdkClientException}，
+ * 上层代码与具体引擎无关。
+ *
+ * @see AmazonS3OssClient
+ * @see S3AsyncOssClient
+ */
+public interface OssClient extends AutoCloseable {
+
+    /**
+     * bucket是否存在，无权限访问时视为存在
+     */
+    boolean doesBucketExist(String bucketName);
+
+    Bucket createBucket(String bucketName);
+
+    void setBucketPolicy(String bucketName, String policyText);
+
+    /**
+     * @return bucket 策略，未设置时返回 null
+     */
+    String getBucketPolicy(String bucketName);
+
+    List<Bucket> listBuckets();
+
+    void deleteBucket(String bucketName);
+
+    /**
+     * 列出前缀匹配的对象，单次最多返回 1000 个
+     */
+    ObjectListing listObjects(String bucketName, String prefix);
+
+    /**
+     * 从上一页的结束位置继续列出对象
+     */
+    ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing);
+
+    URL getUrl(String bucketName, String key);
+
+    URL generatePresignedUrl(GeneratePresignedUrlRequest request);
+
+    PutObjectResult putObject(PutObjectRequest request);
+
+    /**
+     * 下载对象，返回的内容流直接对应网络连接，使用完毕需要关闭
+     *
+     * @return 对象；设置的 ETag、修改时间约束不满足时返回 null
+     */
+    S3Object getObject(GetObjectRequest request);
+
+    /**
+     * 获取对象元数据（HEAD）
+     */
+    ObjectMetadata getObjectMetadata(String bucketName, String key);
+
+    void deleteObject(String bucketName, String key);
+
+    InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request);
+
+    UploadPartResult uploadPart(UploadPartRequest request);
+
+    CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request);
+
+    void abortMultipartUpload(AbortMultipartUploadRequest request);
+
+    /**
+     * 异步上传，请求中的流会在调用线程读入内存
+     */
+    CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request);
+
+    /**
+     * 异步发起分片上传
+     */
+    CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request);
+
+    /**
+     * 异步上传分片，分片内容会在调用线程读入内存
+     */
+    CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request);
+
+    /**
+     * 异步下载，完成时对象内容已全部读入内存，适合小对象的高并发读取
+     *
+     * @return 对象；设置的 ETag、修改时间约束不满足时为 null
+     */
+    CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request);
+
+    /**
+     * 释放引擎自身创建的资源
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,128 @@
+package com.anthonyzero.core.client;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Optional;
+
+/**
+ * 引擎实现共用的工具方法
+ */
+public final class OssClients {
+
+    private OssClients() {
+    }
+
+    /**
+     * 逐层展开 {@link DelegatingOssClient}，返回可以按需读取下载内容的 v2 异步引擎
+     * <p>
+     * 放在工具类而不是 {@link OssClient} 上，使接口与其他实现不依赖 SDK v2 的类型
+     *
+     * @return 不基于 {@link S3AsyncOssClient} 时为空
+     */
+    public static Optional<S3AsyncOssClient> asyncDelegate(OssClient ossClient) {
+        OssClient client = ossClient;
+        while (client instanceof DelegatingOssClient) {
+            client = ((DelegatingOssClient) client).getDelegate();
+        }
+        return client instanceof S3AsyncOssClient ? Optional.of((S3AsyncOssClient) client) : Optional.empty();
+    }
+
+    /**
+     * 读取上传请求的全部内容；元数据指定了长度时只读取该长度
+     */
+    static byte[] readContent(PutObjectRequest request) {
+        try {
+            if (request.getFile() != null) {
+                return Files.readAllBytes(request.getFile().toPath());
+            }
+            ObjectMetadata objectMetadata = request.getMetadata();
+            long length = objectMetadata == null ? -1 : objectMetadata.getContentLength();
+            return readContent(request.getInputStream(), length > 0 ? length : -1);
+        } catch (IOException e) {
+            throw new SdkClientException("读取上传流失败: " + request.getBucketName() + "/" + request.getKey(), e);
+        }
+    }
+
+    /**
+     * 读取分片请求的内容
+     */
+    static byte[] readContent(UploadPartRequest request) {
+        try {
+            if (request.getFile() == null) {
+                return readContent(request.getInputStream(), request.getPartSize());
+            }
+            try (RandomAccessFile file = new RandomAccessFile(request.getFile(), "r")) {
+                byte[] data = new byte[(int) request.getPartSize()];
+                file.seek(request.getFileOffset());
+                file.readFully(data);
+                return data;
+            }
+        } catch (IOException e) {
+            throw new SdkClientException("读取分片失败: " + request.getBucketName() + "/" + request.getKey(), e);
+        }
+    }
+
+    /**
+     * 读取流的内容，length 小于 0 时读到流结束
+     */
+    static byte[] readContent(InputStream in, long length) throws IOException {
+        if (in == null) {
+            return new byte[0];
+        }
+        if (length >= 0) {
+            if (length > Integer.MAX_VALUE - 8) {
+                throw new IOException("单次请求内容过大: " + length);
+            }
+            byte[] data = new byte[(int) length];
+            int offset = 0;
+            while (offset < data.length) {
+                int read = in.read(data, offset, data.length - offset);
+                if (read < 0) {
+                    throw new IOException("上传流长度小于指定的大小: " + length);
+                }
+                offset += read;
+            }
+            return data;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 将对象内容读入内存并释放连接
+     */
+    static S3Object buffered(S3Object s3Object) throws IOException {
+        byte[] data;
+        try (S3Object closing = s3Object) {
+            data = readContent(closing.getObjectContent(), -1);
+        }
+        S3Object buffered = new S3Object();
+        buffered.setBucketName(s3Object.getBucketName());
+        buffered.setKey(s3Object.getKey());
+        buffered.setObjectMetadata(s3Object.getObjectMetadata());
+        buffered.setObjectContent(new ByteArrayInputStream(data));
+        return buffered;
+    }
+
+    static String removeQuotes(String eTag) {
+        if (eTag != null && eTag.length() > 1 && eTag.startsWith("\"") && eTag.endsWith("\"")) {
+            return eTag.substring(1, eTag.length() - 1);
+        }
+        return eTag;
+    }
+}
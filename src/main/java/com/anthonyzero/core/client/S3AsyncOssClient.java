@@ -0,0 +1,561 @@
+package com.anthonyzero.core.client;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.HttpMethod;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.Headers;
+import com.amazonaws.services.s3.model.*;
+import com.amazonaws.util.DateUtils;
+import lombok.Getter;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.async.ResponsePublisher;
+import software.amazon.awssdk.http.SdkHttpResponse;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.GetBucketPolicyResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListBucketsResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsResponse;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 基于 AWS SDK v2 {@link S3AsyncClient} 的引擎，默认使用 Netty 非阻塞 HTTP 客户端
+ * <p>
+ * 请求在事件循环上收发，异步方法不占用调用线程，适合大量并发的小对象读写；同步方法等待异步结果返回。
+ * 下载的内容流按需从连接读取，不会缓冲整个对象。上传请求的内容在发送前读入内存，
+ * 与 v1 引擎为支持重试而缓冲的行为一致。
+ */
+public class S3AsyncOssClient implements OssClient {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+
+    private static final int HTTP_FORBIDDEN = 403;
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private static final int HTTP_PRECONDITION_FAILED = 412;
+
+    private static final String NO_SUCH_BUCKET_POLICY = "NoSuchBucketPolicy";
+
+    @Getter
+    private final S3AsyncClient s3AsyncClient;
+
+    private final S3Presigner presigner;
+
+    public S3AsyncOssClient(S3AsyncClient s3AsyncClient, S3Presigner presigner) {
+        this.s3AsyncClient = s3AsyncClient;
+        this.presigner = presigner;
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        try {
+            join(s3AsyncClient.headBucket(b -> b.bucket(bucketName)));
+            return true;
+        } catch (AmazonServiceException e) {
+            if (e.getStatusCode() == HTTP_NOT_FOUND) {
+                return false;
+            }
+            if (e.getStatusCode() == HTTP_FORBIDDEN) {
+                return true;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        join(s3AsyncClient.createBucket(b -> b.bucket(bucketName)));
+        return new Bucket(bucketName);
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        join(s3AsyncClient.putBucketPolicy(b -> b.bucket(bucketName).policy(policyText)));
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        try {
+            return join(map(s3AsyncClient.getBucketPolicy(b -> b.bucket(bucketName)), GetBucketPolicyResponse::policy));
+        } catch (AmazonS3Exception e) {
+            // 与 v1 一致，未设置策略时返回空
+            if (NO_SUCH_BUCKET_POLICY.equals(e.getErrorCode())) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        ListBucketsResponse response = join(s3AsyncClient.listBuckets());
+        Owner owner = response.owner() == null ? null
+                : new Owner(response.owner().id(), response.owner().displayName());
+        return response.buckets().stream().map(b -> {
+            Bucket bucket = new Bucket(b.name());
+            bucket.setCreationDate(toDate(b.creationDate()));
+            bucket.setOwner(owner);
+            return bucket;
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        join(s3AsyncClient.deleteBucket(b -> b.bucket(bucketName)));
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return listObjects(bucketName, prefix, null);
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        if (!previousObjectListing.isTruncated()) {
+            ObjectListing emptyListing = new ObjectListing();
+            emptyListing.setBucketName(previousObjectListing.getBucketName());
+            emptyListing.setPrefix(previousObjectListing.getPrefix());
+            emptyListing.setMarker(previousObjectListing.getNextMarker());
+            return emptyListing;
+        }
+        String marker = previousObjectListing.getNextMarker();
+        if (marker == null) {
+            // 未指定 delimiter 时服务端不返回 NextMarker，以最后一个 key 继续
+            List<S3ObjectSummary> summaries = previousObjectListing.getObjectSummaries();
+            marker = summaries.get(summaries.size() - 1).getKey();
+        }
+        return listObjects(previousObjectListing.getBucketName(), previousObjectListing.getPrefix(), marker);
+    }
+
+    private ObjectListing listObjects(String bucketName, String prefix, String marker) {
+        ListObjectsResponse response = join(s3AsyncClient.listObjects(b -> b.bucket(bucketName).prefix(prefix)
+                .marker(marker)));
+        ObjectListing objectListing = new ObjectListing();
+        objectListing.setBucketName(bucketName);
+        objectListing.setPrefix(response.prefix());
+        objectListing.setMarker(response.marker());
+        objectListing.setNextMarker(response.nextMarker());
+        objectListing.setDelimiter(response.delimiter());
+        objectListing.setMaxKeys(response.maxKeys() == null ? 0 : response.maxKeys());
+        objectListing.setTruncated(Boolean.TRUE.equals(response.isTruncated()));
+        objectListing.setCommonPrefixes(response.commonPrefixes().stream().map(p -> p.prefix())
+                .collect(Collectors.toList()));
+        response.contents().forEach(o -> {
+            S3ObjectSummary summary = new S3ObjectSummary();
+            summary.setBucketName(bucketName);
+            summary.setKey(o.key());
+            summary.setETag(OssClients.removeQuotes(o.eTag()));
+            summary.setSize(o.size() == null ? 0 : o.size());
+            summary.setLastModified(toDate(o.lastModified()));
+            summary.setStorageClass(o.storageClassAsString());
+            if (o.owner() != null) {
+                summary.setOwner(new Owner(o.owner().id(), o.owner().displayName()));
+            }
+            objectListing.getObjectSummaries().add(summary);
+        });
+        return objectListing;
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return s3AsyncClient.utilities().getUrl(b -> b.bucket(bucketName).key(key));
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        Duration duration = request.getExpiration() == null ? Duration.ofMinutes(15)
+                : Duration.between(Instant.now(), request.getExpiration().toInstant());
+        if (request.getMethod() == HttpMethod.GET) {
+            return presigner.presignGetObject(b -> b.signatureDuration(duration)
+                    .getObjectRequest(g -> g.bucket(request.getBucketName()).key(request.getKey()))).url();
+        }
+        if (request.getMethod() == HttpMethod.PUT) {
+            return presigner.presignPutObject(b -> b.signatureDuration(duration)
+                    .putObjectRequest(p -> p.bucket(request.getBucketName()).key(request.getKey())
+                            .contentType(request.getContentType()))).url();
+        }
+        throw new IllegalArgumentException("不支持的预签名方法: " + request.getMethod());
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return join(putObjectAsync(request));
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        try {
+            ResponseInputStream<GetObjectResponse> content = join(s3AsyncClient.getObject(
+                    b -> toGetObjectRequest(b, request), AsyncResponseTransformer.toBlockingInputStream()));
+            return toS3Object(request, content.response(), content);
+        } catch (AmazonServiceException e) {
+            if (isConstraintFailure(request, e)) {
+                return null;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 下载对象，内容以 Reactive Streams 发布者返回，按订阅方的请求量从网络读取，不占用调用线程
+     *
+     * @return 对象；设置的 ETag、修改时间约束不满足时为 null
+     */
+    public CompletableFuture<ObjectPublisher> getObjectPublisher(GetObjectRequest request) {
+        CompletableFuture<ResponsePublisher<GetObjectResponse>> future = s3AsyncClient.getObject(
+                b -> toGetObjectRequest(b, request), AsyncResponseTransformer.toPublisher());
+        CompletableFuture<ObjectPublisher> result = future.handle((publisher, e) -> {
+            if (e == null) {
+                return new ObjectPublisher(toObjectMetadata(publisher.response().sdkHttpResponse()), publisher);
+            }
+            RuntimeException failure = translate(e);
+            if (failure instanceof AmazonServiceException
+                    && isConstraintFailure(request, (AmazonServiceException) failure)) {
+                return null;
+            }
+            throw failure;
+        });
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return join(map(s3AsyncClient.headObject(b -> b.bucket(bucketName).key(key)),
+                response -> toObjectMetadata(response.sdkHttpResponse())));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        join(s3AsyncClient.deleteObject(b -> b.bucket(bucketName).key(key)));
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return join(initiateMultipartUploadAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        ObjectMetadata objectMetadata = request.getObjectMetadata() == null ? new ObjectMetadata()
+                : request.getObjectMetadata();
+        return map(s3AsyncClient.createMultipartUpload(b -> {
+            b.bucket(request.getBucketName()).key(request.getKey())
+                    .contentType(objectMetadata.getContentType())
+                    .contentEncoding(objectMetadata.getContentEncoding())
+                    .contentDisposition(objectMetadata.getContentDisposition())
+                    .cacheControl(objectMetadata.getCacheControl())
+                    .serverSideEncryption(objectMetadata.getSSEAlgorithm())
+                    .metadata(objectMetadata.getUserMetadata());
+            if (request.getCannedACL() != null) {
+                b.acl(request.getCannedACL().toString());
+            }
+        }), response -> {
+            InitiateMultipartUploadResult result = new InitiateMultipartUploadResult();
+            result.setBucketName(request.getBucketName());
+            result.setKey(request.getKey());
+            result.setUploadId(response.uploadId());
+            return result;
+        });
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return join(uploadPartAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        byte[] data = OssClients.readContent(request);
+        return map(s3AsyncClient.uploadPart(b -> b.bucket(request.getBucketName()).key(request.getKey())
+                .uploadId(request.getUploadId()).partNumber(request.getPartNumber())
+                .contentLength((long) data.length).contentMD5(request.getMd5Digest()),
+                AsyncRequestBody.fromBytesUnsafe(data)), response -> {
+            UploadPartResult result = new UploadPartResult();
+            result.setPartNumber(request.getPartNumber());
+            result.setETag(OssClients.removeQuotes(response.eTag()));
+            return result;
+        });
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        List<CompletedPart> parts = request.getPartETags().stream()
+                .sorted(Comparator.comparingInt(PartETag::getPartNumber))
+                .map(p -> CompletedPart.builder().partNumber(p.getPartNumber()).eTag(p.getETag()).build())
+                .collect(Collectors.toList());
+        software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse response = join(
+                s3AsyncClient.completeMultipartUpload(b -> b.bucket(request.getBucketName()).key(request.getKey())
+                        .uploadId(request.getUploadId()).multipartUpload(m -> m.parts(parts))));
+        CompleteMultipartUploadResult result = new CompleteMultipartUploadResult();
+        result.setBucketName(request.getBucketName());
+        result.setKey(request.getKey());
+        result.setLocation(response.location());
+        result.setETag(OssClients.removeQuotes(response.eTag()));
+        result.setVersionId(response.versionId());
+        return result;
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        join(s3AsyncClient.abortMultipartUpload(b -> b.bucket(request.getBucketName()).key(request.getKey())
+                .uploadId(request.getUploadId())));
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        byte[] data = OssClients.readContent(request);
+        ObjectMetadata objectMetadata = request.getMetadata() == null ? new ObjectMetadata() : request.getMetadata();
+        return map(s3AsyncClient.putObject(b -> {
+            b.bucket(request.getBucketName()).key(request.getKey())
+                    .contentLength((long) data.length)
+                    .contentType(objectMetadata.getContentType())
+                    .contentEncoding(objectMetadata.getContentEncoding())
+                    .contentDisposition(objectMetadata.getContentDisposition())
+                    .cacheControl(objectMetadata.getCacheControl())
+                    .contentMD5(objectMetadata.getContentMD5())
+                    .serverSideEncryption(objectMetadata.getSSEAlgorithm())
+                    .metadata(objectMetadata.getUserMetadata());
+            if (request.getCannedAcl() != null) {
+                b.acl(request.getCannedAcl().toString());
+            }
+        }, AsyncRequestBody.fromBytesUnsafe(data)), response -> {
+            PutObjectResult result = new PutObjectResult();
+            result.setETag(OssClients.removeQuotes(response.eTag()));
+            result.setVersionId(response.versionId());
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        CompletableFuture<ResponseBytes<GetObjectResponse>> future = s3AsyncClient.getObject(
+                b -> toGetObjectRequest(b, request), AsyncResponseTransformer.toBytes());
+        CompletableFuture<S3Object> result = future.handle((bytes, e) -> {
+            if (e == null) {
+                return toS3Object(request, bytes.response(), new ByteArrayInputStream(bytes.asByteArrayUnsafe()));
+            }
+            RuntimeException failure = translate(e);
+            if (failure instanceof AmazonServiceException
+                    && isConstraintFailure(request, (AmazonServiceException) failure)) {
+                return null;
+            }
+            throw failure;
+        });
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * S3AsyncClient 与 S3Presigner 由创建者负责关闭
+     */
+    @Override
+    public void close() {
+    }
+
+    private static void toGetObjectRequest(software.amazon.awssdk.services.s3.model.GetObjectRequest.Builder builder,
+                                           GetObjectRequest request) {
+        builder.bucket(request.getBucketName()).key(request.getKey()).versionId(request.getVersionId());
+        String range = request.getCustomRequestHeaders() == null ? null
+                : request.getCustomRequestHeaders().get(Headers.RANGE);
+        long[] bounds = request.getRange();
+        if (range == null && bounds != null) {
+            // withRange(start) 对应的结束位置为 Long.MAX_VALUE - 1
+            range = "bytes=" + bounds[0] + "-" + (bounds[1] >= Long.MAX_VALUE - 1 ? "" : String.valueOf(bounds[1]));
+        }
+        builder.range(range);
+        if (!request.getMatchingETagConstraints().isEmpty()) {
+            builder.ifMatch(String.join(",", request.getMatchingETagConstraints()));
+        }
+        if (!request.getNonmatchingETagConstraints().isEmpty()) {
+            builder.ifNoneMatch(String.join(",", request.getNonmatchingETagConstraints()));
+        }
+        if (request.getModifiedSinceConstraint() != null) {
+            builder.ifModifiedSince(request.getModifiedSinceConstraint().toInstant());
+        }
+        if (request.getUnmodifiedSinceConstraint() != null) {
+            builder.ifUnmodifiedSince(request.getUnmodifiedSinceConstraint().toInstant());
+        }
+    }
+
+    private static S3Object toS3Object(GetObjectRequest request, GetObjectResponse response, InputStream content) {
+        S3Object s3Object = new S3Object();
+        s3Object.setBucketName(request.getBucketName());
+        s3Object.setKey(request.getKey());
+        s3Object.setObjectMetadata(toObjectMetadata(response.sdkHttpResponse()));
+        s3Object.setObjectContent(content);
+        return s3Object;
+    }
+
+    /**
+     * 与 v1 一致，按响应头构造元数据：x-amz-meta- 前缀的为用户元数据，其余原样保留
+     */
+    private static ObjectMetadata toObjectMetadata(SdkHttpResponse response) {
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        response.headers().forEach((name, values) -> {
+            String value = values.get(0);
+            String lowerCaseName = name.toLowerCase(Locale.ROOT);
+            if (lowerCaseName.startsWith(Headers.S3_USER_METADATA_PREFIX)) {
+                objectMetadata.addUserMetadata(lowerCaseName.substring(Headers.S3_USER_METADATA_PREFIX.length()),
+                        value);
+            } else if (Headers.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+                objectMetadata.setContentLength(Long.parseLong(value));
+            } else if (Headers.LAST_MODIFIED.equalsIgnoreCase(name)) {
+                objectMetadata.setLastModified(DateUtils.parseRFC822Date(value));
+            } else if (Headers.ETAG.equalsIgnoreCase(name)) {
+                objectMetadata.setHeader(Headers.ETAG, OssClients.removeQuotes(value));
+            } else {
+                objectMetadata.setHeader(name, value);
+            }
+        });
+        return objectMetadata;
+    }
+
+    /**
+     * v1 在 ETag、修改时间约束不满足时返回 null 而不是抛出异常
+     */
+    private static boolean isConstraintFailure(GetObjectRequest request, AmazonServiceException e) {
+        boolean constrained = !request.getMatchingETagConstraints().isEmpty()
+                || !request.getNonmatchingETagConstraints().isEmpty()
+                || request.getModifiedSinceConstraint() != null || request.getUnmodifiedSinceConstraint() != null;
+        return constrained && (e.getStatusCode() == HTTP_NOT_MODIFIED
+                || e.getStatusCode() == HTTP_PRECONDITION_FAILED);
+    }
+
+    private static Date toDate(Instant instant) {
+        return instant == null ? null : Date.from(instant);
+    }
+
+    /**
+     * 转换异步结果并统一异常，取消返回的 future 时同时取消底层请求
+     */
+    private static <T, R> CompletableFuture<R> map(CompletableFuture<T> future, Function<T, R> mapper) {
+        CompletableFuture<R> result = future.handle((response, e) -> {
+            if (e != null) {
+                throw translate(e);
+            }
+            return mapper.apply(response);
+        });
+        result.whenComplete((r, e) -> {
+            if (result.isCancelled()) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AbortedException(e);
+        } catch (ExecutionException e) {
+            throw translate(e.getCause());
+        }
+    }
+
+    /**
+     * 将 v2 异常转换为 v1 异常，服务端错误保留状态码与错误码
+     */
+    static RuntimeException translate(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof AwsServiceException) {
+            AwsServiceException serviceException = (AwsServiceException) e;
+            AwsErrorDetails details = serviceException.awsErrorDetails();
+            String message = details != null && details.errorMessage() != null ? details.errorMessage()
+                    : serviceException.getMessage();
+            AmazonS3Exception exception = new AmazonS3Exception(message, serviceException);
+            exception.setStatusCode(serviceException.statusCode());
+            exception.setErrorCode(details == null ? null : details.errorCode());
+            exception.setRequestId(serviceException.requestId());
+            exception.setServiceName("Amazon S3");
+            exception.setErrorType(serviceException.statusCode() >= 500 ? AmazonServiceException.ErrorType.Service
+                    : AmazonServiceException.ErrorType.Client);
+            return exception;
+        }
+        if (e instanceof AmazonClientException) {
+            return (AmazonClientException) e;
+        }
+        return new SdkClientException(String.valueOf(e.getMessage()), e);
+    }
+
+    /**
+     * 对象元数据与内容发布者，内容只能订阅一次；不读取内容时需要调用 {@link #discard()} 释放连接
+     */
+    @Getter
+    public static class ObjectPublisher {
+
+        private final ObjectMetadata objectMetadata;
+
+        private final Publisher<ByteBuffer> content;
+
+        public ObjectPublisher(ObjectMetadata objectMetadata, Publisher<ByteBuffer> content) {
+            this.objectMetadata = objectMetadata;
+            this.content = content;
+        }
+
+        /**
+         * 订阅后立即取消，释放连接
+         */
+        public void discard() {
+            content.subscribe(new Subscriber<ByteBuffer>() {
+                @Override
+                public void onSubscribe(Subscription subscription) {
+                    subscription.cancel();
+                }
+
+                @Override
+                public void onNext(ByteBuffer byteBuffer) {
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+        }
+    }
+}
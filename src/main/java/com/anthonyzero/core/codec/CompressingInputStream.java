@@ -0,0 +1,96 @@
+package com.anthonyzero.core.codec;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 把压缩输出流转换为可拉取的输入流：每次从源读取一块数据压缩后输出，
+ * 内存占用只与块大小有关，与对象大小无关
+ */
+public class CompressingInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final InputStream source;
+
+    private final Sink sink = new Sink();
+
+    private final OutputStream compressor;
+
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private final byte[] single = new byte[1];
+
+    private int readPosition;
+
+    private boolean finished;
+
+    public CompressingInputStream(InputStream source, OssCodec codec) throws IOException {
+        this.source = source;
+        this.compressor = codec.compress(sink);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (readPosition >= sink.size()) {
+            if (finished) {
+                return -1;
+            }
+            sink.reset();
+            readPosition = 0;
+            int n = source.read(chunk);
+            if (n < 0) {
+                // 写出压缩尾部
+                compressor.close();
+                finished = true;
+            } else {
+                compressor.write(chunk, 0, n);
+            }
+        }
+        int count = Math.min(len, sink.size() - readPosition);
+        System.arraycopy(sink.buffer(), readPosition, b, off, count);
+        readPosition += count;
+        return count;
+    }
+
+    /**
+     * 未读完时同时关闭压缩流，释放压缩器占用的本地内存
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            source.close();
+        } finally {
+            if (!finished) {
+                finished = true;
+                try {
+                    compressor.close();
+                } catch (IOException ignored) {
+                    // 压缩结果不再需要
+                }
+            }
+        }
+    }
+
+    private static class Sink extends ByteArrayOutputStream {
+
+        Sink() {
+            super(CHUNK_SIZE);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.anthonyzero.core.codec;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 解压输入流，解压结束时把原始流读到末尾，
+ * 保证外层的校验流能够完成校验、HTTP 连接可以被复用
+ */
+public class DecompressingInputStream extends FilterInputStream {
+
+    private final InputStream raw;
+
+    private boolean drained;
+
+    public DecompressingInputStream(InputStream raw, OssCodec codec) throws IOException {
+        super(codec.decompress(raw));
+        this.raw = raw;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b < 0) {
+            drain();
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n < 0) {
+            drain();
+        }
+        return n;
+    }
+
+    private void drain() throws IOException {
+        if (drained) {
+            return;
+        }
+        drained = true;
+        byte[] buffer = new byte[1024];
+        while (raw.read(buffer) >= 0) {
+            // 压缩数据之后不应该还有内容，这里只是读到末尾
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.anthonyzero.core.codec;
+
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * lz4 frame 编码，需要引入 {@code org.lz4:lz4-java}
+ * <p>
+ * 使用 64KB 的块：每个压缩流与解压流都按块大小分配缓冲，4MB 的块在并发上传、下载时占用大量内存，
+ * 而更大的块对压缩率的提升很小。
+ */
+public class Lz4Codec implements OssCodec {
+
+    public static final String NAME = "lz4";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_64KB);
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new LZ4FrameInputStream(in);
+    }
+}
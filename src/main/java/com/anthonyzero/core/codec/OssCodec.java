@@ -0,0 +1,30 @@
+package com.anthonyzero.core.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 对象压缩编解码器，编码名称写入用户元数据，下载时据此自动解压
+ */
+public interface OssCodec {
+
+    /**
+     * 编码名称，如 gzip、zstd、lz4
+     */
+    String getName();
+
+    /**
+     * 包装压缩输出流，关闭返回的流时需要写出尾部数据并关闭 out
+     *
+     * @param out 压缩后数据的输出
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * 包装解压输入流
+     *
+     * @param in 压缩数据
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,53 @@
+package com.anthonyzero.core.codec;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按名称查找编解码器
+ */
+public class OssCodecRegistry {
+
+    /**
+     * 保存压缩编码名称的用户元数据
+     */
+    public static final String CODEC_METADATA = "oss-codec";
+
+    private final Map<String, OssCodec> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * 内置编解码器：gzip 始终可用，zstd、lz4 在对应依赖存在时注册
+     */
+    public static OssCodecRegistry defaults() {
+        OssCodecRegistry registry = new OssCodecRegistry();
+        ClassLoader classLoader = OssCodecRegistry.class.getClassLoader();
+        registry.register(new GzipCodec());
+        if (ClassUtils.isPresent("com.github.luben.zstd.ZstdOutputStream", classLoader)) {
+            registry.register(new ZstdCodec());
+        }
+        if (ClassUtils.isPresent("net.jpountz.lz4.LZ4FrameOutputStream", classLoader)) {
+            registry.register(new Lz4Codec());
+        }
+        return registry;
+    }
+
+    public void register(OssCodec codec) {
+        codecs.put(codec.getName(), codec);
+    }
+
+    /**
+     * 获取编解码器
+     *
+     * @param name 编码名称
+     * @throws IllegalArgumentException 未注册该编码
+     */
+    public OssCodec getCodec(String name) {
+        OssCodec codec = codecs.get(name);
+        if (codec == null) {
+            throw new IllegalArgumentException("未注册的压缩编码: " + name);
+        }
+        return codec;
+    }
+}
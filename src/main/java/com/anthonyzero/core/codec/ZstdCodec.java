@@ -0,0 +1,34 @@
+package com.anthonyzero.core.codec;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * zstd 编码，需要引入 {@code com.github.luben:zstd-jni}
+ */
+public class ZstdCodec implements OssCodec {
+
+    public static final String NAME = "zstd";
+
+    private static final int DEFAULT_LEVEL = 3;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        return new ZstdOutputStream(out, DEFAULT_LEVEL);
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        return new ZstdInputStream(new BufferedInputStream(in, 64 * 1024));
+    }
+}
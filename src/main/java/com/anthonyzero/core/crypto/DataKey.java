@@ -0,0 +1,20 @@
+package com.anthonyzero.core.crypto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 对象数据密钥：明文用于加密数据，密文随对象保存在用户元数据中
+ */
+@Getter
+@RequiredArgsConstructor
+public class DataKey {
+
+    private final String keyId;
+
+    private final SecretKey key;
+
+    private final byte[] encryptedKey;
+}
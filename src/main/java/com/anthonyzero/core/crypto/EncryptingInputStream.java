@@ -0,0 +1,85 @@
+package com.anthonyzero.core.crypto;
+
+import com.anthonyzero.core.checksum.OssChecksums;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+/**
+ * 逐帧加密的输入流，内存占用为两个帧缓冲区
+ *
+ * @see AesGcmFrames
+ */
+public class EncryptingInputStream extends InputStream {
+
+    private final InputStream source;
+
+    private final SecretKey key;
+
+    private final byte[] nonce;
+
+    private final byte[] plaintext;
+
+    private final byte[] frame;
+
+    private final byte[] single = new byte[1];
+
+    private int frameLength;
+
+    private int position;
+
+    private long index;
+
+    private boolean finished;
+
+    public EncryptingInputStream(InputStream source, SecretKey key, byte[] nonce, int frameSize) {
+        this.source = source;
+        this.key = key;
+        this.nonce = nonce;
+        this.plaintext = new byte[frameSize];
+        this.frame = new byte[frameSize + AesGcmFrames.TAG_LENGTH];
+    }
+
+    @Override
+    public int read() throws IOException {
+        int n = read(single, 0, 1);
+        return n < 0 ? -1 : single[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (position >= frameLength) {
+            if (finished) {
+                return -1;
+            }
+            nextFrame();
+        }
+        int count = Math.min(len, frameLength - position);
+        System.arraycopy(frame, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+
+    private void nextFrame() throws IOException {
+        int length = OssChecksums.fill(source, plaintext, null);
+        // 最后一帧明文长度小于帧长，恰好整除时追加一个空帧
+        boolean last = length < plaintext.length;
+        try {
+            frameLength = AesGcmFrames.encrypt(key, nonce, index++, last, plaintext, 0, length, frame, 0);
+        } catch (GeneralSecurityException e) {
+            throw new IOException("加密失败", e);
+        }
+        position = 0;
+        finished = last;
+    }
+}
@@ -0,0 +1,77 @@
+package com.anthonyzero.core.crypto;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 本地主密钥：数据密钥用 AES-GCM 加密，密文格式为 {@code iv(12) || ciphertext || tag(16)}
+ */
+public class LocalKeyProvider implements OssKeyProvider {
+
+    private static final int IV_LENGTH = 12;
+
+    private static final int DATA_KEY_LENGTH = 32;
+
+    private final Map<String, SecretKey> masterKeys = new HashMap<>();
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param masterKeys 主密钥标识 -> Base64 编码的 128/192/256 位 AES 密钥
+     */
+    public LocalKeyProvider(Map<String, String> masterKeys) {
+        masterKeys.forEach((keyId, value) -> {
+            byte[] key = Base64.getDecoder().decode(value);
+            if (key.length != 16 && key.length != 24 && key.length != 32) {
+                throw new IllegalArgumentException("主密钥 " + keyId + " 长度必须为 16、24 或 32 字节");
+            }
+            this.masterKeys.put(keyId, new SecretKeySpec(key, "AES"));
+        });
+    }
+
+    @Override
+    public DataKey generateDataKey(String keyId) {
+        byte[] key = new byte[DATA_KEY_LENGTH];
+        random.nextBytes(key);
+        byte[] iv = new byte[IV_LENGTH];
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, getMasterKey(keyId), new GCMParameterSpec(128, iv));
+            byte[] wrapped = cipher.doFinal(key);
+            byte[] encryptedKey = new byte[IV_LENGTH + wrapped.length];
+            System.arraycopy(iv, 0, encryptedKey, 0, IV_LENGTH);
+            System.arraycopy(wrapped, 0, encryptedKey, IV_LENGTH, wrapped.length);
+            return new DataKey(keyId, new SecretKeySpec(key, "AES"), encryptedKey);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("生成数据密钥失败: " + keyId, e);
+        }
+    }
+
+    @Override
+    public SecretKey decryptDataKey(String keyId, byte[] encryptedKey) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, getMasterKey(keyId), new GCMParameterSpec(128, encryptedKey, 0, IV_LENGTH));
+            byte[] key = cipher.doFinal(encryptedKey, IV_LENGTH, encryptedKey.length - IV_LENGTH);
+            return new SecretKeySpec(key, "AES");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("解密数据密钥失败: " + keyId, e);
+        }
+    }
+
+    private SecretKey getMasterKey(String keyId) {
+        SecretKey masterKey = masterKeys.get(keyId);
+        if (masterKey == null) {
+            throw new IllegalArgumentException("未配置主密钥: " + keyId);
+        }
+        return masterKey;
+    }
+}
@@ -0,0 +1,125 @@
+package com.anthonyzero.core.crypto;
+
+import com.amazonaws.services.s3.model.ObjectMetadata;
+
+import javax.crypto.SecretKey;
+import java.io.InputStream;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+/**
+ * 客户端信封加密：每个对象生成独立的数据密钥和 nonce，密钥密文、nonce、帧长保存在用户元数据中
+ *
+ * @see AesGcmFrames
+ */
+public class OssEncryptor {
+
+    public static final String KEY_ID_METADATA = "oss-cse-key-id";
+
+    public static final String KEY_METADATA = "oss-cse-key";
+
+    public static final String NONCE_METADATA = "oss-cse-nonce";
+
+    public static final String FRAME_SIZE_METADATA = "oss-cse-frame-size";
+
+    private final OssKeyProvider keyProvider;
+
+    private final int frameSize;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * @param keyProvider 主密钥提供者
+     * @param frameSize   明文帧长
+     */
+    public OssEncryptor(OssKeyProvider keyProvider, int frameSize) {
+        if (frameSize <= 0) {
+            throw new IllegalArgumentException("frameSize 必须大于 0");
+        }
+        this.keyProvider = keyProvider;
+        this.frameSize = frameSize;
+    }
+
+    public int getFrameSize() {
+        return frameSize;
+    }
+
+    /**
+     * 包装加密流并写入加密元数据
+     *
+     * @param in             明文
+     * @param keyId          主密钥标识
+     * @param objectMetadata 上传的元数据
+     */
+    public InputStream encrypt(InputStream in, String keyId, ObjectMetadata objectMetadata) {
+        DataKey dataKey = keyProvider.generateDataKey(keyId);
+        byte[] nonce = new byte[AesGcmFrames.NONCE_LENGTH];
+        random.nextBytes(nonce);
+        Base64.Encoder encoder = Base64.getEncoder();
+        objectMetadata.addUserMetadata(KEY_ID_METADATA, keyId);
+        objectMetadata.addUserMetadata(KEY_METADATA, encoder.encodeToString(dataKey.getEncryptedKey()));
+        objectMetadata.addUserMetadata(NONCE_METADATA, encoder.encodeToString(nonce));
+        objectMetadata.addUserMetadata(FRAME_SIZE_METADATA, String.valueOf(frameSize));
+        return new EncryptingInputStream(in, dataKey.getKey(), nonce, frameSize);
+    }
+
+    public boolean isEncrypted(ObjectMetadata objectMetadata) {
+        return objectMetadata.getUserMetaDataOf(KEY_METADATA) != null;
+    }
+
+    /**
+     * 对象实际使用的帧长
+     */
+    public int getFrameSize(ObjectMetadata objectMetadata) {
+        return Integer.parseInt(objectMetadata.getUserMetaDataOf(FRAME_SIZE_METADATA));
+    }
+
+    /**
+     * 解密完整下载的对象
+     *
+     * @param in             密文
+     * @param objectMetadata 下载得到的元数据
+     */
+    public InputStream decrypt(InputStream in, ObjectMetadata objectMetadata) {
+        int objectFrameSize = getFrameSize(objectMetadata);
+        long lastFrame = AesGcmFrames.lastFrameIndex(objectMetadata.getContentLength(), objectFrameSize);
+        return new DecryptingInputStream(in, getDataKey(objectMetadata), getNonce(objectMetadata), objectFrameSize,
+                0, lastFrame, lastFrame, 0, -1);
+    }
+
+    /**
+     * 明文区间 [start, end] 对应的帧对齐密文区间
+     *
+     * @param frameSize 明文帧长
+     */
+    public static long[] ciphertextRange(long start, long end, int frameSize) {
+        long frame = frameSize + AesGcmFrames.TAG_LENGTH;
+        return new long[]{start / frameSize * frame, (end / frameSize + 1) * frame - 1};
+    }
+
+    /**
+     * 解密 Range 下载的密文，密文必须是 {@link #ciphertextRange} 返回的区间
+     *
+     * @param in             密文
+     * @param objectMetadata Range 下载得到的元数据
+     * @param start          明文起始位置
+     * @param end            明文结束位置（包含）
+     */
+    public InputStream decryptRange(InputStream in, ObjectMetadata objectMetadata, long start, long end) {
+        int objectFrameSize = getFrameSize(objectMetadata);
+        long lastFrame = AesGcmFrames.lastFrameIndex(objectMetadata.getInstanceLength(), objectFrameSize);
+        long firstFrame = start / objectFrameSize;
+        long endFrame = Math.min(end / objectFrameSize, lastFrame);
+        return new DecryptingInputStream(in, getDataKey(objectMetadata), getNonce(objectMetadata), objectFrameSize,
+                firstFrame, endFrame, lastFrame, start - firstFrame * objectFrameSize, end - start + 1);
+    }
+
+    private SecretKey getDataKey(ObjectMetadata objectMetadata) {
+        return keyProvider.decryptDataKey(objectMetadata.getUserMetaDataOf(KEY_ID_METADATA),
+                Base64.getDecoder().decode(objectMetadata.getUserMetaDataOf(KEY_METADATA)));
+    }
+
+    private static byte[] getNonce(ObjectMetadata objectMetadata) {
+        return Base64.getDecoder().decode(objectMetadata.getUserMetaDataOf(NONCE_METADATA));
+    }
+}
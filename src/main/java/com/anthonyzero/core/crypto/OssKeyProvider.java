@@ -0,0 +1,25 @@
+package com.anthonyzero.core.crypto;
+
+import javax.crypto.SecretKey;
+
+/**
+ * 信封加密的主密钥提供者，负责生成对象数据密钥并用主密钥加密（wrap），可对接 KMS 等外部服务
+ */
+public interface OssKeyProvider {
+
+    /**
+     * 生成新的 256 位数据密钥
+     *
+     * @param keyId 主密钥标识
+     * @return 明文数据密钥及其密文
+     */
+    DataKey generateDataKey(String keyId);
+
+    /**
+     * 解密数据密钥
+     *
+     * @param keyId        主密钥标识
+     * @param encryptedKey 数据密钥密文
+     */
+    SecretKey decryptDataKey(String keyId, byte[] encryptedKey);
+}
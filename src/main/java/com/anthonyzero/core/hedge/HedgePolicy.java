@@ -0,0 +1,91 @@
+package com.anthonyzero.core.hedge;
+
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲延迟与预算
+ * <p>
+ * 延迟取最近 {@link #WINDOW} 次请求耗时的指定分位数，每 {@link #REFRESH} 个样本重新计算一次，并限制在
+ * [minDelay, maxDelay] 内，样本不足 {@link #MIN_SAMPLES} 时使用 initialDelay。预算为令牌桶，每个读取请求存入
+ * budgetPercent / 100 个令牌，每次对冲消耗一个，桶容量 {@link #MAX_TOKENS} 限制突发。
+ */
+class HedgePolicy {
+
+    static final int WINDOW = 1000;
+
+    static final int REFRESH = 100;
+
+    static final int MIN_SAMPLES = 20;
+
+    static final double MAX_TOKENS = 10;
+
+    private final OssProperties.Hedge properties;
+
+    private final HedgeStats stats;
+
+    private final long[] samples = new long[WINDOW];
+
+    private int count;
+
+    private int sinceRefresh;
+
+    private double tokens;
+
+    private volatile long delayMillis;
+
+    HedgePolicy(OssProperties.Hedge properties, HedgeStats stats) {
+        this.properties = properties;
+        this.stats = stats;
+        this.delayMillis = clamp(properties.getInitialDelay());
+        stats.setDelayMillis(delayMillis);
+    }
+
+    long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * 记录一次请求耗时；被取消的请求记录取消时已经过的时间，作为其耗时的下限
+     */
+    void recordLatency(long elapsedNanos) {
+        long[] snapshot = null;
+        int size = 0;
+        synchronized (this) {
+            samples[count++ % WINDOW] = elapsedNanos;
+            if (++sinceRefresh >= REFRESH || count == MIN_SAMPLES) {
+                sinceRefresh = 0;
+                size = Math.min(count, WINDOW);
+                snapshot = Arrays.copyOf(samples, size);
+            }
+            if (count >= 2 * WINDOW) {
+                count -= WINDOW;
+            }
+        }
+        if (snapshot != null) {
+            Arrays.sort(snapshot);
+            int index = (int) Math.ceil(properties.getPercentile() * size) - 1;
+            long percentile = snapshot[Math.max(0, Math.min(size - 1, index))];
+            delayMillis = clamp(TimeUnit.NANOSECONDS.toMillis(percentile));
+            stats.setDelayMillis(delayMillis);
+        }
+    }
+
+    synchronized void deposit() {
+        tokens = Math.min(MAX_TOKENS, tokens + properties.getBudgetPercent() / 100);
+    }
+
+    synchronized boolean tryAcquire() {
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    private long clamp(long millis) {
+        return Math.max(properties.getMinDelay(), Math.min(properties.getMaxDelay(), millis));
+    }
+}
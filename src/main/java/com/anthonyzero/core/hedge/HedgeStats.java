@@ -0,0 +1,88 @@
+package com.anthonyzero.core.hedge;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对冲请求统计，计数只增不减
+ */
+public class HedgeStats {
+
+    private final LongAdder requests = new LongAdder();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder wins = new LongAdder();
+
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    private volatile long delayMillis;
+
+    /**
+     * 可对冲的读取请求数
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * 发出的对冲请求数
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * 对冲请求先于首次请求返回的次数
+     */
+    public long getWins() {
+        return wins.sum();
+    }
+
+    /**
+     * 达到对冲延迟但因预算不足未发出对冲请求的次数
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+
+    /**
+     * 当前的对冲延迟，单位毫秒
+     */
+    public long getDelayMillis() {
+        return delayMillis;
+    }
+
+    /**
+     * 对冲请求占读取请求的比例
+     */
+    public double getHedgeRate() {
+        long total = getRequests();
+        return total == 0 ? 0 : (double) getHedges() / total;
+    }
+
+    void recordRequest() {
+        requests.increment();
+    }
+
+    void recordHedge() {
+        hedges.increment();
+    }
+
+    void recordWin() {
+        wins.increment();
+    }
+
+    void recordBudgetExhausted() {
+        budgetExhausted.increment();
+    }
+
+    void setDelayMillis(long delayMillis) {
+        this.delayMillis = delayMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("requests=%d, hedges=%d, wins=%d, budgetExhausted=%d, delay=%dms", getRequests(),
+                getHedges(), getWins(), getBudgetExhausted(), delayMillis);
+    }
+}
@@ -0,0 +1,351 @@
+package com.anthonyzero.core.hedge;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.DelegatingOssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 对幂等读取（GET、HEAD、区间 GET）发出对冲请求的 {@link OssClient} 装饰器
+ * <p>
+ * 首次请求超过对冲延迟仍未返回时再发出一次相同的请求，先返回的结果生效，另一个请求被取消，
+ * 取消后仍然返回的对象会被中止连接。对冲延迟与预算见 {@link HedgePolicy}，其余请求直接委托。
+ */
+public class HedgingOssClient implements DelegatingOssClient {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "oss-hedge-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final OssClient delegate;
+
+    private final HedgePolicy policy;
+
+    /**
+     * 阻塞调用在该线程池上执行，调用线程只等待先返回的结果
+     */
+    private final ExecutorService executor;
+
+    @Getter
+    private final HedgeStats stats = new HedgeStats();
+
+    public HedgingOssClient(OssClient delegate, OssProperties.Hedge properties) {
+        this.delegate = delegate;
+        this.policy = new HedgePolicy(properties, stats);
+        int threads = Math.max(1, properties.getThreads());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "oss-hedge-" + THREAD_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 没有读取请求时不常驻线程
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        return delegate.doesBucketExist(bucketName);
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return delegate.createBucket(bucketName);
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        delegate.setBucketPolicy(bucketName, policyText);
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        return delegate.getBucketPolicy(bucketName);
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        return delegate.listBuckets();
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        delegate.deleteBucket(bucketName);
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return delegate.listObjects(bucketName, prefix);
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return delegate.listNextBatchOfObjects(previousObjectListing);
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return delegate.getUrl(bucketName, key);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return delegate.generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return delegate.putObject(request);
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        return join(hedge(() -> submit(() -> delegate.getObject(request), HedgingOssClient::discard),
+                HedgingOssClient::discard));
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return join(hedge(() -> submit(() -> delegate.getObjectMetadata(bucketName, key), null), null));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        delegate.deleteObject(bucketName, key);
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return delegate.initiateMultipartUpload(request);
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return delegate.uploadPart(request);
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return delegate.completeMultipartUpload(request);
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        delegate.abortMultipartUpload(request);
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        return delegate.putObjectAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        return delegate.initiateMultipartUploadAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        return delegate.uploadPartAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        return hedge(() -> delegate.getObjectAsync(request), HedgingOssClient::discard);
+    }
+
+    /**
+     * 按需读取的下载不发出对冲请求
+     */
+    @Override
+    public OssClient getDelegate() {
+        return delegate;
+    }
+
+    /**
+     * 关闭对冲线程池与被装饰的客户端
+     */
+    @Override
+    public void close() {
+        shutdown();
+        delegate.close();
+    }
+
+    /**
+     * 只关闭对冲线程池，被装饰的客户端由其所有者关闭；之后的 GET、HEAD 抛出 {@link RejectedExecutionException}
+     */
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 发出首次请求，到达对冲延迟且预算充足时发出对冲请求；任一请求成功即完成，全部失败时以最后一个错误失败
+     *
+     * @param attempt 发出一次请求，返回的 future 被取消时应当中止请求
+     * @param discard 处理已经失去意义的结果，可以为 null
+     */
+    private <T> CompletableFuture<T> hedge(Supplier<CompletableFuture<T>> attempt, Consumer<T> discard) {
+        stats.recordRequest();
+        policy.deposit();
+        Hedged<T> hedged = new Hedged<>(attempt, discard);
+        hedged.launch(false);
+        hedged.schedule(policy.getDelayMillis());
+        return hedged.result;
+    }
+
+    /**
+     * 一次读取及其对冲请求
+     */
+    private final class Hedged<T> {
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private final Supplier<CompletableFuture<T>> attempt;
+
+        private final Consumer<T> discard;
+
+        private final List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+
+        /**
+         * 先返回的请求在完成 result 之前计数，调用方拿到结果时统计已经更新
+         */
+        private final AtomicBoolean settled = new AtomicBoolean();
+
+        private int failed;
+
+        private Hedged(Supplier<CompletableFuture<T>> attempt, Consumer<T> discard) {
+            this.attempt = attempt;
+            this.discard = discard;
+        }
+
+        private void schedule(long delayMillis) {
+            if (result.isDone()) {
+                return;
+            }
+            ScheduledFuture<?> timer = TIMER.schedule(this::fire, delayMillis, TimeUnit.MILLISECONDS);
+            result.whenComplete((value, e) -> {
+                timer.cancel(false);
+                attempts.forEach(future -> future.cancel(true));
+            });
+        }
+
+        private void fire() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!policy.tryAcquire()) {
+                stats.recordBudgetExhausted();
+                return;
+            }
+            stats.recordHedge();
+            launch(true);
+        }
+
+        private void launch(boolean hedge) {
+            long start = System.nanoTime();
+            CompletableFuture<T> future;
+            try {
+                future = attempt.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            synchronized (this) {
+                attempts.add(future);
+            }
+            future.whenComplete((value, e) -> {
+                if (e == null) {
+                    policy.recordLatency(System.nanoTime() - start);
+                    boolean first = settled.compareAndSet(false, true);
+                    if (first && hedge) {
+                        stats.recordWin();
+                    }
+                    if ((!first || !result.complete(value)) && value != null && discard != null) {
+                        discard.accept(value);
+                    }
+                } else if (e instanceof CancellationException) {
+                    policy.recordLatency(System.nanoTime() - start);
+                } else {
+                    synchronized (this) {
+                        if (++failed == attempts.size()) {
+                            result.completeExceptionally(e);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * 在线程池上执行阻塞调用，future 被取消时中断执行线程，取消后返回的结果交给 discard
+     */
+    private <T> CompletableFuture<T> submit(Supplier<T> call, Consumer<T> discard) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> task = executor.submit(() -> {
+            try {
+                T value = call.get();
+                if (!future.complete(value) && value != null && discard != null) {
+                    discard.accept(value);
+                }
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        });
+        future.whenComplete((value, e) -> {
+            if (future.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new AbortedException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new SdkClientException(cause);
+        }
+    }
+
+    private static void discard(S3Object s3Object) {
+        s3Object.getObjectContent().abort();
+        try {
+            s3Object.close();
+        } catch (IOException ignored) {
+            // 连接已中止
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.anthonyzero.core.hedge;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 将各客户端的对冲统计注册为 Micrometer 指标，按 client 标签区分
+ */
+public class OssHedgeMeterBinder implements MeterBinder {
+
+    private final Map<String, HedgeStats> stats = new LinkedHashMap<>();
+
+    public OssHedgeMeterBinder add(String client, HedgeStats hedgeStats) {
+        stats.put(client, hedgeStats);
+        return this;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        stats.forEach((client, hedgeStats) -> {
+            Tags tags = Tags.of(Tag.of("client", client));
+            FunctionCounter.builder("oss.hedge.requests", hedgeStats, HedgeStats::getRequests).tags(tags)
+                    .description("可对冲的读取请求数").register(registry);
+            FunctionCounter.builder("oss.hedge.hedges", hedgeStats, HedgeStats::getHedges).tags(tags)
+                    .description("发出的对冲请求数").register(registry);
+            FunctionCounter.builder("oss.hedge.wins", hedgeStats, HedgeStats::getWins).tags(tags)
+                    .description("对冲请求先返回的次数").register(registry);
+            FunctionCounter.builder("oss.hedge.budget.exhausted", hedgeStats, HedgeStats::getBudgetExhausted)
+                    .tags(tags).description("预算不足未发出的对冲请求数").register(registry);
+            Gauge.builder("oss.hedge.rate", hedgeStats, HedgeStats::getHedgeRate).tags(tags)
+                    .description("对冲请求占读取请求的比例").register(registry);
+            Gauge.builder("oss.hedge.delay", hedgeStats, HedgeStats::getDelayMillis).tags(tags)
+                    .baseUnit("milliseconds").description("当前对冲延迟").register(registry);
+        });
+    }
+}
@@ -0,0 +1,727 @@
+package com.anthonyzero.core.pack;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.checksum.OssChecksumException;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * 将大量小对象打包存放在大对象中，减少请求次数与对象数量
+ * <p>
+ * 写入追加到内存中的 pack，写满 {@link OssProperties.Pack#getPackSize()}、调用 {@link #flush()} 或定时上传时
+ * 封存本批写入，以分片上传完成 pack，再写入记录本批 key → (pack, 偏移, 长度) 的索引段。封存后的批次不再追加，
+ * 之后的写入进入新的批次；写入时只异步发起分片上传，不在锁内等待请求，完成 pack 与写入索引段在锁外进行，
+ * 期间读写不受影响。索引段常驻内存，按 key 排序，
+ * 读取只需一次 Range GET；尚未写入索引段的内容直接从内存读取。
+ * <p>
+ * 删除与覆盖只写入新的索引条目，后台压缩合并全部索引段、丢弃墓碑，重写失效字节过多的 pack 并删除不再引用的对象。
+ * pack 不经过压缩、加密与完整性校验，每个条目单独记录 CRC32。同一前缀只允许一个实例写入，
+ * 其他实例可以只读并调用 {@link #reload()} 刷新索引。
+ */
+public class OssPackStore implements AutoCloseable {
+
+    private static final String INDEX_DIR = "index/";
+
+    private static final String DATA_DIR = "data/";
+
+    private static final String INDEX_SUFFIX = ".idx";
+
+    private static final String PACK_SUFFIX = ".pack";
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private static final int MAX_RELOAD_ATTEMPTS = 3;
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private final OssProperties.Pack properties;
+
+    private final OssClient ossClient;
+
+    private final String bucketName;
+
+    private final String prefix;
+
+    private final int partSize;
+
+    private final Object lock = new Object();
+
+    /**
+     * 按封存顺序上传批次，保证索引段的顺序
+     */
+    private final Object sealLock = new Object();
+
+    private final ReentrantLock compactLock = new ReentrantLock();
+
+    /**
+     * 由新到旧排列的索引段
+     */
+    private volatile List<PackIndexSegment> segments = Collections.emptyList();
+
+    /**
+     * 正在写入的批次
+     */
+    private Batch current;
+
+    /**
+     * 已封存、索引段尚未写入的批次，由旧到新排列
+     */
+    private final Deque<Batch> sealed = new ArrayDeque<>();
+
+    private long lastMillis;
+
+    private final ScheduledExecutorService scheduler;
+
+    public OssPackStore(OssProperties properties, OssTemplate ossTemplate) {
+        this.properties = properties.getPack();
+        this.ossClient = ossTemplate.getOssClient();
+        this.bucketName = StringUtils.hasText(this.properties.getBucketName()) ? this.properties.getBucketName()
+                : ossTemplate.getBucketName();
+        String prefix = this.properties.getPrefix() == null ? "" : this.properties.getPrefix();
+        this.prefix = prefix.isEmpty() || prefix.endsWith("/") ? prefix : prefix + "/";
+        this.partSize = properties.getMultipart().getPartSize();
+        reload();
+        if (this.properties.getFlushInterval() > 0 || this.properties.getCompactInterval() > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "oss-pack-" + THREAD_NUMBER.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            if (this.properties.getFlushInterval() > 0) {
+                long interval = this.properties.getFlushInterval();
+                scheduler.scheduleWithFixedDelay(() -> runQuietly(this::flush), interval, interval,
+                        TimeUnit.MILLISECONDS);
+            }
+            if (this.properties.getCompactInterval() > 0) {
+                long interval = this.properties.getCompactInterval();
+                scheduler.scheduleWithFixedDelay(() -> runQuietly(this::compact), interval, interval,
+                        TimeUnit.MILLISECONDS);
+            }
+        } else {
+            scheduler = null;
+        }
+    }
+
+    /**
+     * 写入对象，上传完成前即可读取，{@link #flush()} 返回后持久化
+     *
+     * @param key  对象名称
+     * @param data 对象内容，不超过 {@link OssProperties.Pack#getMaxObjectSize()}
+     */
+    public void put(String key, byte[] data) {
+        if (data.length > properties.getMaxObjectSize()) {
+            throw new IllegalArgumentException("对象 " + key + " 超过可打包的大小 " + properties.getMaxObjectSize());
+        }
+        byte[] keyBytes = toBytes(key);
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        boolean full;
+        synchronized (lock) {
+            Batch batch = current();
+            if (batch.pack == null) {
+                batch.pack = new PackUpload(ossClient, bucketName, packKey(batch.id), partSize);
+            }
+            long offset = batch.pack.append(data);
+            batch.pending.put(key, new PendingEntry(keyBytes, batch.pack, offset, data.length,
+                    (int) crc.getValue()));
+            full = batch.pack.size() >= properties.getPackSize();
+            if (full) {
+                seal();
+            }
+        }
+        if (full) {
+            writeSealed();
+        }
+    }
+
+    /**
+     * 读取对象，只发起一次 Range GET
+     *
+     * @param key 对象名称
+     * @return 对象内容，不存在时返回 null
+     */
+    public byte[] get(String key) {
+        synchronized (lock) {
+            PendingEntry entry = findPending(key);
+            if (entry != null) {
+                return entry.pack == null ? null : entry.pack.read(entry.offset, entry.length);
+            }
+        }
+        byte[] keyBytes = toBytes(key);
+        for (int attempt = 0; ; attempt++) {
+            List<PackIndexSegment> snapshot = segments;
+            Location location = locate(snapshot, keyBytes);
+            if (location == null) {
+                return null;
+            }
+            try {
+                return read(key, location);
+            } catch (AmazonS3Exception e) {
+                if (e.getStatusCode() != HTTP_NOT_FOUND || attempt > 0) {
+                    throw e;
+                }
+                // pack 已被压缩重写，本实例压缩时索引已切换，否则重新加载索引
+                if (snapshot == segments) {
+                    reload();
+                }
+            }
+        }
+    }
+
+    /**
+     * 判断对象是否存在，不发起请求
+     */
+    public boolean exists(String key) {
+        synchronized (lock) {
+            PendingEntry entry = findPending(key);
+            if (entry != null) {
+                return entry.pack != null;
+            }
+        }
+        return locate(segments, toBytes(key)) != null;
+    }
+
+    /**
+     * 删除对象，占用的空间在压缩时回收
+     *
+     * @return 对象是否存在
+     */
+    public boolean delete(String key) {
+        byte[] keyBytes = toBytes(key);
+        synchronized (lock) {
+            PendingEntry entry = findPending(key);
+            boolean exists = entry != null ? entry.pack != null : locate(segments, keyBytes) != null;
+            if (!exists) {
+                return false;
+            }
+            current().pending.put(key, new PendingEntry(keyBytes, null, 0, 0, 0));
+            return true;
+        }
+    }
+
+    /**
+     * 上传未写满的 pack 与本批索引，失败时内容保留，可以重试
+     */
+    public void flush() {
+        synchronized (lock) {
+            seal();
+        }
+        writeSealed();
+    }
+
+    /**
+     * 从对象存储重新加载全部索引段
+     * <p>
+     * 列举之后索引段可能被写入实例的合并或压缩删除，此时取代它的索引段已经写入，重新列举后加载
+     */
+    public void reload() {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                load();
+                return;
+            } catch (AmazonS3Exception e) {
+                if (e.getStatusCode() != HTTP_NOT_FOUND || attempt >= MAX_RELOAD_ATTEMPTS) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private void load() {
+        List<PackIndexSegment> loaded = new ArrayList<>();
+        Set<String> superseded = new HashSet<>();
+        for (S3ObjectSummary summary : listAll(prefix + INDEX_DIR)) {
+            String name = segmentName(summary.getKey());
+            if (name == null) {
+                continue;
+            }
+            PackIndexSegment segment = readSegment(name);
+            superseded.addAll(segment.getSuperseded());
+            loaded.add(segment);
+        }
+        loaded.removeIf(segment -> superseded.contains(segment.getName()));
+        loaded.sort(Comparator.comparing(PackIndexSegment::getName).reversed());
+        synchronized (lock) {
+            segments = Collections.unmodifiableList(loaded);
+            if (!loaded.isEmpty()) {
+                lastMillis = Math.max(lastMillis, Long.parseLong(loaded.get(0).getName().substring(0, 13)));
+            }
+        }
+    }
+
+    /**
+     * 合并全部索引段并丢弃墓碑，重写失效字节占比达到 {@link OssProperties.Pack#getCompactThreshold()} 的 pack，
+     * 最后删除不再引用的索引段与 pack。压缩期间可以继续读写
+     */
+    public void compact() {
+        compactLock.lock();
+        try {
+            List<PackIndexSegment> snapshot = segments;
+            if (!snapshot.isEmpty()) {
+                compactSegments(snapshot);
+            }
+        } finally {
+            compactLock.unlock();
+        }
+    }
+
+    /**
+     * @return 当前内存中的索引段数量
+     */
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * 封存正在写入的批次，需持有 {@link #lock}
+     */
+    private void seal() {
+        if (current != null) {
+            sealed.addLast(current);
+            current = null;
+        }
+    }
+
+    /**
+     * 按封存顺序完成 pack 并写入索引段，失败时批次保留，下次 flush 重试
+     */
+    private void writeSealed() {
+        synchronized (sealLock) {
+            while (true) {
+                Batch batch;
+                synchronized (lock) {
+                    batch = sealed.peekFirst();
+                }
+                if (batch == null) {
+                    break;
+                }
+                PackIndexSegment segment = batch.toSegment();
+                writeSegment(segment);
+                synchronized (lock) {
+                    List<PackIndexSegment> updated = new ArrayList<>(segments.size() + 1);
+                    updated.add(segment);
+                    updated.addAll(segments);
+                    segments = Collections.unmodifiableList(updated);
+                    sealed.pollFirst();
+                }
+            }
+            // 压缩期间不合并，压缩完成后只剩一个索引段
+            if (segments.size() > properties.getMaxSegments() && compactLock.tryLock()) {
+                try {
+                    mergeNewest();
+                } finally {
+                    compactLock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * 合并较新的索引段，使索引段数量降到 maxSegments 的一半；较旧的索引段仍然存在，墓碑需要保留。
+     * 需持有 {@link #sealLock} 与 {@link #compactLock}，期间索引段列表不会变化
+     */
+    private void mergeNewest() {
+        List<PackIndexSegment> current = segments;
+        int count = current.size() - Math.max(1, properties.getMaxSegments() / 2) + 1;
+        List<PackIndexSegment> merging = current.subList(0, count);
+        boolean all = count == current.size();
+        List<String> names = new ArrayList<>();
+        merging.forEach(segment -> names.add(segment.getName()));
+        PackIndexSegment.Builder builder = new PackIndexSegment.Builder(merging.get(0).getName() + "-m", names);
+        PackIndexSegment.merge(merging, all, (segment, index) -> builder.add(segment, index,
+                segment.isTombstone(index) ? PackIndexSegment.TOMBSTONE
+                        : builder.addPack(segment.pack(segment.packId(index)), segment.packSize(segment.packId(index))),
+                segment.offset(index)));
+        PackIndexSegment merged = builder.build();
+        writeSegment(merged);
+        List<PackIndexSegment> updated = new ArrayList<>();
+        updated.add(merged);
+        updated.addAll(current.subList(count, current.size()));
+        synchronized (lock) {
+            segments = Collections.unmodifiableList(updated);
+        }
+        for (String name : names) {
+            deleteQuietly(segmentKey(name));
+        }
+    }
+
+    private void compactSegments(List<PackIndexSegment> snapshot) {
+        // 统计每个 pack 的有效字节
+        Map<String, long[]> packs = new HashMap<>();
+        for (PackIndexSegment segment : snapshot) {
+            for (int i = 0; i < segment.packCount(); i++) {
+                packs.putIfAbsent(segment.pack(i), new long[]{segment.packSize(i), 0});
+            }
+        }
+        PackIndexSegment.merge(snapshot, true, (segment, index) ->
+                packs.get(segment.pack(segment.packId(index)))[1] += segment.length(index));
+        Set<String> rewrite = new HashSet<>();
+        packs.forEach((pack, sizes) -> {
+            if (sizes[1] > 0 && sizes[0] - sizes[1] >= sizes[0] * properties.getCompactThreshold()) {
+                rewrite.add(pack);
+            }
+        });
+
+        // 按 pack 内偏移顺序复制有效条目
+        Map<String, List<long[]>> live = new TreeMap<>();
+        PackIndexSegment.merge(snapshot, true, (segment, index) -> {
+            String pack = segment.pack(segment.packId(index));
+            if (rewrite.contains(pack)) {
+                live.computeIfAbsent(pack, k -> new ArrayList<>())
+                        .add(new long[]{segment.offset(index), segment.length(index)});
+            }
+        });
+        PackIndexSegment newest = snapshot.get(0);
+        if (snapshot.size() == 1 && rewrite.isEmpty() && !hasTombstones(newest)) {
+            // 只有一个没有墓碑的索引段，不需要合并，只清理不再引用的对象
+            sweep(newest.getName());
+            return;
+        }
+        String name = newest.getName() + "-c";
+        Map<String, Location> moved = new HashMap<>();
+        Map<String, Long> packSizes = new HashMap<>();
+        PackUpload upload = null;
+        String target = null;
+        for (Map.Entry<String, List<long[]>> entry : live.entrySet()) {
+            byte[] content = readObject(packKey(entry.getKey()));
+            entry.getValue().sort(Comparator.comparingLong(location -> location[0]));
+            for (long[] location : entry.getValue()) {
+                if (upload == null) {
+                    target = name + "-" + packSizes.size();
+                    upload = new PackUpload(ossClient, bucketName, packKey(target), partSize);
+                    packSizes.put(target, 0L);
+                }
+                long offset = upload.append(Arrays.copyOfRange(content, (int) location[0],
+                        (int) (location[0] + location[1])));
+                moved.put(entry.getKey() + ":" + location[0], new Location(target, offset, 0, 0));
+                if (upload.size() >= properties.getPackSize()) {
+                    upload.complete();
+                    packSizes.put(target, (long) upload.size());
+                    upload = null;
+                }
+            }
+        }
+        if (upload != null) {
+            upload.complete();
+            packSizes.put(target, (long) upload.size());
+        }
+
+        List<String> names = new ArrayList<>();
+        snapshot.forEach(segment -> names.add(segment.getName()));
+        PackIndexSegment.Builder builder = new PackIndexSegment.Builder(name, names);
+        PackIndexSegment.merge(snapshot, true, (segment, index) -> {
+            String pack = segment.pack(segment.packId(index));
+            Location location = rewrite.contains(pack) ? moved.get(pack + ":" + segment.offset(index)) : null;
+            if (location == null) {
+                builder.add(segment, index, builder.addPack(pack, segment.packSize(segment.packId(index))),
+                        segment.offset(index));
+            } else {
+                builder.add(segment, index, builder.addPack(location.pack, packSizes.get(location.pack)),
+                        location.offset);
+            }
+        });
+        PackIndexSegment merged = builder.build();
+        writeSegment(merged);
+
+        synchronized (lock) {
+            Set<String> compacted = new HashSet<>(names);
+            List<PackIndexSegment> updated = new ArrayList<>();
+            boolean reloaded = false;
+            for (PackIndexSegment segment : segments) {
+                if (!compacted.contains(segment.getName())) {
+                    updated.add(segment);
+                    reloaded |= segment.getName().equals(name);
+                }
+            }
+            if (!reloaded) {
+                updated.add(merged);
+            }
+            segments = Collections.unmodifiableList(updated);
+        }
+        sweep(name);
+    }
+
+    /**
+     * 删除名称早于 {@code bound} 且不再被索引引用的索引段与 pack，之后写入的 pack 可能还没有写入索引段
+     */
+    private void sweep(String bound) {
+        Set<String> referencedPacks = new HashSet<>();
+        Set<String> referencedSegments = new HashSet<>();
+        for (PackIndexSegment segment : segments) {
+            referencedSegments.add(segment.getName());
+            for (int i = 0; i < segment.packCount(); i++) {
+                referencedPacks.add(segment.pack(i));
+            }
+        }
+        for (S3ObjectSummary summary : listAll(prefix + INDEX_DIR)) {
+            String segment = segmentName(summary.getKey());
+            if (segment != null && segment.compareTo(bound) < 0 && !referencedSegments.contains(segment)) {
+                deleteQuietly(summary.getKey());
+            }
+        }
+        for (S3ObjectSummary summary : listAll(prefix + DATA_DIR)) {
+            String pack = packName(summary.getKey());
+            if (pack != null && pack.compareTo(bound) < 0 && !referencedPacks.contains(pack)) {
+                deleteQuietly(summary.getKey());
+            }
+        }
+    }
+
+    /**
+     * 查找尚未写入索引段的条目，需持有 {@link #lock}
+     */
+    private PendingEntry findPending(String key) {
+        PendingEntry entry = current == null ? null : current.pending.get(key);
+        for (Iterator<Batch> iterator = sealed.descendingIterator(); entry == null && iterator.hasNext(); ) {
+            entry = iterator.next().pending.get(key);
+        }
+        return entry;
+    }
+
+    /**
+     * 正在写入的批次，不存在时创建，需持有 {@link #lock}
+     */
+    private Batch current() {
+        if (current == null) {
+            current = new Batch(newId());
+        }
+        return current;
+    }
+
+    private static boolean hasTombstones(PackIndexSegment segment) {
+        for (int i = 0; i < segment.size(); i++) {
+            if (segment.isTombstone(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Location locate(List<PackIndexSegment> segments, byte[] key) {
+        for (PackIndexSegment segment : segments) {
+            int index = segment.find(key);
+            if (index >= 0) {
+                if (segment.isTombstone(index)) {
+                    return null;
+                }
+                return new Location(segment.pack(segment.packId(index)), segment.offset(index), segment.length(index),
+                        segment.crc(index));
+            }
+        }
+        return null;
+    }
+
+    private byte[] read(String key, Location location) {
+        byte[] data = new byte[location.length];
+        if (location.length > 0) {
+            GetObjectRequest request = new GetObjectRequest(bucketName, packKey(location.pack))
+                    .withRange(location.offset, location.offset + location.length - 1);
+            try (S3Object s3Object = ossClient.getObject(request);
+                 DataInputStream in = new DataInputStream(s3Object.getObjectContent())) {
+                in.readFully(data);
+            } catch (IOException e) {
+                throw new SdkClientException("读取 " + key + " 失败", e);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        if ((int) crc.getValue() != location.crc) {
+            throw new OssChecksumException("对象 " + key + " 的 CRC32 校验失败");
+        }
+        return data;
+    }
+
+    private byte[] readObject(String key) {
+        try (S3Object s3Object = ossClient.getObject(new GetObjectRequest(bucketName, key));
+             InputStream in = s3Object.getObjectContent()) {
+            return StreamUtils.copyToByteArray(in);
+        } catch (IOException e) {
+            throw new SdkClientException("读取 " + key + " 失败", e);
+        }
+    }
+
+    private PackIndexSegment readSegment(String name) {
+        try (S3Object s3Object = ossClient.getObject(new GetObjectRequest(bucketName, segmentKey(name)));
+             InputStream in = s3Object.getObjectContent()) {
+            return PackIndexSegment.read(name, in);
+        } catch (IOException e) {
+            throw new SdkClientException("读取索引段 " + name + " 失败", e);
+        }
+    }
+
+    private void writeSegment(PackIndexSegment segment) {
+        byte[] data = segment.toByteArray();
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        objectMetadata.setContentLength(data.length);
+        objectMetadata.setContentType("application/octet-stream");
+        ossClient.putObject(new PutObjectRequest(bucketName, segmentKey(segment.getName()),
+                new ByteArrayInputStream(data), objectMetadata));
+    }
+
+    private List<S3ObjectSummary> listAll(String keyPrefix) {
+        List<S3ObjectSummary> summaries = new ArrayList<>();
+        ObjectListing listing = ossClient.listObjects(bucketName, keyPrefix);
+        summaries.addAll(listing.getObjectSummaries());
+        while (listing.isTruncated()) {
+            listing = ossClient.listNextBatchOfObjects(listing);
+            summaries.addAll(listing.getObjectSummaries());
+        }
+        return summaries;
+    }
+
+    private void deleteQuietly(String key) {
+        try {
+            ossClient.deleteObject(bucketName, key);
+        } catch (SdkClientException ignored) {
+            // 下次压缩时重试
+        }
+    }
+
+    /**
+     * 毫秒时间戳加随机数，按字符串排序即为写入顺序
+     */
+    private String newId() {
+        lastMillis = Math.max(System.currentTimeMillis(), lastMillis + 1);
+        return String.format("%013d-%08x", lastMillis, ThreadLocalRandom.current().nextInt());
+    }
+
+    private String packKey(String pack) {
+        return prefix + DATA_DIR + pack + PACK_SUFFIX;
+    }
+
+    private String segmentKey(String name) {
+        return prefix + INDEX_DIR + name + INDEX_SUFFIX;
+    }
+
+    private String segmentName(String key) {
+        return key.endsWith(INDEX_SUFFIX) ? key.substring(prefix.length() + INDEX_DIR.length(),
+                key.length() - INDEX_SUFFIX.length()) : null;
+    }
+
+    private String packName(String key) {
+        return key.endsWith(PACK_SUFFIX) ? key.substring(prefix.length() + DATA_DIR.length(),
+                key.length() - PACK_SUFFIX.length()) : null;
+    }
+
+    private static byte[] toBytes(String key) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("key 超过 65535 字节");
+        }
+        return bytes;
+    }
+
+    private static void runQuietly(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException ignored) {
+            // 内容保留在内存中，下次定时任务重试
+        }
+    }
+
+    /**
+     * 一批写入，对应一个 pack 与一个索引段
+     */
+    private static final class Batch {
+
+        private final String id;
+
+        private final Map<String, PendingEntry> pending = new HashMap<>();
+
+        /**
+         * 只有删除时为 null
+         */
+        private PackUpload pack;
+
+        private Batch(String id) {
+            this.id = id;
+        }
+
+        /**
+         * 完成 pack 并生成索引段，pack 已完成时不再上传
+         */
+        private PackIndexSegment toSegment() {
+            PackIndexSegment.Builder builder = new PackIndexSegment.Builder(id, Collections.emptyList());
+            int packId = PackIndexSegment.TOMBSTONE;
+            if (pack != null) {
+                pack.complete();
+                packId = builder.addPack(id, pack.size());
+            }
+            List<PendingEntry> entries = new ArrayList<>(pending.values());
+            entries.sort((a, b) -> PackIndexSegment.compare(a.key, b.key));
+            for (PendingEntry entry : entries) {
+                builder.add(entry.key, entry.pack == null ? PackIndexSegment.TOMBSTONE : packId, entry.offset,
+                        entry.length, entry.crc);
+            }
+            return builder.build();
+        }
+    }
+
+    private static final class PendingEntry {
+
+        private final byte[] key;
+
+        /**
+         * 内容所在的 pack，删除时为 null
+         */
+        private final PackUpload pack;
+
+        private final long offset;
+
+        private final int length;
+
+        private final int crc;
+
+        private PendingEntry(byte[] key, PackUpload pack, long offset, int length, int crc) {
+            this.key = key;
+            this.pack = pack;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+
+    private static final class Location {
+
+        private final String pack;
+
+        private final long offset;
+
+        private final int length;
+
+        private final int crc;
+
+        private Location(String pack, long offset, int length, int crc) {
+            this.pack = pack;
+            this.offset = offset;
+            this.length = length;
+            this.crc = crc;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package com.anthonyzero.core.pack;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 不可变的索引段，记录一批 key 所在的 pack、偏移与长度
+ * <p>
+ * 条目按 key 的 UTF-8 字节序排列，所有 key 连续存放在一个字节数组中，其余字段为基本类型数组，
+ * 每个条目除 key 本身外占用 24 字节，查找为二分查找。删除以墓碑条目记录。
+ */
+final class PackIndexSegment {
+
+    static final int TOMBSTONE = -1;
+
+    private static final int MAGIC = 0x4F535049;
+
+    private static final byte VERSION = 1;
+
+    private final String name;
+
+    /**
+     * 本段合并替代的索引段，加载时忽略这些段
+     */
+    private final List<String> superseded;
+
+    private final String[] packs;
+
+    private final long[] packSizes;
+
+    private final byte[] keys;
+
+    private final int[] keyOffsets;
+
+    private final int[] packIds;
+
+    private final long[] offsets;
+
+    private final int[] lengths;
+
+    private final int[] crcs;
+
+    private PackIndexSegment(String name, List<String> superseded, String[] packs, long[] packSizes, byte[] keys,
+                             int[] keyOffsets, int[] packIds, long[] offsets, int[] lengths, int[] crcs) {
+        this.name = name;
+        this.superseded = superseded;
+        this.packs = packs;
+        this.packSizes = packSizes;
+        this.keys = keys;
+        this.keyOffsets = keyOffsets;
+        this.packIds = packIds;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.crcs = crcs;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    List<String> getSuperseded() {
+        return superseded;
+    }
+
+    int size() {
+        return packIds.length;
+    }
+
+    int packCount() {
+        return packs.length;
+    }
+
+    String pack(int packId) {
+        return packs[packId];
+    }
+
+    long packSize(int packId) {
+        return packSizes[packId];
+    }
+
+    /**
+     * @return 条目下标，不存在时返回 -1
+     */
+    int find(byte[] key) {
+        int low = 0;
+        int high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(keys, keyOffsets[mid], keyOffsets[mid + 1], key, 0, key.length);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    String key(int index) {
+        return new String(keys, keyOffsets[index], keyOffsets[index + 1] - keyOffsets[index], StandardCharsets.UTF_8);
+    }
+
+    boolean isTombstone(int index) {
+        return packIds[index] == TOMBSTONE;
+    }
+
+    int packId(int index) {
+        return packIds[index];
+    }
+
+    long offset(int index) {
+        return offsets[index];
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+
+    int crc(int index) {
+        return crcs[index];
+    }
+
+    void write(OutputStream out) throws IOException {
+        GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(gzip, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeByte(VERSION);
+        data.writeInt(superseded.size());
+        for (String segment : superseded) {
+            data.writeUTF(segment);
+        }
+        data.writeInt(packs.length);
+        for (int i = 0; i < packs.length; i++) {
+            data.writeUTF(packs[i]);
+            data.writeLong(packSizes[i]);
+        }
+        data.writeInt(size());
+        for (int i = 0; i < size(); i++) {
+            data.writeShort(keyOffsets[i + 1] - keyOffsets[i]);
+            data.write(keys, keyOffsets[i], keyOffsets[i + 1] - keyOffsets[i]);
+            data.writeInt(packIds[i]);
+            data.writeLong(offsets[i]);
+            data.writeInt(lengths[i]);
+            data.writeInt(crcs[i]);
+        }
+        data.flush();
+        gzip.finish();
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, keys.length / 2 + size() * 8));
+        try {
+            write(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    static PackIndexSegment read(String name, InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 64 * 1024),
+                64 * 1024));
+        if (data.readInt() != MAGIC || data.readByte() != VERSION) {
+            throw new IOException("不是有效的 pack 索引段: " + name);
+        }
+        int supersededCount = data.readInt();
+        List<String> superseded = new ArrayList<>(supersededCount);
+        for (int i = 0; i < supersededCount; i++) {
+            superseded.add(data.readUTF());
+        }
+        Builder builder = new Builder(name, superseded);
+        int packCount = data.readInt();
+        for (int i = 0; i < packCount; i++) {
+            builder.addPack(data.readUTF(), data.readLong());
+        }
+        int count = data.readInt();
+        byte[] key = new byte[256];
+        for (int i = 0; i < count; i++) {
+            int keyLength = data.readUnsignedShort();
+            if (key.length < keyLength) {
+                key = new byte[keyLength];
+            }
+            data.readFully(key, 0, keyLength);
+            builder.add(key, 0, keyLength, data.readInt(), data.readLong(), data.readInt(), data.readInt());
+        }
+        return builder.build();
+    }
+
+    /**
+     * 按 key 顺序合并多个索引段，同一个 key 只访问最新的条目
+     *
+     * @param newestFirst    由新到旧排列的索引段
+     * @param dropTombstones 是否跳过墓碑条目，合并全部索引段时才可以跳过
+     */
+    static void merge(List<PackIndexSegment> newestFirst, boolean dropTombstones, Visitor visitor) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>();
+        for (int i = 0; i < newestFirst.size(); i++) {
+            if (newestFirst.get(i).size() > 0) {
+                queue.add(new Cursor(newestFirst.get(i), i));
+            }
+        }
+        while (!queue.isEmpty()) {
+            Cursor top = queue.poll();
+            while (!queue.isEmpty() && queue.peek().compareKey(top) == 0) {
+                Cursor older = queue.poll();
+                if (older.advance()) {
+                    queue.add(older);
+                }
+            }
+            if (!dropTombstones || !top.segment.isTombstone(top.index)) {
+                visitor.accept(top.segment, top.index);
+            }
+            if (top.advance()) {
+                queue.add(top);
+            }
+        }
+    }
+
+    /**
+     * 按无符号字节比较，与 UTF-8 编码的字符串码点顺序一致
+     */
+    static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+        int length = Math.min(aTo - aFrom, bTo - bFrom);
+        for (int i = 0; i < length; i++) {
+            int cmp = (a[aFrom + i] & 0xFF) - (b[bFrom + i] & 0xFF);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return (aTo - aFrom) - (bTo - bFrom);
+    }
+
+    static int compare(byte[] a, byte[] b) {
+        return compare(a, 0, a.length, b, 0, b.length);
+    }
+
+    interface Visitor {
+
+        void accept(PackIndexSegment segment, int index);
+    }
+
+    private static final class Cursor implements Comparable<Cursor> {
+
+        private final PackIndexSegment segment;
+
+        private final int age;
+
+        private int index;
+
+        private Cursor(PackIndexSegment segment, int age) {
+            this.segment = segment;
+            this.age = age;
+        }
+
+        private boolean advance() {
+            return ++index < segment.size();
+        }
+
+        private int compareKey(Cursor other) {
+            return compare(segment.keys, segment.keyOffsets[index], segment.keyOffsets[index + 1],
+                    other.segment.keys, other.segment.keyOffsets[other.index], other.segment.keyOffsets[other.index + 1]);
+        }
+
+        @Override
+        public int compareTo(Cursor other) {
+            int cmp = compareKey(other);
+            return cmp != 0 ? cmp : Integer.compare(age, other.age);
+        }
+    }
+
+    /**
+     * 按 key 升序追加条目构建索引段
+     */
+    static final class Builder {
+
+        private final String name;
+
+        private final List<String> superseded;
+
+        private final List<String> packs = new ArrayList<>();
+
+        private final List<Long> packSizes = new ArrayList<>();
+
+        private final Map<String, Integer> packIndex = new HashMap<>();
+
+        private byte[] keys = new byte[1024];
+
+        private int keyLength;
+
+        private int[] keyOffsets = new int[65];
+
+        private int[] packIds = new int[64];
+
+        private long[] offsets = new long[64];
+
+        private int[] lengths = new int[64];
+
+        private int[] crcs = new int[64];
+
+        private int size;
+
+        Builder(String name, List<String> superseded) {
+            this.name = name;
+            this.superseded = superseded;
+        }
+
+        /**
+         * @return pack 在本段中的编号
+         */
+        int addPack(String pack, long packSize) {
+            Integer id = packIndex.get(pack);
+            if (id == null) {
+                id = packs.size();
+                packIndex.put(pack, id);
+                packs.add(pack);
+                packSizes.add(packSize);
+            }
+            return id;
+        }
+
+        void add(byte[] key, int packId, long offset, int length, int crc) {
+            add(key, 0, key.length, packId, offset, length, crc);
+        }
+
+        void add(byte[] key, int from, int to, int packId, long offset, int length, int crc) {
+            if (to - from > 0xFFFF) {
+                throw new IllegalArgumentException("key 超过 65535 字节");
+            }
+            if (size > 0 && compare(keys, keyOffsets[size - 1], keyOffsets[size], key, from, to) >= 0) {
+                throw new IllegalArgumentException("索引条目必须按 key 升序添加");
+            }
+            if (keyLength + (long) (to - from) > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("索引段超过 2GB，请缩小 pack 前缀范围");
+            }
+            if (size == packIds.length) {
+                int capacity = size + (size >> 1);
+                keyOffsets = Arrays.copyOf(keyOffsets, capacity + 1);
+                packIds = Arrays.copyOf(packIds, capacity);
+                offsets = Arrays.copyOf(offsets, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                crcs = Arrays.copyOf(crcs, capacity);
+            }
+            if (keyLength + (to - from) > keys.length) {
+                keys = Arrays.copyOf(keys, (int) Math.min(Integer.MAX_VALUE - 8,
+                        Math.max((long) keys.length * 2, keyLength + (long) (to - from))));
+            }
+            System.arraycopy(key, from, keys, keyLength, to - from);
+            keyLength += to - from;
+            packIds[size] = packId;
+            offsets[size] = offset;
+            lengths[size] = length;
+            crcs[size] = crc;
+            keyOffsets[++size] = keyLength;
+        }
+
+        /**
+         * 复制其他索引段的条目，位置改为 {@code packId}、{@code offset}
+         */
+        void add(PackIndexSegment segment, int index, int packId, long offset) {
+            add(segment.keys, segment.keyOffsets[index], segment.keyOffsets[index + 1], packId, offset,
+                    segment.lengths[index], segment.crcs[index]);
+        }
+
+        int size() {
+            return size;
+        }
+
+        PackIndexSegment build() {
+            long[] sizes = new long[packSizes.size()];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = packSizes.get(i);
+            }
+            return new PackIndexSegment(name, Collections.unmodifiableList(new ArrayList<>(superseded)),
+                    packs.toArray(new String[0]), sizes, Arrays.copyOf(keys, keyLength),
+                    Arrays.copyOf(keyOffsets, size + 1), Arrays.copyOf(packIds, size), Arrays.copyOf(offsets, size),
+                    Arrays.copyOf(lengths, size), Arrays.copyOf(crcs, size));
+        }
+    }
+}
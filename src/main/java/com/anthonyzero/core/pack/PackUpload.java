@@ -0,0 +1,178 @@
+package com.anthonyzero.core.pack;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.client.OssClient;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 正在写入的 pack
+ * <p>
+ * 内容保留在内存中直到上传完成，期间可以读取；写满第一个分片时异步发起分片上传，发起完成后写满的分片在追加时异步上传，
+ * 追加不会等待任何请求。完成失败时中止分片上传，再次调用 {@link #complete()} 从头上传。
+ */
+final class PackUpload {
+
+    private final OssClient ossClient;
+
+    private final String bucketName;
+
+    private final String key;
+
+    private final int partSize;
+
+    private byte[] buffer = new byte[64 * 1024];
+
+    private int size;
+
+    private CompletableFuture<InitiateMultipartUploadResult> initiated;
+
+    private final List<CompletableFuture<UploadPartResult>> parts = new ArrayList<>();
+
+    private int uploaded;
+
+    private boolean completed;
+
+    PackUpload(OssClient ossClient, String bucketName, String key, int partSize) {
+        this.ossClient = ossClient;
+        this.bucketName = bucketName;
+        this.key = key;
+        this.partSize = partSize;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return 内容在 pack 中的偏移
+     */
+    long append(byte[] data) {
+        if (completed) {
+            throw new IllegalStateException("pack " + key + " 已完成，不能继续追加");
+        }
+        if (size + data.length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, (int) Math.min(Integer.MAX_VALUE - 8,
+                    Math.max((long) buffer.length * 2, (long) size + data.length)));
+        }
+        System.arraycopy(data, 0, buffer, size, data.length);
+        long offset = size;
+        size += data.length;
+        if (size - uploaded >= partSize) {
+            if (initiated == null) {
+                initiated = ossClient.initiateMultipartUploadAsync(new InitiateMultipartUploadRequest(bucketName, key,
+                        new ObjectMetadata()));
+            }
+            // 发起尚未完成或失败时分片留在内存中，由之后的追加或 complete() 上传
+            if (initiated.isDone() && !initiated.isCompletedExceptionally()) {
+                uploadFullParts();
+            }
+        }
+        return offset;
+    }
+
+    byte[] read(long offset, int length) {
+        return Arrays.copyOfRange(buffer, (int) offset, (int) offset + length);
+    }
+
+    /**
+     * 上传剩余内容并完成 pack，只有一个分片时直接 PUT
+     */
+    void complete() {
+        if (completed) {
+            return;
+        }
+        try {
+            if (initiated == null) {
+                ObjectMetadata objectMetadata = new ObjectMetadata();
+                objectMetadata.setContentLength(size);
+                objectMetadata.setContentType("application/octet-stream");
+                ossClient.putObject(new PutObjectRequest(bucketName, key, new ByteArrayInputStream(buffer, 0, size),
+                        objectMetadata));
+                completed = true;
+                return;
+            }
+            uploadFullParts();
+            if (size > uploaded) {
+                uploadPart(size - uploaded);
+            }
+            List<PartETag> partETags = new ArrayList<>(parts.size());
+            for (CompletableFuture<UploadPartResult> part : parts) {
+                partETags.add(join(part).getPartETag());
+            }
+            ossClient.completeMultipartUpload(new CompleteMultipartUploadRequest(bucketName, key, uploadId(),
+                    partETags));
+            completed = true;
+        } catch (RuntimeException e) {
+            abort();
+            throw e;
+        }
+    }
+
+    /**
+     * 中止未完成的分片上传，内存中的内容保留
+     */
+    void abort() {
+        if (initiated == null) {
+            return;
+        }
+        for (CompletableFuture<UploadPartResult> part : parts) {
+            try {
+                join(part);
+            } catch (RuntimeException ignored) {
+                // 分片失败不影响中止
+            }
+        }
+        try {
+            ossClient.abortMultipartUpload(new AbortMultipartUploadRequest(bucketName, key, uploadId()));
+        } catch (RuntimeException ignored) {
+            // 发起失败时没有需要中止的上传，未完成的分片由 bucket 生命周期规则清理
+        }
+        initiated = null;
+        parts.clear();
+        uploaded = 0;
+    }
+
+    /**
+     * 等待发起完成后的 uploadId，只在完成或发起已结束时调用
+     */
+    private String uploadId() {
+        return join(initiated).getUploadId();
+    }
+
+    private void uploadFullParts() {
+        while (size - uploaded >= partSize) {
+            uploadPart(partSize);
+        }
+    }
+
+    private void uploadPart(int length) {
+        UploadPartRequest request = new UploadPartRequest().withBucketName(bucketName).withKey(key)
+                .withUploadId(uploadId()).withPartNumber(parts.size() + 1)
+                .withInputStream(new ByteArrayInputStream(buffer, uploaded, length)).withPartSize(length);
+        parts.add(ossClient.uploadPartAsync(request));
+        uploaded += length;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new AbortedException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new SdkClientException(cause);
+        }
+    }
+}
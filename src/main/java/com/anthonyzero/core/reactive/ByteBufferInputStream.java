@@ -0,0 +1,52 @@
+package com.anthonyzero.core.reactive;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 将阻塞的 ByteBuffer 流转换为 InputStream，关闭时取消上游订阅
+ */
+class ByteBufferInputStream extends InputStream {
+
+    private final Stream<ByteBuffer> stream;
+
+    private final Iterator<ByteBuffer> iterator;
+
+    private final byte[] single = new byte[1];
+
+    private ByteBuffer current;
+
+    ByteBufferInputStream(Stream<ByteBuffer> stream) {
+        this.stream = stream;
+        this.iterator = stream.iterator();
+    }
+
+    @Override
+    public int read() throws IOException {
+        return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        while (current == null || !current.hasRemaining()) {
+            if (!iterator.hasNext()) {
+                return -1;
+            }
+            current = iterator.next().duplicate();
+        }
+        int n = Math.min(len, current.remaining());
+        current.get(b, off, n);
+        return n;
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
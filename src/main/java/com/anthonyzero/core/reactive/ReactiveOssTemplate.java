@@ -0,0 +1,247 @@
+package com.anthonyzero.core.reactive;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.checksum.OssChecksums;
+import com.anthonyzero.core.checksum.StreamChecksum;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.OssClients;
+import com.anthonyzero.core.client.S3AsyncOssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.ChecksumAlgorithm;
+import lombok.Getter;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 基于 Reactor 的流式上传、下载，适用于 WebFlux 应用
+ * <p>
+ * 下载按订阅方的请求量读取：默认客户端为 v2-async 引擎时直接使用 SDK 的响应发布者，不占用线程；
+ * 其他引擎或对象需要校验、解密、解压时，在 boundedElastic 上读取 {@link OssTemplate#getObject(String, String)}
+ * 的结果。上传按 {@link OssProperties.Multipart} 的分片大小切分为分片逐个上传，上一个分片完成前最多再缓存一个分片，
+ * 内存占用不超过三个分片；需要压缩或加密的位置在 boundedElastic 上使用 {@link OssTemplate} 的分片上传。
+ */
+public class ReactiveOssTemplate {
+
+    /**
+     * 阻塞读取时每次发出的字节数
+     */
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final OssProperties ossProperties;
+
+    @Getter
+    private final OssTemplate ossTemplate;
+
+    public ReactiveOssTemplate(OssProperties ossProperties, OssTemplate ossTemplate) {
+        this.ossProperties = ossProperties;
+        this.ossTemplate = ossTemplate;
+    }
+
+    /**
+     * 下载文件
+     *
+     * @param objectName 文件名称
+     * @return 文件内容
+     */
+    public Flux<ByteBuffer> getObject(String objectName) {
+        return getObject(ossTemplate.getBucketName(), objectName);
+    }
+
+    /**
+     * 下载文件，取消订阅时中止连接
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     * @return 文件内容，对象不存在时以 {@link AmazonS3Exception} 结束
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/GetObject">AWS
+     * API Documentation</a>
+     */
+    public Flux<ByteBuffer> getObject(String bucketName, String objectName) {
+        Optional<S3AsyncOssClient> asyncDelegate = OssClients.asyncDelegate(ossTemplate.getOssClient());
+        if (!asyncDelegate.isPresent()) {
+            return getObjectBlocking(bucketName, objectName);
+        }
+        S3AsyncOssClient s3AsyncOssClient = asyncDelegate.get();
+        return Mono.fromFuture(() -> s3AsyncOssClient.getObjectPublisher(new GetObjectRequest(bucketName, objectName)))
+                .flatMapMany(object -> {
+                    if (ossTemplate.requiresDecoding(object.getObjectMetadata())) {
+                        object.discard();
+                        return getObjectBlocking(bucketName, objectName);
+                    }
+                    return Flux.from(object.getContent());
+                });
+    }
+
+    /**
+     * 分片上传文件
+     *
+     * @param objectName  文件名称
+     * @param data        文件内容
+     * @param contextType 类型
+     */
+    public Mono<CompleteMultipartUploadResult> putObject(String objectName, Publisher<ByteBuffer> data,
+                                                         String contextType) {
+        return putObject(ossTemplate.getBucketName(), objectName, data, contextType);
+    }
+
+    /**
+     * 分片上传文件，出错或取消订阅时中止分片上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param data        文件内容，按需请求，不会一次性读入
+     * @param contextType 类型
+     * @see <a href= "http://docs.aws.amazon.com/goto/WebAPI/s3-2006-03-01/UploadPart">AWS
+     * API Documentation</a>
+     */
+    public Mono<CompleteMultipartUploadResult> putObject(String bucketName, String objectName,
+                                                         Publisher<ByteBuffer> data, String contextType) {
+        if (ossTemplate.requiresEncoding(bucketName, objectName)) {
+            return Mono.fromCallable(() -> {
+                try (InputStream stream = new ByteBufferInputStream(Flux.from(data).toStream(1))) {
+                    return ossTemplate.putObjectMultipart(bucketName, objectName, stream, contextType);
+                }
+            }).subscribeOn(Schedulers.boundedElastic());
+        }
+        OssClient ossClient = ossTemplate.getOssClient();
+        int partSize = ossProperties.getMultipart().getPartSize();
+        boolean checksum = ossProperties.getChecksum().isEnabled();
+        ObjectMetadata objectMetadata = new ObjectMetadata();
+        if (contextType != null) {
+            objectMetadata.setContentType(contextType);
+        }
+        if (checksum) {
+            objectMetadata.addUserMetadata(OssChecksums.PART_SIZE_METADATA, String.valueOf(partSize));
+        }
+        return Mono.fromCallable(() -> ossClient.initiateMultipartUpload(
+                        new InitiateMultipartUploadRequest(bucketName, objectName, objectMetadata)).getUploadId())
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(uploadId -> parts(data, partSize).index()
+                        .concatMap(part -> Mono.fromFuture(() -> ossClient.uploadPartAsync(
+                                uploadPartRequest(bucketName, objectName, uploadId, part.getT1().intValue() + 1,
+                                        part.getT2(), checksum))), 1)
+                        .map(UploadPartResult::getPartETag)
+                        .collectList()
+                        .publishOn(Schedulers.boundedElastic())
+                        .map(partETags -> ossClient.completeMultipartUpload(
+                                new CompleteMultipartUploadRequest(bucketName, objectName, uploadId, partETags)))
+                        .onErrorResume(e -> abort(ossClient, bucketName, objectName, uploadId).then(Mono.error(e)))
+                        .doOnCancel(() -> abort(ossClient, bucketName, objectName, uploadId).subscribe()));
+    }
+
+    private Flux<ByteBuffer> getObjectBlocking(String bucketName, String objectName) {
+        return Flux.using(() -> ossTemplate.getObject(bucketName, objectName),
+                s3Object -> Flux.<ByteBuffer>generate(sink -> {
+                    byte[] buffer = new byte[READ_BUFFER_SIZE];
+                    try {
+                        int length = s3Object.getObjectContent().read(buffer);
+                        if (length < 0) {
+                            sink.complete();
+                        } else {
+                            sink.next(ByteBuffer.wrap(buffer, 0, length));
+                        }
+                    } catch (IOException e) {
+                        sink.error(new SdkClientException("下载失败: " + bucketName + "/" + objectName, e));
+                    }
+                }), ReactiveOssTemplate::closeQuietly).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static UploadPartRequest uploadPartRequest(String bucketName, String objectName, String uploadId,
+                                                       int partNumber, byte[] data, boolean checksum) {
+        UploadPartRequest request = new UploadPartRequest().withBucketName(bucketName).withKey(objectName)
+                .withUploadId(uploadId).withPartNumber(partNumber)
+                .withInputStream(new ByteArrayInputStream(data)).withPartSize(data.length);
+        if (checksum) {
+            StreamChecksum md5 = StreamChecksum.of(ChecksumAlgorithm.MD5);
+            md5.update(data, 0, data.length);
+            request.setMd5Digest(md5.toBase64());
+        }
+        return request;
+    }
+
+    private static Mono<Void> abort(OssClient ossClient, String bucketName, String objectName, String uploadId) {
+        return Mono.<Void>fromRunnable(() -> ossClient.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(bucketName, objectName, uploadId)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    /**
+     * 将内容切分为固定大小的分片，最后一片可以更小；没有内容时发出一个空分片
+     */
+    static Flux<byte[]> parts(Publisher<ByteBuffer> data, int partSize) {
+        return Flux.defer(() -> {
+            PartBuffer buffer = new PartBuffer(partSize);
+            return Flux.from(data).concatMapIterable(buffer::append, 1).concatWith(Mono.fromSupplier(buffer::finish));
+        });
+    }
+
+    private static void closeQuietly(S3Object s3Object) {
+        try {
+            // 未读完时关闭会中止连接
+            s3Object.close();
+        } catch (IOException ignored) {
+            // 连接已中止
+        }
+    }
+
+    private static final class PartBuffer {
+
+        private final int partSize;
+
+        private byte[] part;
+
+        private int length;
+
+        private boolean emitted;
+
+        private PartBuffer(int partSize) {
+            this.partSize = partSize;
+        }
+
+        private List<byte[]> append(ByteBuffer byteBuffer) {
+            ByteBuffer source = byteBuffer.duplicate();
+            List<byte[]> completed = Collections.emptyList();
+            while (source.hasRemaining()) {
+                if (part == null) {
+                    part = new byte[partSize];
+                }
+                int n = Math.min(source.remaining(), partSize - length);
+                source.get(part, length, n);
+                length += n;
+                if (length == partSize) {
+                    if (completed.isEmpty()) {
+                        completed = new ArrayList<>(1);
+                    }
+                    completed.add(part);
+                    emitted = true;
+                    part = null;
+                    length = 0;
+                }
+            }
+            return completed;
+        }
+
+        private byte[] finish() {
+            if (length > 0) {
+                byte[] last = new byte[length];
+                System.arraycopy(part, 0, last, 0, length);
+                return last;
+            }
+            return emitted ? null : new byte[0];
+        }
+    }
+}
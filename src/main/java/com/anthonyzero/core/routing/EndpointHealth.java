@@ -0,0 +1,113 @@
+package com.anthonyzero.core.routing;
+
+import com.amazonaws.AbortedException;
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import lombok.Getter;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 单个端点的健康评分，按请求延迟与错误率的指数加权平均计算
+ * <p>
+ * 请求数达到 minRequests 后，错误率或平均延迟超过阈值即视为降级。降级期间读取转到副本，
+ * 端点收不到新的请求，因此每隔 probeInterval 放行一次探测请求，探测成功的样本逐步拉回评分。
+ */
+public class EndpointHealth {
+
+    /**
+     * 每个新样本的权重
+     */
+    private static final double ALPHA = 0.3;
+
+    @Getter
+    private final String name;
+
+    private final OssProperties.Health properties;
+
+    private double latencyMillis;
+
+    private double errorRate;
+
+    private long requests;
+
+    private long lastProbe;
+
+    public EndpointHealth(String name, OssProperties.Health properties) {
+        this.name = name;
+        this.properties = properties;
+    }
+
+    /**
+     * 记录一次请求的耗时与结果
+     */
+    public synchronized void record(long elapsedNanos, boolean failed) {
+        double millis = elapsedNanos / 1_000_000.0;
+        double error = failed ? 1 : 0;
+        if (requests++ == 0) {
+            latencyMillis = millis;
+            errorRate = error;
+        } else {
+            latencyMillis += ALPHA * (millis - latencyMillis);
+            errorRate += ALPHA * (error - errorRate);
+        }
+    }
+
+    public synchronized double getLatencyMillis() {
+        return latencyMillis;
+    }
+
+    public synchronized double getErrorRate() {
+        return errorRate;
+    }
+
+    public synchronized long getRequests() {
+        return requests;
+    }
+
+    /**
+     * 健康评分，1 表示完全健康，越接近 0 越差
+     */
+    public synchronized double getScore() {
+        double latencyFactor = Math.min(1, properties.getLatencyThreshold() / Math.max(latencyMillis, 1));
+        return (1 - errorRate) * latencyFactor;
+    }
+
+    public synchronized boolean isDegraded() {
+        return requests >= properties.getMinRequests() && (errorRate > properties.getErrorRateThreshold()
+                || latencyMillis > properties.getLatencyThreshold());
+    }
+
+    /**
+     * 降级期间每个探测间隔只有一次调用返回 true
+     */
+    synchronized boolean tryProbe() {
+        long now = System.currentTimeMillis();
+        if (now - lastProbe < properties.getProbeInterval()) {
+            return false;
+        }
+        lastProbe = now;
+        return true;
+    }
+
+    /**
+     * 是否是端点自身的故障：服务端 5xx、连接或超时等客户端错误；4xx 说明端点正常响应
+     */
+    public static boolean isEndpointFailure(Throwable e) {
+        while ((e instanceof CompletionException || e instanceof ExecutionException) && e.getCause() != null) {
+            e = e.getCause();
+        }
+        if (e instanceof AmazonServiceException) {
+            return ((AmazonServiceException) e).getStatusCode() >= 500;
+        }
+        return e instanceof AmazonClientException && !(e instanceof AbortedException);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%s[latency=%.1fms, errorRate=%.3f, requests=%d]", name, latencyMillis, errorRate,
+                requests);
+    }
+}
@@ -0,0 +1,191 @@
+package com.anthonyzero.core.routing;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.client.OssClient;
+import lombok.Getter;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 读取可切换到只读副本的 {@link OssClient}
+ * <p>
+ * 写入、bucket 管理与签名始终使用主端点。读取（下载、HEAD、列举、bucket 是否存在）在主端点降级而副本健康时直接走副本，
+ * 降级期间按探测间隔放行一次请求到主端点以便恢复；读取主端点遇到 5xx 或连接类错误时再从副本读取一次。
+ */
+public class FailoverOssClient implements OssClient {
+
+    @Getter
+    private final HealthTrackingOssClient primary;
+
+    @Getter
+    private final HealthTrackingOssClient replica;
+
+    public FailoverOssClient(HealthTrackingOssClient primary, HealthTrackingOssClient replica) {
+        this.primary = primary;
+        this.replica = replica;
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        return read(client -> client.doesBucketExist(bucketName));
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return primary.createBucket(bucketName);
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        primary.setBucketPolicy(bucketName, policyText);
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        return primary.getBucketPolicy(bucketName);
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        return primary.listBuckets();
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        primary.deleteBucket(bucketName);
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return read(client -> client.listObjects(bucketName, prefix));
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return read(client -> client.listNextBatchOfObjects(previousObjectListing));
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return primary.getUrl(bucketName, key);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return primary.generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return primary.putObject(request);
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        return read(client -> client.getObject(request));
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return read(client -> client.getObjectMetadata(bucketName, key));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        primary.deleteObject(bucketName, key);
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return primary.initiateMultipartUpload(request);
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return primary.uploadPart(request);
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return primary.completeMultipartUpload(request);
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        primary.abortMultipartUpload(request);
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        return primary.putObjectAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        return primary.initiateMultipartUploadAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        return primary.uploadPartAsync(request);
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        OssClient first = selectReader();
+        OssClient second = first == primary ? replica : primary;
+        return first.getObjectAsync(request).handle((s3Object, e) -> {
+            if (e == null) {
+                return CompletableFuture.completedFuture(s3Object);
+            }
+            if (EndpointHealth.isEndpointFailure(e)) {
+                return second.getObjectAsync(request);
+            }
+            CompletableFuture<S3Object> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * 副本由注册表统一关闭
+     */
+    @Override
+    public void close() {
+        primary.close();
+    }
+
+    private <T> T read(Function<OssClient, T> call) {
+        OssClient first = selectReader();
+        try {
+            return call.apply(first);
+        } catch (AmazonClientException e) {
+            if (!EndpointHealth.isEndpointFailure(e)) {
+                throw e;
+            }
+            OssClient second = first == primary ? replica : primary;
+            try {
+                return call.apply(second);
+            } catch (RuntimeException retry) {
+                retry.addSuppressed(e);
+                throw retry;
+            }
+        }
+    }
+
+    /**
+     * 主端点降级且副本健康时读副本，探测请求除外
+     */
+    private OssClient selectReader() {
+        EndpointHealth health = primary.getHealth();
+        if (health.isDegraded() && !replica.getHealth().isDegraded() && !health.tryProbe()) {
+            return replica;
+        }
+        return primary;
+    }
+}
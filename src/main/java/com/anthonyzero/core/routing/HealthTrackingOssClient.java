@@ -0,0 +1,177 @@
+package com.anthonyzero.core.routing;
+
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.client.OssClient;
+import lombok.Getter;
+
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * 记录每次请求耗时与结果的 {@link OssClient} 装饰器，下载请求只统计到响应头返回
+ * <p>
+ * 不实现 {@link com.anthonyzero.core.client.DelegatingOssClient}：绕过本装饰器的读取不计入健康统计，
+ * 端点故障时无法被标记为降级，响应式下载因此走经过本装饰器的阻塞下载。
+ */
+public class HealthTrackingOssClient implements OssClient {
+
+    private final OssClient delegate;
+
+    @Getter
+    private final EndpointHealth health;
+
+    public HealthTrackingOssClient(OssClient delegate, EndpointHealth health) {
+        this.delegate = delegate;
+        this.health = health;
+    }
+
+    @Override
+    public boolean doesBucketExist(String bucketName) {
+        return track(() -> delegate.doesBucketExist(bucketName));
+    }
+
+    @Override
+    public Bucket createBucket(String bucketName) {
+        return track(() -> delegate.createBucket(bucketName));
+    }
+
+    @Override
+    public void setBucketPolicy(String bucketName, String policyText) {
+        track(() -> {
+            delegate.setBucketPolicy(bucketName, policyText);
+            return null;
+        });
+    }
+
+    @Override
+    public String getBucketPolicy(String bucketName) {
+        return track(() -> delegate.getBucketPolicy(bucketName));
+    }
+
+    @Override
+    public List<Bucket> listBuckets() {
+        return track(delegate::listBuckets);
+    }
+
+    @Override
+    public void deleteBucket(String bucketName) {
+        track(() -> {
+            delegate.deleteBucket(bucketName);
+            return null;
+        });
+    }
+
+    @Override
+    public ObjectListing listObjects(String bucketName, String prefix) {
+        return track(() -> delegate.listObjects(bucketName, prefix));
+    }
+
+    @Override
+    public ObjectListing listNextBatchOfObjects(ObjectListing previousObjectListing) {
+        return track(() -> delegate.listNextBatchOfObjects(previousObjectListing));
+    }
+
+    @Override
+    public URL getUrl(String bucketName, String key) {
+        return delegate.getUrl(bucketName, key);
+    }
+
+    @Override
+    public URL generatePresignedUrl(GeneratePresignedUrlRequest request) {
+        return delegate.generatePresignedUrl(request);
+    }
+
+    @Override
+    public PutObjectResult putObject(PutObjectRequest request) {
+        return track(() -> delegate.putObject(request));
+    }
+
+    @Override
+    public S3Object getObject(GetObjectRequest request) {
+        return track(() -> delegate.getObject(request));
+    }
+
+    @Override
+    public ObjectMetadata getObjectMetadata(String bucketName, String key) {
+        return track(() -> delegate.getObjectMetadata(bucketName, key));
+    }
+
+    @Override
+    public void deleteObject(String bucketName, String key) {
+        track(() -> {
+            delegate.deleteObject(bucketName, key);
+            return null;
+        });
+    }
+
+    @Override
+    public InitiateMultipartUploadResult initiateMultipartUpload(InitiateMultipartUploadRequest request) {
+        return track(() -> delegate.initiateMultipartUpload(request));
+    }
+
+    @Override
+    public UploadPartResult uploadPart(UploadPartRequest request) {
+        return track(() -> delegate.uploadPart(request));
+    }
+
+    @Override
+    public CompleteMultipartUploadResult completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        return track(() -> delegate.completeMultipartUpload(request));
+    }
+
+    @Override
+    public void abortMultipartUpload(AbortMultipartUploadRequest request) {
+        track(() -> {
+            delegate.abortMultipartUpload(request);
+            return null;
+        });
+    }
+
+    @Override
+    public CompletableFuture<PutObjectResult> putObjectAsync(PutObjectRequest request) {
+        return trackAsync(() -> delegate.putObjectAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<InitiateMultipartUploadResult> initiateMultipartUploadAsync(
+            InitiateMultipartUploadRequest request) {
+        return trackAsync(() -> delegate.initiateMultipartUploadAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<UploadPartResult> uploadPartAsync(UploadPartRequest request) {
+        return trackAsync(() -> delegate.uploadPartAsync(request));
+    }
+
+    @Override
+    public CompletableFuture<S3Object> getObjectAsync(GetObjectRequest request) {
+        return trackAsync(() -> delegate.getObjectAsync(request));
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    private <T> T track(Supplier<T> call) {
+        long start = System.nanoTime();
+        try {
+            T result = call.get();
+            health.record(System.nanoTime() - start, false);
+            return result;
+        } catch (RuntimeException e) {
+            health.record(System.nanoTime() - start, EndpointHealth.isEndpointFailure(e));
+            throw e;
+        }
+    }
+
+    private <T> CompletableFuture<T> trackAsync(Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> future = call.get();
+        future.whenComplete((result, e) -> health.record(System.nanoTime() - start,
+                e != null && EndpointHealth.isEndpointFailure(e)));
+        return future;
+    }
+}
@@ -0,0 +1,116 @@
+package com.anthonyzero.core.routing;
+
+import com.anthonyzero.core.OssTemplate;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 命名客户端的 {@link OssTemplate} 注册表，按客户端名称、bucket 或租户获取模板
+ * <p>
+ * bucket、租户未匹配任何命名客户端时返回默认模板（oss.* 配置的客户端）。注册表负责关闭命名客户端。
+ */
+public class OssTemplateRegistry implements AutoCloseable {
+
+    private final OssTemplate defaultTemplate;
+
+    private final Map<String, OssTemplate> templates = new LinkedHashMap<>();
+
+    private final Map<String, EndpointHealth> healths = new LinkedHashMap<>();
+
+    private final Map<String, String> bucketRoutes = new LinkedHashMap<>();
+
+    private final Map<String, String> tenantRoutes = new LinkedHashMap<>();
+
+    /**
+     * @param defaultTemplate 默认模板，可以为 null
+     */
+    public OssTemplateRegistry(OssTemplate defaultTemplate) {
+        this.defaultTemplate = defaultTemplate;
+    }
+
+    /**
+     * 注册命名客户端
+     *
+     * @param name     客户端名称
+     * @param template 模板
+     * @param health   端点健康评分
+     * @param buckets  路由到该客户端的 bucket
+     * @param tenants  路由到该客户端的租户
+     */
+    public synchronized void register(String name, OssTemplate template, EndpointHealth health, List<String> buckets,
+                                      List<String> tenants) {
+        if (templates.putIfAbsent(name, template) != null) {
+            throw new IllegalStateException("客户端重复注册: " + name);
+        }
+        healths.put(name, health);
+        buckets.forEach(bucket -> route(bucketRoutes, "bucket", bucket, name));
+        tenants.forEach(tenant -> route(tenantRoutes, "租户", tenant, name));
+    }
+
+    private static void route(Map<String, String> routes, String type, String key, String name) {
+        String existing = routes.putIfAbsent(key, name);
+        if (existing != null) {
+            throw new IllegalStateException(type + " " + key + " 同时路由到客户端 " + existing + " 与 " + name);
+        }
+    }
+
+    /**
+     * 按客户端名称获取模板
+     */
+    public synchronized OssTemplate getTemplate(String name) {
+        OssTemplate template = templates.get(name);
+        if (template == null) {
+            throw new IllegalArgumentException("未配置客户端: " + name);
+        }
+        return template;
+    }
+
+    /**
+     * 按 bucket 获取模板，未配置路由时返回默认模板
+     */
+    public synchronized OssTemplate getTemplateForBucket(String bucketName) {
+        return route(bucketRoutes.get(bucketName), "bucket " + bucketName);
+    }
+
+    /**
+     * 按租户获取模板，未配置路由时返回默认模板
+     */
+    public synchronized OssTemplate getTemplateForTenant(String tenant) {
+        return route(tenantRoutes.get(tenant), "租户 " + tenant);
+    }
+
+    private OssTemplate route(String name, String target) {
+        if (name != null) {
+            return templates.get(name);
+        }
+        if (defaultTemplate == null) {
+            throw new IllegalArgumentException(target + " 未路由到任何客户端，且未配置默认客户端");
+        }
+        return defaultTemplate;
+    }
+
+    /**
+     * 命名客户端端点的健康评分
+     */
+    public synchronized EndpointHealth getHealth(String name) {
+        getTemplate(name);
+        return healths.get(name);
+    }
+
+    public synchronized Set<String> getNames() {
+        return Collections.unmodifiableSet(new LinkedHashSet<>(templates.keySet()));
+    }
+
+    @Override
+    public synchronized void close() {
+        templates.values().forEach(template -> {
+            template.close();
+            template.getOssClient().close();
+        });
+    }
+}
@@ -0,0 +1,39 @@
+package com.anthonyzero.core.spool;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 将异步写入队列的积压与上传统计注册为 Micrometer 指标，队列深度、日志大小与积压时长可用于告警
+ */
+public class OssWriteBehindMeterBinder implements MeterBinder {
+
+    private final OssWriteBehindQueue queue;
+
+    public OssWriteBehindMeterBinder(OssWriteBehindQueue queue) {
+        this.queue = queue;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (queue == null) {
+            return;
+        }
+        Gauge.builder("oss.write-behind.depth", queue, OssWriteBehindQueue::getQueueDepth)
+                .description("未上传的条目数").register(registry);
+        Gauge.builder("oss.write-behind.spool", queue, OssWriteBehindQueue::getSpoolBytes)
+                .baseUnit("bytes").description("本地日志占用的空间").register(registry);
+        Gauge.builder("oss.write-behind.lag", queue, OssWriteBehindQueue::getDrainLagMillis)
+                .baseUnit("milliseconds").description("最早未上传条目的入队时长").register(registry);
+        FunctionCounter.builder("oss.write-behind.uploaded", queue, OssWriteBehindQueue::getUploadedCount)
+                .description("上传完成的条目数").register(registry);
+        FunctionCounter.builder("oss.write-behind.coalesced", queue, OssWriteBehindQueue::getCoalescedCount)
+                .description("被同一对象更新的写入覆盖而跳过的条目数").register(registry);
+        FunctionCounter.builder("oss.write-behind.retries", queue, OssWriteBehindQueue::getRetryCount)
+                .description("上传重试次数").register(registry);
+        FunctionCounter.builder("oss.write-behind.failed", queue, OssWriteBehindQueue::getFailedCount)
+                .description("重试耗尽后丢弃的条目数").register(registry);
+    }
+}
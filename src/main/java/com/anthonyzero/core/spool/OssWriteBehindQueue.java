@@ -0,0 +1,322 @@
+package com.anthonyzero.core.spool;
+
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.SdkClientException;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.routing.EndpointHealth;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import lombok.Getter;
+import org.springframework.util.StreamUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.ClosedChannelException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 异步写入队列，请求线程只写本地日志即返回，后台线程上传到对象存储
+ * <p>
+ * 入队内容追加到本地只追加日志，进程重启后未上传的条目重新入队。同一对象总是分配到同一上传线程并按入队顺序上传，
+ * 不同对象由多个线程并发上传；上传前若同一对象已有更新的写入则直接跳过。服务端故障、限流与网络错误一直重试，
+ * 等待时间逐次翻倍，其他错误重试 {@link OssProperties.WriteBehind#getMaxAttempts()} 次后丢弃并计入失败数。
+ * 上传经过 {@link OssTemplate#putObject(String, String, InputStream, int, String)}，压缩、加密、校验配置同样生效。
+ */
+public class OssWriteBehindQueue implements AutoCloseable {
+
+    private static final AtomicInteger THREAD_NUMBER = new AtomicInteger();
+
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+
+    /**
+     * 关闭时放入每个上传线程的队列，唤醒等待中的线程
+     */
+    private static final WriteBehindJournal.JournalEntry SHUTDOWN = WriteBehindJournal.JournalEntry.marker();
+
+    private final OssProperties.WriteBehind properties;
+
+    @Getter
+    private final OssTemplate ossTemplate;
+
+    private final WriteBehindJournal journal;
+
+    private final List<BlockingQueue<WriteBehindJournal.JournalEntry>> lanes = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    /**
+     * 未上传的条目，按入队顺序排列
+     */
+    private final ConcurrentSkipListMap<Long, WriteBehindJournal.JournalEntry> pending = new ConcurrentSkipListMap<>();
+
+    /**
+     * 每个对象最新一次入队的序号
+     */
+    private final Map<String, Long> latest = new ConcurrentHashMap<>();
+
+    private final LongAdder uploaded = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder retries = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final CountDownLatch shutdown = new CountDownLatch(1);
+
+    private volatile boolean closed;
+
+    public OssWriteBehindQueue(OssProperties properties, OssTemplate ossTemplate) {
+        this.properties = properties.getWriteBehind();
+        this.ossTemplate = ossTemplate;
+        this.journal = new WriteBehindJournal(Paths.get(this.properties.getDirectory()),
+                this.properties.getSegmentSize(), this.properties.isSync());
+        int count = Math.max(1, this.properties.getWorkers());
+        for (int i = 0; i < count; i++) {
+            lanes.add(new LinkedBlockingQueue<>());
+        }
+        try {
+            for (WriteBehindJournal.JournalEntry entry : journal.recover()) {
+                dispatch(entry);
+            }
+        } catch (IOException e) {
+            throw new SdkClientException("恢复本地日志失败: " + this.properties.getDirectory(), e);
+        }
+        for (BlockingQueue<WriteBehindJournal.JournalEntry> lane : lanes) {
+            Thread worker = new Thread(() -> drain(lane), "oss-write-behind-" + THREAD_NUMBER.incrementAndGet());
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * 写入本地日志后立即返回，稍后上传
+     *
+     * @param objectName  文件名称
+     * @param data        文件内容
+     * @param contextType 类型
+     */
+    public void enqueuePut(String objectName, byte[] data, String contextType) {
+        enqueuePut(ossTemplate.getBucketName(), objectName, data, contextType);
+    }
+
+    /**
+     * 读取文件流写入本地日志后返回，稍后上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param stream      文件流
+     * @param contextType 类型
+     */
+    public void enqueuePut(String bucketName, String objectName, InputStream stream, String contextType)
+            throws IOException {
+        enqueuePut(bucketName, objectName, StreamUtils.copyToByteArray(stream), contextType);
+    }
+
+    /**
+     * 写入本地日志后立即返回，稍后上传
+     *
+     * @param bucketName  bucket名称
+     * @param objectName  文件名称
+     * @param data        文件内容
+     * @param contextType 类型
+     */
+    public void enqueuePut(String bucketName, String objectName, byte[] data, String contextType) {
+        if (closed) {
+            throw new IllegalStateException("异步写入队列已关闭");
+        }
+        // 入队顺序与日志顺序一致，同一对象的最新序号才不会被较旧的写入覆盖
+        synchronized (this) {
+            WriteBehindJournal.JournalEntry entry;
+            try {
+                entry = journal.append(bucketName, objectName, contextType, data);
+            } catch (IOException e) {
+                throw new SdkClientException("写入本地日志失败: " + bucketName + "/" + objectName, e);
+            }
+            dispatch(entry);
+        }
+    }
+
+    /**
+     * 等待已入队的条目全部上传或丢弃
+     *
+     * @return 超时前是否全部完成
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (!pending.isEmpty()) {
+            if (System.nanoTime() - deadline >= 0) {
+                return false;
+            }
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    /**
+     * @return 未上传的条目数
+     */
+    public int getQueueDepth() {
+        return pending.size();
+    }
+
+    /**
+     * @return 本地日志占用的字节数，包括已上传但所在段尚未删除的条目
+     */
+    public long getSpoolBytes() {
+        return journal.getSpoolBytes();
+    }
+
+    /**
+     * @return 最早未上传条目的入队时长，单位毫秒，队列为空时为 0
+     */
+    public long getDrainLagMillis() {
+        Map.Entry<Long, WriteBehindJournal.JournalEntry> oldest = pending.firstEntry();
+        return oldest == null ? 0 : Math.max(0, System.currentTimeMillis() - oldest.getValue().timestamp);
+    }
+
+    public long getUploadedCount() {
+        return uploaded.sum();
+    }
+
+    /**
+     * @return 因同一对象有更新的写入而跳过的条目数
+     */
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getRetryCount() {
+        return retries.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    /**
+     * 停止上传线程，未上传的条目保留在本地日志中，下次启动继续上传
+     * <p>
+     * 不中断上传线程：中断正在读取日志的线程会关闭所有线程共用的 FileChannel，正在进行的上传等待其完成。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        shutdown.countDown();
+        lanes.forEach(lane -> lane.add(SHUTDOWN));
+        for (Thread worker : workers) {
+            try {
+                worker.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        try {
+            journal.close();
+        } catch (IOException ignored) {
+            // 日志已写入，关闭失败不影响恢复
+        }
+    }
+
+    private void dispatch(WriteBehindJournal.JournalEntry entry) {
+        String id = id(entry);
+        latest.put(id, entry.seq);
+        pending.put(entry.seq, entry);
+        lanes.get(Math.floorMod(id.hashCode(), lanes.size())).add(entry);
+    }
+
+    private void drain(BlockingQueue<WriteBehindJournal.JournalEntry> lane) {
+        while (!closed) {
+            WriteBehindJournal.JournalEntry entry;
+            try {
+                entry = lane.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (entry == SHUTDOWN || !upload(entry)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 队列关闭时返回 false，条目保留在日志中
+     */
+    private boolean upload(WriteBehindJournal.JournalEntry entry) {
+        String id = id(entry);
+        long backoff = Math.max(1, properties.getInitialBackoff());
+        for (int attempt = 1; ; attempt++) {
+            Long newest = latest.get(id);
+            if (newest != null && newest != entry.seq) {
+                coalesced.increment();
+                break;
+            }
+            try {
+                byte[] data = journal.read(entry);
+                ossTemplate.putObject(entry.bucketName, entry.objectName, new ByteArrayInputStream(data), data.length,
+                        entry.contentType == null ? DEFAULT_CONTENT_TYPE : entry.contentType);
+                uploaded.increment();
+                break;
+            } catch (IOException e) {
+                if (closed || e instanceof ClosedChannelException) {
+                    // 日志已关闭，条目保留到下次启动
+                    return false;
+                }
+                // 本地日志损坏，无法重试
+                failed.increment();
+                break;
+            } catch (RuntimeException e) {
+                if (closed) {
+                    return false;
+                }
+                if (!isTransient(e) && attempt >= properties.getMaxAttempts()) {
+                    failed.increment();
+                    break;
+                }
+                retries.increment();
+                try {
+                    if (shutdown.await(backoff, TimeUnit.MILLISECONDS)) {
+                        return false;
+                    }
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                backoff = Math.min(backoff * 2, Math.max(backoff, properties.getMaxBackoff()));
+            }
+        }
+        latest.remove(id, entry.seq);
+        try {
+            journal.ack(entry);
+        } catch (IOException ignored) {
+            // ACK 未写入时重启后重新上传，PUT 可以重复执行
+        }
+        pending.remove(entry.seq);
+        return true;
+    }
+
+    /**
+     * 服务端故障、限流、超时与网络错误可以一直重试
+     */
+    private static boolean isTransient(RuntimeException e) {
+        if (e instanceof AmazonServiceException) {
+            int statusCode = ((AmazonServiceException) e).getStatusCode();
+            if (statusCode == 429 || statusCode == 408) {
+                return true;
+            }
+        }
+        return EndpointHealth.isEndpointFailure(e);
+    }
+
+    private static String id(WriteBehindJournal.JournalEntry entry) {
+        return entry.bucketName + "/" + entry.objectName;
+    }
+}
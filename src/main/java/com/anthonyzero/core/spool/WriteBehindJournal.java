@@ -0,0 +1,345 @@
+package com.anthonyzero.core.spool;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * 只追加的本地日志，按大小滚动为多个段文件
+ * <p>
+ * 入队写入 PUT 记录，上传完成写入 ACK 记录，每条记录以 CRC32 结尾。重启时按顺序扫描全部段文件，
+ * 没有 ACK 的 PUT 即为待上传条目，末尾不完整的记录被截断。ACK 总是写在对应 PUT 所在段或之后的段中，
+ * 因此只删除最旧的、全部确认的连续段，避免删除 ACK 后旧的 PUT 被重新上传。
+ */
+final class WriteBehindJournal implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final byte PUT = 1;
+
+    private static final byte ACK = 2;
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean sync;
+
+    private final TreeMap<Long, Segment> segments = new TreeMap<>();
+
+    private Segment active;
+
+    private long nextSeq = 1;
+
+    private long spoolBytes;
+
+    WriteBehindJournal(Path directory, long segmentSize, boolean sync) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.sync = sync;
+    }
+
+    /**
+     * 扫描已有的段文件并打开新的段用于追加
+     *
+     * @return 按写入顺序排列的待上传条目
+     */
+    synchronized List<JournalEntry> recover() throws IOException {
+        Files.createDirectories(directory);
+        Map<Long, JournalEntry> pending = new LinkedHashMap<>();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        files.sort(Comparator.comparingLong(WriteBehindJournal::segmentId));
+        long lastId = 0;
+        for (Path file : files) {
+            long id = segmentId(file);
+            Segment segment = new Segment(id, file);
+            segments.put(id, segment);
+            scan(segment, pending);
+            spoolBytes += segment.size;
+            lastId = id;
+        }
+        pending.values().forEach(entry -> entry.segment.unacked++);
+        active = openSegment(lastId + 1);
+        deleteAcknowledged();
+        return new ArrayList<>(pending.values());
+    }
+
+    synchronized JournalEntry append(String bucketName, String objectName, String contentType, byte[] data)
+            throws IOException {
+        if (active.size >= segmentSize) {
+            active = openSegment(active.id + 1);
+        }
+        long seq = nextSeq++;
+        long timestamp = System.currentTimeMillis();
+        ByteArrayOutputStream record = new ByteArrayOutputStream(data.length + 128);
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(PUT);
+        out.writeLong(seq);
+        out.writeLong(timestamp);
+        out.writeUTF(bucketName);
+        out.writeUTF(objectName);
+        out.writeUTF(contentType == null ? "" : contentType);
+        out.writeInt(data.length);
+        long dataOffset = active.size + out.size();
+        out.write(data);
+        write(record);
+        JournalEntry entry = new JournalEntry(seq, timestamp, bucketName, objectName, contentType, active,
+                dataOffset, data.length);
+        active.unacked++;
+        return entry;
+    }
+
+    byte[] read(JournalEntry entry) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+        long position = entry.dataOffset;
+        while (buffer.hasRemaining()) {
+            int n = entry.segment.channel.read(buffer, position + buffer.position());
+            if (n < 0) {
+                throw new EOFException("日志 " + entry.segment.file + " 不完整");
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * 记录条目已上传，并删除最旧的全部确认的段
+     */
+    synchronized void ack(JournalEntry entry) throws IOException {
+        if (active.size >= segmentSize) {
+            active = openSegment(active.id + 1);
+        }
+        ByteArrayOutputStream record = new ByteArrayOutputStream(16);
+        DataOutputStream out = new DataOutputStream(record);
+        out.writeByte(ACK);
+        out.writeLong(entry.seq);
+        write(record);
+        entry.segment.unacked--;
+        deleteAcknowledged();
+    }
+
+    synchronized long getSpoolBytes() {
+        return spoolBytes;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    private void write(ByteArrayOutputStream record) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = record.toByteArray();
+        crc.update(bytes, 0, bytes.length);
+        ByteBuffer buffer = ByteBuffer.allocate(bytes.length + 4);
+        buffer.put(bytes).putInt((int) crc.getValue()).flip();
+        long position = active.size;
+        while (buffer.hasRemaining()) {
+            position += active.channel.write(buffer, position);
+        }
+        if (sync) {
+            active.channel.force(false);
+        }
+        spoolBytes += position - active.size;
+        active.size = position;
+    }
+
+    private void scan(Segment segment, Map<Long, JournalEntry> pending) throws IOException {
+        CountingInputStream counting = new CountingInputStream(new BufferedInputStream(
+                Channels.newInputStream(segment.channel), 64 * 1024));
+        DataInputStream in = new DataInputStream(counting);
+        long valid = 0;
+        while (true) {
+            try {
+                CRC32 crc = new CRC32();
+                counting.crc = crc;
+                byte type = in.readByte();
+                long seq = in.readLong();
+                if (type == PUT) {
+                    long timestamp = in.readLong();
+                    String bucketName = in.readUTF();
+                    String objectName = in.readUTF();
+                    String contentType = in.readUTF();
+                    int length = in.readInt();
+                    long dataOffset = counting.count;
+                    skipFully(in, length);
+                    counting.crc = null;
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    pending.put(seq, new JournalEntry(seq, timestamp, bucketName, objectName,
+                            contentType.isEmpty() ? null : contentType, segment, dataOffset, length));
+                } else if (type == ACK) {
+                    counting.crc = null;
+                    if (in.readInt() != (int) crc.getValue()) {
+                        break;
+                    }
+                    pending.remove(seq);
+                } else {
+                    break;
+                }
+                nextSeq = Math.max(nextSeq, seq + 1);
+                valid = counting.count;
+            } catch (EOFException e) {
+                break;
+            }
+        }
+        // 截断写入中断的记录
+        if (valid < segment.channel.size()) {
+            segment.channel.truncate(valid);
+        }
+        segment.size = valid;
+    }
+
+    private Segment openSegment(long id) throws IOException {
+        Segment segment = new Segment(id, directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, id,
+                SEGMENT_SUFFIX)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void deleteAcknowledged() throws IOException {
+        while (!segments.isEmpty()) {
+            Segment oldest = segments.firstEntry().getValue();
+            if (oldest == active || oldest.unacked > 0) {
+                return;
+            }
+            segments.pollFirstEntry();
+            oldest.channel.close();
+            Files.deleteIfExists(oldest.file);
+            spoolBytes -= oldest.size;
+        }
+    }
+
+    private static void skipFully(DataInputStream in, int length) throws IOException {
+        int remaining = length;
+        while (remaining > 0) {
+            int skipped = in.skipBytes(remaining);
+            if (skipped <= 0) {
+                in.readByte();
+                skipped = 1;
+            }
+            remaining -= skipped;
+        }
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    static final class Segment {
+
+        private final long id;
+
+        private final Path file;
+
+        private final FileChannel channel;
+
+        private long size;
+
+        private int unacked;
+
+        private Segment(long id, Path file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            this.size = channel.size();
+        }
+    }
+
+    static final class JournalEntry {
+
+        final long seq;
+
+        final long timestamp;
+
+        final String bucketName;
+
+        final String objectName;
+
+        final String contentType;
+
+        private final Segment segment;
+
+        private final long dataOffset;
+
+        final int length;
+
+        private JournalEntry(long seq, long timestamp, String bucketName, String objectName, String contentType,
+                             Segment segment, long dataOffset, int length) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.bucketName = bucketName;
+            this.objectName = objectName;
+            this.contentType = contentType;
+            this.segment = segment;
+            this.dataOffset = dataOffset;
+            this.length = length;
+        }
+
+        /**
+         * 不对应日志记录的标记条目
+         */
+        static JournalEntry marker() {
+            return new JournalEntry(0, 0, null, null, null, null, 0, 0);
+        }
+    }
+
+    /**
+     * 记录已读取的字节数，并在需要时计算 CRC32
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        private CRC32 crc;
+
+        private CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+                if (crc != null) {
+                    crc.update(b);
+                }
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+                if (crc != null) {
+                    crc.update(b, off, n);
+                }
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            // 跳过的内容也要计入 CRC32
+            byte[] buffer = new byte[(int) Math.min(n, 8192)];
+            int read = read(buffer, 0, buffer.length);
+            return Math.max(read, 0);
+        }
+    }
+}
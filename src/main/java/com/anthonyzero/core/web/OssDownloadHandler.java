@@ -0,0 +1,240 @@
+package com.anthonyzero.core.web;
+
+import com.amazonaws.services.s3.model.*;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.DownloadMode;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.Date;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 将对象写入 Servlet 响应，可以在 Controller 中直接调用
+ * <p>
+ * 转发模式下 Range（单个区间）、If-None-Match、If-Modified-Since 透传给对象存储，响应 206、304 由对象存储决定，
+ * 只传输需要的字节；内容经池化的大缓冲区写出，客户端断开时立即中止对象存储连接。
+ * 压缩或客户端加密的对象字节区间与原始内容不对应，忽略 Range 返回解码后的完整内容。
+ * 重定向模式下返回 302 到预签名地址，Range 与缓存由浏览器与对象存储直接协商。
+ */
+public class OssDownloadHandler {
+
+    private static final Pattern RANGE_PATTERN = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+
+    private static final int HTTP_NOT_FOUND = 404;
+
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+
+    private final OssTemplate ossTemplate;
+
+    private final OssProperties.Download properties;
+
+    private final BlockingQueue<byte[]> buffers;
+
+    public OssDownloadHandler(OssTemplate ossTemplate, OssProperties.Download properties) {
+        this.ossTemplate = ossTemplate;
+        this.properties = properties;
+        this.buffers = new ArrayBlockingQueue<>(Math.max(1, properties.getPooledBuffers()));
+    }
+
+    /**
+     * 按配置的方式响应对象，对象不存在时返回 404
+     *
+     * @param bucketName bucket名称
+     * @param objectName 文件名称
+     */
+    public void handle(String bucketName, String objectName, HttpServletRequest request,
+                       HttpServletResponse response) throws IOException {
+        if (properties.getMode() == DownloadMode.REDIRECT) {
+            response.sendRedirect(ossTemplate.getObjectUrl(bucketName, objectName, properties.getExpiry(),
+                    TimeUnit.SECONDS));
+            return;
+        }
+        try {
+            if ("HEAD".equals(request.getMethod())) {
+                ObjectMetadata objectMetadata = ossTemplate.getObjectMetadata(bucketName, objectName);
+                writeHeaders(response, objectMetadata, !ossTemplate.isEncoded(objectMetadata));
+                return;
+            }
+            stream(bucketName, objectName, request, response);
+        } catch (AmazonS3Exception e) {
+            if (e.getStatusCode() == HTTP_NOT_FOUND) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            } else if (e.getStatusCode() == HTTP_RANGE_NOT_SATISFIABLE) {
+                response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private void stream(String bucketName, String objectName, HttpServletRequest request,
+                        HttpServletResponse response) throws IOException {
+        GetObjectRequest getObjectRequest = new GetObjectRequest(bucketName, objectName);
+        String ifNoneMatch = request.getHeader("If-None-Match");
+        if (ifNoneMatch != null) {
+            getObjectRequest.setNonmatchingETagConstraints(Collections.singletonList(ifNoneMatch));
+        } else {
+            Date ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+            if (ifModifiedSince != null) {
+                getObjectRequest.setModifiedSinceConstraint(ifModifiedSince);
+            }
+        }
+        if (!applyRange(getObjectRequest, request.getHeader("Range"))) {
+            response.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+            return;
+        }
+        S3Object s3Object = ossTemplate.getOssClient().getObject(getObjectRequest);
+        if (s3Object == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        ObjectMetadata objectMetadata = s3Object.getObjectMetadata();
+        if (!ossTemplate.isEncoded(objectMetadata)) {
+            writeHeaders(response, objectMetadata, true);
+        } else if (objectMetadata.getContentRange() == null) {
+            s3Object = ossTemplate.decode(s3Object);
+            writeHeaders(response, s3Object.getObjectMetadata(), false);
+        } else {
+            // 区间与解码后的内容不对应，只有带 Range 的请求需要重新下载完整对象
+            s3Object.getObjectContent().abort();
+            closeQuietly(s3Object);
+            s3Object = ossTemplate.getObject(bucketName, objectName);
+            writeHeaders(response, s3Object.getObjectMetadata(), false);
+        }
+        copy(s3Object, response);
+    }
+
+    /**
+     * 设置请求区间；单个区间以外的写法按 RFC 7233 忽略
+     *
+     * @return 区间无法满足时返回 false
+     */
+    private boolean applyRange(GetObjectRequest getObjectRequest, String range) {
+        if (range == null) {
+            return true;
+        }
+        Matcher matcher = RANGE_PATTERN.matcher(range.trim());
+        if (!matcher.matches() || matcher.group(1).isEmpty() && matcher.group(2).isEmpty()) {
+            return true;
+        }
+        try {
+            if (matcher.group(1).isEmpty()) {
+                long suffix = Long.parseLong(matcher.group(2));
+                if (suffix == 0) {
+                    return false;
+                }
+                // SDK 不支持后缀 Range，这里用自定义请求头覆盖；保留 range 参数使 SDK 跳过整对象 MD5 校验，
+                // 实际区间与对象长度从响应的 Content-Range 获得
+                getObjectRequest.setRange(0, suffix - 1);
+                getObjectRequest.putCustomRequestHeader("Range", "bytes=-" + suffix);
+            } else if (matcher.group(2).isEmpty()) {
+                getObjectRequest.setRange(Long.parseLong(matcher.group(1)));
+            } else {
+                long start = Long.parseLong(matcher.group(1));
+                long end = Long.parseLong(matcher.group(2));
+                if (end < start) {
+                    return true;
+                }
+                getObjectRequest.setRange(start, end);
+            }
+        } catch (NumberFormatException e) {
+            return true;
+        }
+        return true;
+    }
+
+    private static void writeHeaders(HttpServletResponse response, ObjectMetadata objectMetadata, boolean raw) {
+        if (objectMetadata.getContentRange() != null) {
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader("Content-Range", "bytes " + objectMetadata.getContentRange()[0] + "-"
+                    + objectMetadata.getContentRange()[1] + "/" + objectMetadata.getInstanceLength());
+        }
+        response.setContentType(objectMetadata.getContentType() == null ? "application/octet-stream"
+                : objectMetadata.getContentType());
+        if (raw) {
+            response.setContentLengthLong(objectMetadata.getContentLength());
+            response.setHeader("Accept-Ranges", "bytes");
+        }
+        if (objectMetadata.getETag() != null) {
+            response.setHeader("ETag", "\"" + objectMetadata.getETag() + "\"");
+        }
+        if (objectMetadata.getLastModified() != null) {
+            response.setDateHeader("Last-Modified", objectMetadata.getLastModified().getTime());
+        }
+        if (objectMetadata.getCacheControl() != null) {
+            response.setHeader("Cache-Control", objectMetadata.getCacheControl());
+        }
+        if (objectMetadata.getContentDisposition() != null) {
+            response.setHeader("Content-Disposition", objectMetadata.getContentDisposition());
+        }
+    }
+
+    /**
+     * 读取失败时中止连接并抛出；写出失败说明客户端已断开，中止连接后直接返回
+     */
+    private void copy(S3Object s3Object, HttpServletResponse response) throws IOException {
+        S3ObjectInputStream content = s3Object.getObjectContent();
+        byte[] buffer = acquire();
+        boolean completed = false;
+        try {
+            OutputStream out = response.getOutputStream();
+            int length;
+            while ((length = content.read(buffer)) >= 0) {
+                try {
+                    out.write(buffer, 0, length);
+                } catch (IOException e) {
+                    return;
+                }
+            }
+            completed = true;
+            try {
+                out.flush();
+            } catch (IOException ignored) {
+                // 客户端已断开
+            }
+        } finally {
+            if (!completed) {
+                content.abort();
+            }
+            closeQuietly(s3Object);
+            release(buffer);
+        }
+    }
+
+    private byte[] acquire() {
+        byte[] buffer = buffers.poll();
+        return buffer != null ? buffer : new byte[properties.getBufferSize()];
+    }
+
+    private void release(byte[] buffer) {
+        if (buffer.length == properties.getBufferSize()) {
+            buffers.offer(buffer);
+        }
+    }
+
+    private static Date getDateHeader(HttpServletRequest request, String name) {
+        try {
+            long value = request.getDateHeader(name);
+            return value < 0 ? null : new Date(value);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(S3Object s3Object) {
+        try {
+            s3Object.close();
+        } catch (IOException ignored) {
+            // 连接已中止
+        }
+    }
+}
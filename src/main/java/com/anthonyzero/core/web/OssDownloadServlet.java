@@ -0,0 +1,66 @@
+package com.anthonyzero.core.web;
+
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * 以映射路径的剩余部分作为对象名称的下载 Servlet，只允许下载配置前缀下的对象
+ */
+public class OssDownloadServlet extends HttpServlet {
+
+    private final OssDownloadHandler downloadHandler;
+
+    private final OssProperties.Download properties;
+
+    private final String bucketName;
+
+    public OssDownloadServlet(OssDownloadHandler downloadHandler, OssProperties.Download properties,
+                              String bucketName) {
+        this.downloadHandler = downloadHandler;
+        this.properties = properties;
+        this.bucketName = bucketName;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String objectName = objectName(request);
+        if (objectName == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        downloadHandler.handle(bucketName, objectName, request, response);
+    }
+
+    @Override
+    protected void doHead(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        doGet(request, response);
+    }
+
+    /**
+     * @return 对象名称，不允许下载时返回 null
+     */
+    private String objectName(HttpServletRequest request) {
+        String pathInfo = request.getPathInfo();
+        if (pathInfo == null || pathInfo.length() <= 1) {
+            return null;
+        }
+        String objectName = pathInfo.substring(1);
+        // 防止通过 .. 跳出允许的前缀
+        if (("/" + objectName + "/").contains("/../") || objectName.startsWith("/")) {
+            return null;
+        }
+        if (properties.getPrefixes().isEmpty()) {
+            return objectName;
+        }
+        for (String prefix : properties.getPrefixes()) {
+            if (objectName.startsWith(prefix)) {
+                return objectName;
+            }
+        }
+        return null;
+    }
+}
@@ -1,22 +1,46 @@
 package com.anthonyzero.spring.boot.autoconfigure;
 
-import com.amazonaws.ClientConfiguration;
-import com.amazonaws.auth.AWSCredentials;
-import com.amazonaws.auth.AWSCredentialsProvider;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.s3.AmazonS3;
-import com.amazonaws.services.s3.AmazonS3Client;
 import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.LazyOssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.S3AsyncOssClient;
+import com.anthonyzero.core.codec.OssCodec;
+import com.anthonyzero.core.codec.OssCodecRegistry;
+import com.anthonyzero.core.crypto.LocalKeyProvider;
+import com.anthonyzero.core.crypto.OssEncryptor;
+import com.anthonyzero.core.crypto.OssKeyProvider;
+import com.anthonyzero.core.hedge.HedgingOssClient;
+import com.anthonyzero.core.hedge.OssHedgeMeterBinder;
+import com.anthonyzero.core.pack.OssPackStore;
+import com.anthonyzero.core.routing.EndpointHealth;
+import com.anthonyzero.core.routing.FailoverOssClient;
+import com.anthonyzero.core.routing.HealthTrackingOssClient;
+import com.anthonyzero.core.routing.OssTemplateRegistry;
+import com.anthonyzero.core.spool.OssWriteBehindMeterBinder;
+import com.anthonyzero.core.spool.OssWriteBehindQueue;
 import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.DestructionAwareBeanPostProcessor;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationListener;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Configuration(proxyBeanMethods = false)
 @EnableConfigurationProperties({ OssProperties.class })
@@ -24,24 +48,267 @@ import org.springframework.context.annotation.Configuration;
 @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "enable", havingValue = "true", matchIfMissing = true)
 public class OssAutoConfiguration {
 
+    /**
+     * 由 {@link #amazonS3OssClient} 按需创建，启用 oss.lazy-init 时推迟到首次请求
+     */
     @Bean
+    @Lazy
     @ConditionalOnMissingBean(AmazonS3.class)
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "engine", havingValue = "v1", matchIfMissing = true)
     public AmazonS3 amazonS3(OssProperties properties) {
-        ClientConfiguration clientConfiguration = new ClientConfiguration();
-        AwsClientBuilder.EndpointConfiguration endpointConfiguration = new AwsClientBuilder.EndpointConfiguration(
-                properties.getEndpoint(), properties.getRegion());
-        AWSCredentials awsCredentials = new BasicAWSCredentials(properties.getAccessKey(),
-                properties.getSecretKey());
-        AWSCredentialsProvider awsCredentialsProvider = new AWSStaticCredentialsProvider(awsCredentials);
-        return AmazonS3Client.builder().withEndpointConfiguration(endpointConfiguration)
-                .withClientConfiguration(clientConfiguration).withCredentials(awsCredentialsProvider)
-                .disableChunkedEncoding().withPathStyleAccessEnabled(properties.getPathStyleAccess()).build();
+        return OssClientFactory.amazonS3(properties);
     }
 
     @Bean
-    @ConditionalOnMissingBean(OssTemplate.class)
+    @ConditionalOnMissingBean(OssClient.class)
     @ConditionalOnBean(AmazonS3.class)
-    public OssTemplate ossTemplate(OssProperties properties, AmazonS3 amazonS3) {
-        return new OssTemplate(properties, amazonS3);
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "engine", havingValue = "v1", matchIfMissing = true)
+    public OssClient amazonS3OssClient(OssProperties properties, ObjectProvider<AmazonS3> amazonS3) {
+        if (properties.getLazyInit().isEnabled()) {
+            return new LazyOssClient(() -> new AmazonS3OssClient(amazonS3.getObject()));
+        }
+        return new AmazonS3OssClient(amazonS3.getObject());
+    }
+
+    /**
+     * oss.lazy-init.enabled=true 时在应用启动完成后于后台创建默认客户端，oss.lazy-init.warm-up=false 时关闭
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "lazy-init.enabled", havingValue = "true")
+    public ApplicationListener<ApplicationReadyEvent> ossClientWarmUp(OssProperties properties,
+                                                                      ObjectProvider<OssClient> ossClient) {
+        return new ApplicationListener<ApplicationReadyEvent>() {
+            @Override
+            public void onApplicationEvent(ApplicationReadyEvent event) {
+                OssClient client = ossClient.getIfUnique();
+                // 启用对冲时默认客户端被包装
+                while (client instanceof HedgingOssClient) {
+                    client = ((HedgingOssClient) client).getDelegate();
+                }
+                if (properties.getLazyInit().isWarmUp() && client instanceof LazyOssClient) {
+                    ((LazyOssClient) client).warmUpAsync();
+                }
+            }
+        };
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OssCodecRegistry.class)
+    public OssCodecRegistry ossCodecRegistry(ObjectProvider<OssCodec> codecs) {
+        OssCodecRegistry registry = OssCodecRegistry.defaults();
+        codecs.orderedStream().forEach(registry::register);
+        return registry;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OssKeyProvider.class)
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "encryption.enabled", havingValue = "true")
+    public OssKeyProvider ossKeyProvider(OssProperties properties) {
+        return new LocalKeyProvider(properties.getEncryption().getLocalKeys());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean(OssTemplate.class)
+    @ConditionalOnBean(OssClient.class)
+    public OssTemplate ossTemplate(OssProperties properties, OssClient ossClient, OssCodecRegistry codecRegistry,
+                                   ObjectProvider<OssKeyProvider> keyProvider) {
+        return configure(new OssTemplate(properties, ossClient), properties, codecRegistry, keyProvider);
+    }
+
+    /**
+     * oss.hedge.enabled=true 时把默认客户端包装为对冲客户端，包装后的客户端即 OssClient bean
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "hedge.enabled", havingValue = "true")
+    public static HedgingPostProcessor ossClientHedgingPostProcessor(ObjectProvider<OssProperties> properties) {
+        return new HedgingPostProcessor(properties);
+    }
+
+    /**
+     * 小对象打包存储，关闭时上传未写满的 pack
+     */
+    @Bean
+    @ConditionalOnMissingBean(OssPackStore.class)
+    @ConditionalOnBean(OssTemplate.class)
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "pack.enabled", havingValue = "true")
+    public OssPackStore ossPackStore(OssProperties properties, OssTemplate ossTemplate) {
+        return new OssPackStore(properties, ossTemplate);
+    }
+
+    /**
+     * 异步写入队列，启动时上传本地日志中未完成的条目，关闭时未上传的条目保留到下次启动
+     */
+    @Bean
+    @ConditionalOnMissingBean(OssWriteBehindQueue.class)
+    @ConditionalOnBean(OssTemplate.class)
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "write-behind.enabled", havingValue = "true")
+    public OssWriteBehindQueue ossWriteBehindQueue(OssProperties properties, OssTemplate ossTemplate) {
+        return new OssWriteBehindQueue(properties, ossTemplate);
+    }
+
+    /**
+     * oss.clients.* 配置的命名客户端，每个客户端使用独立的连接池并记录端点健康评分，配置了副本的客户端读取可切换到副本
+     */
+    @Bean
+    @ConditionalOnMissingBean(OssTemplateRegistry.class)
+    public OssTemplateRegistry ossTemplateRegistry(OssProperties properties, ObjectProvider<OssTemplate> ossTemplate,
+                                                   OssCodecRegistry codecRegistry,
+                                                   ObjectProvider<OssKeyProvider> keyProvider) {
+        OssTemplateRegistry registry = new OssTemplateRegistry(ossTemplate.getIfAvailable());
+        Map<String, OssProperties> profiles = new LinkedHashMap<>();
+        Map<String, HealthTrackingOssClient> clients = new LinkedHashMap<>();
+        try {
+            properties.getClients().forEach((name, client) -> {
+                OssProperties profile = OssClientFactory.profileProperties(properties, client);
+                profiles.put(name, profile);
+                clients.put(name, new HealthTrackingOssClient(OssClientFactory.create(profile),
+                        new EndpointHealth(name, properties.getHealth())));
+            });
+            properties.getClients().forEach((name, client) -> {
+                HealthTrackingOssClient primary = clients.get(name);
+                OssClient ossClient = primary;
+                if (StringUtils.hasText(client.getReplica())) {
+                    HealthTrackingOssClient replica = clients.get(client.getReplica());
+                    if (replica == null || replica == primary) {
+                        throw new IllegalStateException("客户端 " + name + " 的副本配置无效: " + client.getReplica());
+                    }
+                    ossClient = new FailoverOssClient(primary, replica);
+                }
+                OssProperties profile = profiles.get(name);
+                OssTemplate template = new OssTemplate(profile, hedging(ossClient, properties));
+                registry.register(name, configure(template, profile, codecRegistry, keyProvider), primary.getHealth(),
+                        client.getBuckets(), client.getTenants());
+            });
+        } catch (RuntimeException e) {
+            clients.values().forEach(OssClient::close);
+            throw e;
+        }
+        return registry;
+    }
+
+    /**
+     * oss.hedge.enabled=true 时对读取请求启用对冲，命名客户端在副本切换之外包装，对冲请求同样可以切换到副本
+     */
+    private static OssClient hedging(OssClient ossClient, OssProperties properties) {
+        return properties.getHedge().isEnabled() ? new HedgingOssClient(ossClient, properties.getHedge())
+                : ossClient;
+    }
+
+    /**
+     * 包装 OssClient bean 并在容器关闭时关闭对冲线程池
+     * <p>
+     * 容器按包装前的实例登记销毁回调，被包装的客户端仍由容器关闭，这里只关闭包装时创建的线程池
+     */
+    static final class HedgingPostProcessor implements DestructionAwareBeanPostProcessor {
+
+        private final ObjectProvider<OssProperties> properties;
+
+        private final Map<Object, HedgingOssClient> wrappers = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        HedgingPostProcessor(ObjectProvider<OssProperties> properties) {
+            this.properties = properties;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof OssClient && !(bean instanceof HedgingOssClient)) {
+                HedgingOssClient hedgingOssClient = new HedgingOssClient((OssClient) bean,
+                        properties.getObject().getHedge());
+                wrappers.put(bean, hedgingOssClient);
+                return hedgingOssClient;
+            }
+            return bean;
+        }
+
+        @Override
+        public boolean requiresDestruction(Object bean) {
+            return wrappers.containsKey(bean);
+        }
+
+        @Override
+        public void postProcessBeforeDestruction(Object bean, String beanName) {
+            HedgingOssClient hedgingOssClient = wrappers.remove(bean);
+            if (hedgingOssClient != null) {
+                hedgingOssClient.shutdown();
+            }
+        }
+    }
+
+    private static OssTemplate configure(OssTemplate ossTemplate, OssProperties properties,
+                                         OssCodecRegistry codecRegistry, ObjectProvider<OssKeyProvider> keyProvider) {
+        ossTemplate.setCodecRegistry(codecRegistry);
+        keyProvider.ifAvailable(provider -> ossTemplate.setEncryptor(
+                new OssEncryptor(provider, properties.getEncryption().getFrameSize())));
+        return ossTemplate;
+    }
+
+    /**
+     * 引入 micrometer-core 且启用对冲时注册对冲指标，默认客户端的 client 标签为 default
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "hedge.enabled", havingValue = "true")
+    public static class HedgeMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(OssHedgeMeterBinder.class)
+        public OssHedgeMeterBinder ossHedgeMeterBinder(ObjectProvider<OssTemplate> ossTemplate,
+                                                       ObjectProvider<OssTemplateRegistry> registry) {
+            OssHedgeMeterBinder binder = new OssHedgeMeterBinder();
+            ossTemplate.ifAvailable(template -> addStats(binder, "default", template));
+            registry.ifAvailable(templates -> templates.getNames().forEach(
+                    name -> addStats(binder, name, templates.getTemplate(name))));
+            return binder;
+        }
+
+        private static void addStats(OssHedgeMeterBinder binder, String name, OssTemplate ossTemplate) {
+            if (ossTemplate.getOssClient() instanceof HedgingOssClient) {
+                binder.add(name, ((HedgingOssClient) ossTemplate.getOssClient()).getStats());
+            }
+        }
+    }
+
+    /**
+     * 引入 micrometer-core 且启用异步写入队列时注册队列指标
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "write-behind.enabled", havingValue = "true")
+    public static class WriteBehindMetricsConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(OssWriteBehindMeterBinder.class)
+        public OssWriteBehindMeterBinder ossWriteBehindMeterBinder(ObjectProvider<OssWriteBehindQueue> queue) {
+            return new OssWriteBehindMeterBinder(queue.getIfAvailable());
+        }
+    }
+
+    /**
+     * oss.engine=v2-async 时基于 AWS SDK v2 S3AsyncClient 与 Netty 非阻塞 HTTP 客户端创建引擎，
+     * 需要引入 software.amazon.awssdk:s3 与 netty-nio-client；也可以自行注册 S3AsyncClient，如使用 CRT 客户端
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = { "software.amazon.awssdk.services.s3.S3AsyncClient",
+            "software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient" })
+    @ConditionalOnProperty(prefix = OssProperties.PREFIX, name = "engine", havingValue = "v2-async")
+    public static class S3AsyncClientConfiguration {
+
+        @Bean
+        @ConditionalOnMissingBean(S3AsyncClient.class)
+        public S3AsyncClient s3AsyncClient(OssProperties properties) {
+            return OssClientFactory.S3AsyncClients.s3AsyncClient(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(S3Presigner.class)
+        public S3Presigner s3Presigner(OssProperties properties) {
+            return OssClientFactory.S3AsyncClients.s3Presigner(properties);
+        }
+
+        @Bean
+        @ConditionalOnMissingBean(OssClient.class)
+        public OssClient s3AsyncOssClient(S3AsyncClient s3AsyncClient, S3Presigner s3Presigner) {
+            return new S3AsyncOssClient(s3AsyncClient, s3Presigner);
+        }
     }
 }
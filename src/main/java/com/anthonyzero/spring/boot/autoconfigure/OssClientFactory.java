@@ -0,0 +1,155 @@
+package com.anthonyzero.spring.boot.autoconfigure;
+
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.auth.AWSCredentials;
+import com.amazonaws.auth.AWSCredentialsProvider;
+import com.amazonaws.auth.AWSStaticCredentialsProvider;
+import com.amazonaws.auth.BasicAWSCredentials;
+import com.amazonaws.client.builder.AwsClientBuilder;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.S3AsyncOssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.OssEngine;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * 按配置创建 SDK 客户端与命名客户端，自动配置与命名客户端共用同一套创建逻辑；
+ * 命名客户端在关闭时一并释放底层 SDK 客户端
+ */
+final class OssClientFactory {
+
+    private OssClientFactory() {
+    }
+
+    /**
+     * 命名客户端的完整配置：连接相关的配置取自 client，校验、压缩、加密等配置与默认客户端共用
+     */
+    static OssProperties profileProperties(OssProperties defaults, OssProperties.Client client) {
+        OssProperties properties = new OssProperties();
+        properties.setEndpoint(client.getEndpoint());
+        properties.setCustomDomain(client.getCustomDomain());
+        properties.setPathStyleAccess(client.getPathStyleAccess());
+        properties.setRegion(client.getRegion());
+        properties.setAccessKey(client.getAccessKey());
+        properties.setSecretKey(client.getSecretKey());
+        properties.setBucketName(client.getBucketName());
+        properties.setEngine(client.getEngine());
+        properties.setMaxConnections(client.getMaxConnections());
+        OssProperties.Async async = new OssProperties.Async();
+        async.setMaxConcurrency(client.getMaxConnections());
+        async.setMaxPendingConnectionAcquires(defaults.getAsync().getMaxPendingConnectionAcquires());
+        async.setConnectionTimeout(defaults.getAsync().getConnectionTimeout());
+        properties.setAsync(async);
+        properties.setHealth(defaults.getHealth());
+        properties.setBucketCache(defaults.getBucketCache());
+        properties.setChannel(defaults.getChannel());
+        properties.setChecksum(defaults.getChecksum());
+        properties.setMultipart(defaults.getMultipart());
+        properties.setCompression(defaults.getCompression());
+        properties.setEncryption(defaults.getEncryption());
+        return properties;
+    }
+
+    static OssClient create(OssProperties properties) {
+        if (properties.getEngine() == OssEngine.V2_ASYNC) {
+            return S3AsyncClients.create(properties);
+        }
+        AmazonS3 amazonS3 = amazonS3(properties);
+        return new AmazonS3OssClient(amazonS3) {
+            @Override
+            public void close() {
+                super.close();
+                amazonS3.shutdown();
+            }
+        };
+    }
+
+    /**
+     * 按配置创建 v1 客户端
+     */
+    static AmazonS3 amazonS3(OssProperties properties) {
+        ClientConfiguration clientConfiguration = new ClientConfiguration();
+        clientConfiguration.setMaxConnections(properties.getMaxConnections());
+        AwsClientBuilder.EndpointConfiguration endpointConfiguration = new AwsClientBuilder.EndpointConfiguration(
+                properties.getEndpoint(), properties.getRegion());
+        AWSCredentials awsCredentials = new BasicAWSCredentials(properties.getAccessKey(),
+                properties.getSecretKey());
+        AWSCredentialsProvider awsCredentialsProvider = new AWSStaticCredentialsProvider(awsCredentials);
+        return AmazonS3Client.builder().withEndpointConfiguration(endpointConfiguration)
+                .withClientConfiguration(clientConfiguration).withCredentials(awsCredentialsProvider)
+                .disableChunkedEncoding().withPathStyleAccessEnabled(properties.getPathStyleAccess()).build();
+    }
+
+    /**
+     * 只在使用 v2-async 引擎时加载，未引入 SDK v2 时不影响 v1 客户端
+     */
+    static final class S3AsyncClients {
+
+        private S3AsyncClients() {
+        }
+
+        static OssClient create(OssProperties properties) {
+            S3AsyncClient s3AsyncClient = s3AsyncClient(properties);
+            S3Presigner presigner = s3Presigner(properties);
+            return new S3AsyncOssClient(s3AsyncClient, presigner) {
+                @Override
+                public void close() {
+                    s3AsyncClient.close();
+                    presigner.close();
+                }
+            };
+        }
+
+        /**
+         * 按配置创建基于 Netty 非阻塞 HTTP 客户端的 S3AsyncClient
+         */
+        static S3AsyncClient s3AsyncClient(OssProperties properties) {
+            OssProperties.Async async = properties.getAsync();
+            return S3AsyncClient.builder().endpointOverride(URI.create(properties.getEndpoint()))
+                    .region(region(properties)).credentialsProvider(credentialsProvider(properties))
+                    .serviceConfiguration(serviceConfiguration(properties))
+                    .httpClientBuilder(NettyNioAsyncHttpClient.builder()
+                            .maxConcurrency(async.getMaxConcurrency())
+                            .maxPendingConnectionAcquires(async.getMaxPendingConnectionAcquires())
+                            .connectionTimeout(Duration.ofMillis(async.getConnectionTimeout())))
+                    .build();
+        }
+
+        static S3Presigner s3Presigner(OssProperties properties) {
+            return S3Presigner.builder().endpointOverride(URI.create(properties.getEndpoint()))
+                    .region(region(properties)).credentialsProvider(credentialsProvider(properties))
+                    .serviceConfiguration(serviceConfiguration(properties)).build();
+        }
+
+        private static Region region(OssProperties properties) {
+            return StringUtils.hasText(properties.getRegion()) ? Region.of(properties.getRegion()) : Region.US_EAST_1;
+        }
+
+        private static AwsCredentialsProvider credentialsProvider(OssProperties properties) {
+            return StaticCredentialsProvider.create(
+                    AwsBasicCredentials.create(properties.getAccessKey(), properties.getSecretKey()));
+        }
+
+        /**
+         * 与 v1 客户端一致：关闭 aws-chunked 编码，按配置使用 path-style
+         */
+        private static S3Configuration serviceConfiguration(OssProperties properties) {
+            return S3Configuration.builder().pathStyleAccessEnabled(Boolean.TRUE.equals(properties.getPathStyleAccess()))
+                    .chunkedEncodingEnabled(false).build();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.anthonyzero.spring.boot.autoconfigure;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.reactive.ReactiveOssTemplate;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 引入 reactor-core 时注册 {@link ReactiveOssTemplate}
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "reactor.core.publisher.Flux")
+@AutoConfigureAfter(OssAutoConfiguration.class)
+public class OssReactiveAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(ReactiveOssTemplate.class)
+    @ConditionalOnBean(OssTemplate.class)
+    public ReactiveOssTemplate reactiveOssTemplate(OssProperties properties, OssTemplate ossTemplate) {
+        return new ReactiveOssTemplate(properties, ossTemplate);
+    }
+}
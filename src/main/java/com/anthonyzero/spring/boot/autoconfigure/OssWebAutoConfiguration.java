@@ -0,0 +1,48 @@
+package com.anthonyzero.spring.boot.autoconfigure;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.web.OssDownloadHandler;
+import com.anthonyzero.core.web.OssDownloadServlet;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * 引入 servlet-api 时注册 {@link OssDownloadHandler}，Servlet 应用中 oss.download.enabled=true 时注册下载 Servlet
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnClass(name = "javax.servlet.http.HttpServlet")
+@AutoConfigureAfter(OssAutoConfiguration.class)
+public class OssWebAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean(OssDownloadHandler.class)
+    @ConditionalOnBean(OssTemplate.class)
+    public OssDownloadHandler ossDownloadHandler(OssProperties properties, OssTemplate ossTemplate) {
+        return new OssDownloadHandler(ossTemplate, properties.getDownload());
+    }
+
+    @Bean
+    @ConditionalOnBean(OssDownloadHandler.class)
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    @ConditionalOnProperty(prefix = "oss.download", name = "enabled", havingValue = "true")
+    public ServletRegistrationBean<OssDownloadServlet> ossDownloadServlet(OssProperties properties,
+                                                                          OssTemplate ossTemplate,
+                                                                          OssDownloadHandler downloadHandler) {
+        OssProperties.Download download = properties.getDownload();
+        String bucketName = StringUtils.hasText(download.getBucketName()) ? download.getBucketName()
+                : ossTemplate.getBucketName();
+        ServletRegistrationBean<OssDownloadServlet> registration = new ServletRegistrationBean<>(
+                new OssDownloadServlet(downloadHandler, download, bucketName), download.getPath());
+        registration.setName("ossDownloadServlet");
+        return registration;
+    }
+}
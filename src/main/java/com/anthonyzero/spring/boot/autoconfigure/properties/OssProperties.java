@@ -1,8 +1,16 @@
 package com.anthonyzero.spring.boot.autoconfigure.properties;
 
+import com.anthonyzero.support.ChecksumAlgorithm;
+import com.anthonyzero.support.DownloadMode;
+import com.anthonyzero.support.OssEngine;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Data
 @ConfigurationProperties(prefix = OssProperties.PREFIX)
 public class OssProperties {
@@ -55,4 +63,529 @@ public class OssProperties {
      */
     private String bucketName;
 
+    /**
+     * 存储客户端引擎：v1（默认）或 v2-async
+     */
+    private OssEngine engine = OssEngine.V1;
+
+    /**
+     * v2-async 引擎的连接配置
+     */
+    private Async async = new Async();
+
+    /**
+     * v1 引擎的最大连接数，默认 50
+     */
+    private int maxConnections = 50;
+
+    /**
+     * v1 引擎客户端的延迟创建配置
+     */
+    private LazyInit lazyInit = new LazyInit();
+
+    /**
+     * 命名客户端配置，客户端名称 -> 配置，每个客户端使用独立的连接池，通过 OssTemplateRegistry 获取
+     */
+    private Map<String, Client> clients = new LinkedHashMap<>();
+
+    /**
+     * 命名客户端的健康评分配置
+     */
+    private Health health = new Health();
+
+    /**
+     * 下载接口配置
+     */
+    private Download download = new Download();
+
+    /**
+     * 小对象打包配置
+     */
+    private Pack pack = new Pack();
+
+    /**
+     * 异步写入队列配置
+     */
+    private WriteBehind writeBehind = new WriteBehind();
+
+    /**
+     * bucket 状态缓存配置
+     */
+    private BucketCache bucketCache = new BucketCache();
+
+    /**
+     * 读取请求对冲配置
+     */
+    private Hedge hedge = new Hedge();
+
+    /**
+     * 随机读取通道配置
+     */
+    private Channel channel = new Channel();
+
+    /**
+     * 客户端完整性校验配置
+     */
+    private Checksum checksum = new Checksum();
+
+    /**
+     * 分片上传配置
+     */
+    private Multipart multipart = new Multipart();
+
+    /**
+     * 压缩配置
+     */
+    private Compression compression = new Compression();
+
+    /**
+     * 客户端加密配置
+     */
+    private Encryption encryption = new Encryption();
+
+    @Data
+    public static class Client {
+
+        /**
+         * 对象存储服务的URL
+         */
+        private String endpoint;
+
+        /**
+         * 自定义域名
+         */
+        private String customDomain;
+
+        /**
+         * 是否使用 path-style 访问，默认为：true
+         */
+        private Boolean pathStyleAccess = true;
+
+        /**
+         * 区域
+         */
+        private String region;
+
+        /**
+         * Access key
+         */
+        private String accessKey;
+
+        /**
+         * Secret key
+         */
+        private String secretKey;
+
+        /**
+         * 默认的存储桶名称
+         */
+        private String bucketName;
+
+        /**
+         * 存储客户端引擎，默认 v1
+         */
+        private OssEngine engine = OssEngine.V1;
+
+        /**
+         * 连接池大小，v1 引擎为最大连接数，v2-async 引擎为最大并发数，默认 50
+         */
+        private int maxConnections = 50;
+
+        /**
+         * 路由到该客户端的 bucket
+         */
+        private List<String> buckets = new ArrayList<>();
+
+        /**
+         * 路由到该客户端的租户
+         */
+        private List<String> tenants = new ArrayList<>();
+
+        /**
+         * 只读副本的客户端名称，副本需要同步相同的 bucket；本客户端降级或读取失败时从副本读取
+         */
+        private String replica;
+    }
+
+    @Data
+    public static class Health {
+
+        /**
+         * 错误率（指数加权）超过该值时降级，默认 0.5
+         */
+        private double errorRateThreshold = 0.5;
+
+        /**
+         * 平均延迟（指数加权）超过该值时降级，单位毫秒，默认 2000
+         */
+        private long latencyThreshold = 2000;
+
+        /**
+         * 开始评分前至少需要的请求数，默认 10
+         */
+        private int minRequests = 10;
+
+        /**
+         * 降级后放行一次探测请求的间隔，单位毫秒，默认 5000
+         */
+        private long probeInterval = 5000;
+    }
+
+    @Data
+    public static class Download {
+
+        /**
+         * 是否注册下载 Servlet，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * Servlet 映射路径，路径剩余部分为对象名称，默认 /oss/files/*
+         */
+        private String path = "/oss/files/*";
+
+        /**
+         * 下载的 bucket，为空时使用 oss.bucket-name
+         */
+        private String bucketName;
+
+        /**
+         * 允许下载的对象前缀，为空时允许全部
+         */
+        private List<String> prefixes = new ArrayList<>();
+
+        /**
+         * 响应方式，默认转发对象内容
+         */
+        private DownloadMode mode = DownloadMode.STREAM;
+
+        /**
+         * 重定向模式下预签名地址的有效期，单位秒，默认 300
+         */
+        private int expiry = 300;
+
+        /**
+         * 转发时每次读写的缓冲区大小，单位字节，默认 256KB
+         */
+        private int bufferSize = 256 * 1024;
+
+        /**
+         * 缓冲池最多保留的空闲缓冲区数，默认 32
+         */
+        private int pooledBuffers = 32;
+    }
+
+    @Data
+    public static class Pack {
+
+        /**
+         * 是否注册 OssPackStore，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * pack 与索引所在的 bucket，为空时使用 oss.bucket-name
+         */
+        private String bucketName;
+
+        /**
+         * pack 与索引的对象前缀，同一前缀只允许一个实例写入，默认 packs/
+         */
+        private String prefix = "packs/";
+
+        /**
+         * pack 写满该大小后上传完成，单位字节，默认 64MB
+         */
+        private int packSize = 64 * 1024 * 1024;
+
+        /**
+         * 可以打包的最大对象大小，单位字节，默认 1MB
+         */
+        private int maxObjectSize = 1024 * 1024;
+
+        /**
+         * 未写满的 pack 定时上传的间隔，单位毫秒，默认 10 秒，0 表示只在 flush 或写满时上传
+         */
+        private long flushInterval = 10_000;
+
+        /**
+         * 索引段数量超过该值时合并较新的索引段，默认 64
+         */
+        private int maxSegments = 64;
+
+        /**
+         * 后台压缩的间隔，单位毫秒，默认 1 小时，0 表示关闭
+         */
+        private long compactInterval = 3_600_000;
+
+        /**
+         * pack 中已删除或被覆盖的字节占比达到该值时重写，默认 0.5
+         */
+        private double compactThreshold = 0.5;
+    }
+
+    @Data
+    public static class WriteBehind {
+
+        /**
+         * 是否注册 OssWriteBehindQueue，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 本地日志目录，同一目录只允许一个实例使用，默认 oss-spool
+         */
+        private String directory = "oss-spool";
+
+        /**
+         * 上传线程数，同一对象总是由同一线程按入队顺序上传，默认 4
+         */
+        private int workers = 4;
+
+        /**
+         * 日志段文件大小，写满后滚动到新文件，单位字节，默认 64MB
+         */
+        private long segmentSize = 64 * 1024 * 1024;
+
+        /**
+         * 每次写入日志后是否刷盘，关闭时进程重启不丢数据，开启后断电也不丢数据，默认 false
+         */
+        private boolean sync = false;
+
+        /**
+         * 非服务端故障（如 403、404）的最大尝试次数，超过后丢弃并计入失败数，默认 10；
+         * 5xx、429、网络错误一直重试
+         */
+        private int maxAttempts = 10;
+
+        /**
+         * 首次重试的等待时间，单位毫秒，之后逐次翻倍，默认 100
+         */
+        private long initialBackoff = 100;
+
+        /**
+         * 最大重试等待时间，单位毫秒，默认 30 秒
+         */
+        private long maxBackoff = 30_000;
+    }
+
+    @Data
+    public static class BucketCache {
+
+        /**
+         * 是否缓存 bucket 是否存在、创建时间与策略，默认开启
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存时间，单位毫秒，默认 60000
+         */
+        private long ttl = 60000;
+    }
+
+    @Data
+    public static class Hedge {
+
+        /**
+         * 是否对 GET、HEAD、区间 GET 启用对冲请求，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 首次请求超过观测延迟的该分位数仍未返回时发出对冲请求，默认 0.95
+         */
+        private double percentile = 0.95;
+
+        /**
+         * 样本不足时使用的对冲延迟，单位毫秒，默认 50
+         */
+        private long initialDelay = 50;
+
+        /**
+         * 对冲延迟下限，单位毫秒，默认 5
+         */
+        private long minDelay = 5;
+
+        /**
+         * 对冲延迟上限，单位毫秒，默认 2000
+         */
+        private long maxDelay = 2000;
+
+        /**
+         * 对冲请求最多占读取请求的百分比，默认 5
+         */
+        private double budgetPercent = 5;
+
+        /**
+         * 执行阻塞读取的线程数，超出时排队等待，默认 50，与默认连接池大小一致
+         */
+        private int threads = 50;
+    }
+
+    @Data
+    public static class LazyInit {
+
+        /**
+         * 是否在首次请求时才创建默认客户端，默认关闭
+         */
+        private boolean enabled = false;
+
+        /**
+         * 延迟创建时是否在应用启动完成后于后台提前创建，默认开启
+         */
+        private boolean warmUp = true;
+    }
+
+    @Data
+    public static class Async {
+
+        /**
+         * 最大并发连接数，默认 256
+         */
+        private int maxConcurrency = 256;
+
+        /**
+         * 等待获取连接的最大请求数，超出后请求立即失败，默认 10000
+         */
+        private int maxPendingConnectionAcquires = 10000;
+
+        /**
+         * 建立连接超时时间，单位毫秒，默认 10 秒
+         */
+        private long connectionTimeout = 10_000;
+    }
+
+    @Data
+    public static class Channel {
+
+        /**
+         * 缓存块大小，单位字节，默认 64KB
+         */
+        private int blockSize = 64 * 1024;
+
+        /**
+         * 顺序读取时预读的最大块数，默认 64 块
+         */
+        private int maxReadaheadBlocks = 64;
+
+        /**
+         * 每个通道缓存的最大块数，默认 128 块
+         */
+        private int cacheBlocks = 128;
+
+        /**
+         * 异步预取的线程数，同一 OssTemplate 打开的通道共用，默认 8
+         */
+        private int prefetchThreads = 8;
+    }
+
+    @Data
+    public static class Checksum {
+
+        /**
+         * 是否在上传、下载时计算并校验，默认为：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 单次上传使用的校验算法，默认 CRC32C
+         * <p>
+         * CRC32C 写入用户元数据，服务端不校验，只在下载时校验；MD5 通过 Content-MD5 由服务端在上传时校验。
+         * 超过一个分片且不是 ByteArrayInputStream 的上传流改为分片上传，避免把整个对象读入内存。
+         * <p>
+         * 分片上传不受该配置影响，每个分片始终使用 Content-MD5：下载时需要由各分片的 MD5 重算对象 ETag，
+         * 且兼容 S3 的服务都支持校验分片的 Content-MD5。因此分片上传时每个分片都会额外计算一次 MD5。
+         */
+        private ChecksumAlgorithm algorithm = ChecksumAlgorithm.CRC32C;
+    }
+
+    @Data
+    public static class Multipart {
+
+        /**
+         * 分片大小，单位字节，默认 8MB，S3 要求除最后一片外不小于 5MB
+         */
+        private int partSize = 8 * 1024 * 1024;
+
+        /**
+         * 同时上传的分片数，默认 4，内存中最多保留 concurrency + 1 个分片
+         */
+        private int concurrency = 4;
+    }
+
+    @Data
+    public static class Compression {
+
+        /**
+         * 是否按规则压缩上传的对象，默认为：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 压缩规则，按顺序匹配第一条
+         */
+        private List<Rule> rules = new ArrayList<>();
+
+        @Data
+        public static class Rule {
+
+            /**
+             * 匹配的 bucket，为空时匹配全部
+             */
+            private String bucket;
+
+            /**
+             * 匹配的对象名前缀，默认匹配全部
+             */
+            private String prefix = "";
+
+            /**
+             * 压缩编码：gzip、zstd、lz4 或自定义 OssCodec 的名称
+             */
+            private String codec = "gzip";
+        }
+    }
+
+    @Data
+    public static class Encryption {
+
+        /**
+         * 是否按规则加密上传的对象，默认为：false
+         */
+        private boolean enabled = false;
+
+        /**
+         * 明文帧长，单位字节，默认 64KB，每帧独立 AES-GCM 加密
+         */
+        private int frameSize = 64 * 1024;
+
+        /**
+         * 本地主密钥，主密钥标识 -> Base64 编码的 AES 密钥；未注册 OssKeyProvider Bean 时使用
+         */
+        private Map<String, String> localKeys = new LinkedHashMap<>();
+
+        /**
+         * 加密规则，按顺序匹配第一条
+         */
+        private List<Rule> rules = new ArrayList<>();
+
+        @Data
+        public static class Rule {
+
+            /**
+             * 匹配的 bucket，为空时匹配全部
+             */
+            private String bucket;
+
+            /**
+             * 匹配的对象名前缀，默认匹配全部
+             */
+            private String prefix = "";
+
+            /**
+             * 主密钥标识
+             */
+            private String keyId;
+        }
+    }
 }
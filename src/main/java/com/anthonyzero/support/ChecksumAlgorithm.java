@@ -0,0 +1,24 @@
+package com.anthonyzero.support;
+
+import lombok.Getter;
+
+/**
+ * 客户端完整性校验算法
+ */
+@Getter
+public enum ChecksumAlgorithm {
+    /**
+     * CRC32C，JDK 9+ 使用 {@code java.util.zip.CRC32C} 硬件加速实现，校验值保存在用户元数据中
+     */
+    CRC32C("CRC32C"),
+    /**
+     * MD5，通过 Content-MD5 请求头由服务端校验，下载时与 ETag 比对
+     */
+    MD5("MD5");
+
+    private final String desc;
+
+    ChecksumAlgorithm(String desc) {
+        this.desc = desc;
+    }
+}
@@ -0,0 +1,24 @@
+package com.anthonyzero.support;
+
+import lombok.Getter;
+
+/**
+ * 下载接口的响应方式
+ */
+@Getter
+public enum DownloadMode {
+    /**
+     * 经应用转发对象内容，Range 与条件请求头透传给对象存储
+     */
+    STREAM("stream"),
+    /**
+     * 重定向到预签名地址，由浏览器直接访问对象存储
+     */
+    REDIRECT("redirect");
+
+    private final String desc;
+
+    DownloadMode(String desc) {
+        this.desc = desc;
+    }
+}
@@ -0,0 +1,24 @@
+package com.anthonyzero.support;
+
+import lombok.Getter;
+
+/**
+ * 存储客户端引擎
+ */
+@Getter
+public enum OssEngine {
+    /**
+     * AWS SDK v1 同步客户端，每个进行中的请求占用一个线程与一个连接
+     */
+    V1("v1"),
+    /**
+     * AWS SDK v2 异步客户端，基于 Netty 非阻塞 IO，需要引入 software.amazon.awssdk:s3 与 netty-nio-client
+     */
+    V2_ASYNC("v2-async");
+
+    private final String desc;
+
+    OssEngine(String desc) {
+        this.desc = desc;
+    }
+}
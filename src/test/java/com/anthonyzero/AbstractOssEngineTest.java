@@ -0,0 +1,264 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.Bucket;
+import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.checksum.OssChecksumException;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.PolicyType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * 存储引擎的公共行为测试，每种引擎继承后针对本地 S3 服务运行同一组用例
+ */
+public abstract class AbstractOssEngineTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private OssClient ossClient;
+
+    private OssTemplate ossTemplate;
+
+    /**
+     * 创建被测引擎
+     */
+    protected abstract OssClient newClient(OssProperties properties);
+
+    /**
+     * 释放 {@link #newClient(OssProperties)} 创建的资源
+     */
+    protected void closeClient(OssClient ossClient) {
+        ossClient.close();
+    }
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getMultipart().setPartSize(1024);
+        ossClient = newClient(properties);
+        ossTemplate = new OssTemplate(properties, ossClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+    }
+
+    @AfterEach
+    public void destroy() {
+        closeClient(ossClient);
+        server.close();
+    }
+
+    @Test
+    public void bucketLifecycle() {
+        Assertions.assertFalse(ossTemplate.existBucket("other"));
+        Assertions.assertTrue(ossTemplate.createBucket("other", PolicyType.READ_ONLY));
+        Assertions.assertTrue(ossTemplate.existBucket("other"));
+        Assertions.assertEquals(PolicyType.getPolicy(PolicyType.READ_ONLY, "other"), ossClient.getBucketPolicy("other"));
+        Assertions.assertNull(ossClient.getBucketPolicy(TEST_BUCKET_NAME));
+        Optional<Bucket> bucket = ossTemplate.getBucket("other");
+        Assertions.assertTrue(bucket.isPresent());
+        Assertions.assertNotNull(bucket.get().getCreationDate());
+        Assertions.assertEquals(Arrays.asList("other", TEST_BUCKET_NAME), ossTemplate.getAllBuckets().stream()
+                .map(Bucket::getName).collect(Collectors.toList()));
+        ossTemplate.removeBucket("other");
+        Assertions.assertFalse(ossTemplate.existBucket("other"));
+    }
+
+    @Test
+    public void putAndGet() throws Exception {
+        byte[] data = random(3000);
+        PutObjectResult result = ossTemplate.putObject(TEST_BUCKET_NAME, "a.bin", new ByteArrayInputStream(data),
+                data.length, "application/x-test");
+        Assertions.assertEquals(LocalS3Server.hex(LocalS3Server.md5(data)), result.getETag());
+        try (S3Object s3Object = ossTemplate.getObject("a.bin")) {
+            ObjectMetadata metadata = s3Object.getObjectMetadata();
+            Assertions.assertEquals("application/x-test", metadata.getContentType());
+            Assertions.assertEquals(data.length, metadata.getContentLength());
+            Assertions.assertEquals(result.getETag(), metadata.getETag());
+            Assertions.assertNotNull(metadata.getLastModified());
+            Assertions.assertArrayEquals(data, IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+        ObjectMetadata head = ossTemplate.getObjectMetadata("a.bin");
+        Assertions.assertEquals("application/x-test", head.getContentType());
+        Assertions.assertEquals(data.length, head.getContentLength());
+        Assertions.assertEquals(result.getETag(), head.getETag());
+        ossTemplate.removeObject("a.bin");
+        AmazonS3Exception e = Assertions.assertThrows(AmazonS3Exception.class, () -> ossTemplate.getObject("a.bin"));
+        Assertions.assertEquals(404, e.getStatusCode());
+        Assertions.assertEquals("NoSuchKey", e.getErrorCode());
+        e = Assertions.assertThrows(AmazonS3Exception.class, () -> ossTemplate.getObjectMetadata("a.bin"));
+        Assertions.assertEquals(404, e.getStatusCode());
+    }
+
+    @Test
+    public void listByPrefix() throws Exception {
+        for (String name : new String[]{"logs/1", "logs/2", "data/1"}) {
+            ossTemplate.putObject(name, new ByteArrayInputStream(name.getBytes()));
+        }
+        List<S3ObjectSummary> summaries = ossTemplate.getAllObjectsByPrefix("logs/");
+        Assertions.assertEquals(Arrays.asList("logs/1", "logs/2"), summaries.stream().map(S3ObjectSummary::getKey)
+                .collect(Collectors.toList()));
+        Assertions.assertEquals(6, summaries.get(0).getSize());
+        Assertions.assertEquals(LocalS3Server.hex(LocalS3Server.md5("logs/1".getBytes())),
+                summaries.get(0).getETag());
+
+        // 分页列出
+        server.setMaxKeys(1);
+        ObjectListing listing = ossClient.listObjects(TEST_BUCKET_NAME, "logs/");
+        Assertions.assertTrue(listing.isTruncated());
+        Assertions.assertEquals("logs/1", listing.getObjectSummaries().get(0).getKey());
+        listing = ossClient.listNextBatchOfObjects(listing);
+        Assertions.assertEquals("logs/2", listing.getObjectSummaries().get(0).getKey());
+        listing = ossClient.listNextBatchOfObjects(listing);
+        Assertions.assertFalse(listing.isTruncated());
+        Assertions.assertTrue(listing.getObjectSummaries().isEmpty());
+    }
+
+    @Test
+    public void rangedReads() throws Exception {
+        byte[] data = random(10000);
+        ossTemplate.putObject("range.bin", new ByteArrayInputStream(data));
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, "range.bin", 100, 199)) {
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 100, 200),
+                    IOUtils.toByteArray(s3Object.getObjectContent()));
+            Assertions.assertEquals(10000, s3Object.getObjectMetadata().getInstanceLength());
+        }
+        try (SeekableByteChannel channel = ossTemplate.openChannel("range.bin")) {
+            Assertions.assertEquals(data.length, channel.size());
+            ByteBuffer buffer = ByteBuffer.allocate(8);
+            channel.position(data.length - 8).read(buffer);
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, data.length - 8, data.length), buffer.array());
+        }
+    }
+
+    @Test
+    public void conditionalGet() throws Exception {
+        PutObjectResult result = ossTemplate.putObject("etag.bin", new ByteArrayInputStream(random(10)));
+        GetObjectRequest request = new GetObjectRequest(TEST_BUCKET_NAME, "etag.bin")
+                .withNonmatchingETagConstraint(result.getETag());
+        Assertions.assertNull(ossClient.getObject(request));
+        Assertions.assertNull(ossClient.getObjectAsync(request).join());
+    }
+
+    @Test
+    public void multipartWithChecksum() throws Exception {
+        properties.getChecksum().setEnabled(true);
+        byte[] data = random(1024 * 3 + 17);
+        ossTemplate.putObjectMultipart("multi.bin", new ByteArrayInputStream(data), "application/octet-stream");
+        Assertions.assertTrue(server.getRequests().stream().anyMatch(r -> r.startsWith("POST") && r.contains("multi.bin")));
+        try (S3Object s3Object = ossTemplate.getObject("multi.bin")) {
+            Assertions.assertTrue(s3Object.getObjectMetadata().getETag().endsWith("-4"));
+            Assertions.assertArrayEquals(data, IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+        server.corrupt(TEST_BUCKET_NAME, "multi.bin");
+        try (S3Object s3Object = ossTemplate.getObject("multi.bin")) {
+            Assertions.assertThrows(OssChecksumException.class, () -> IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+    }
+
+    @Test
+    public void multipartPartFailure() {
+        properties.getMultipart().setConcurrency(2);
+        byte[] data = random(1024 * 5);
+        server.fail(1, 400, "PUT /s3-oss/failed.bin");
+        Assertions.assertThrows(AmazonS3Exception.class, () -> ossTemplate.putObjectMultipart("failed.bin",
+                new ByteArrayInputStream(data), "application/octet-stream"));
+        Assertions.assertEquals(1, LocalS3Server.filter(server.getRequests(), "DELETE /s3-oss/failed.bin").size());
+        Assertions.assertNull(server.getObjectData(TEST_BUCKET_NAME, "failed.bin"));
+    }
+
+    @Test
+    public void compressionAndChecksum() throws Exception {
+        properties.getChecksum().setEnabled(true);
+        properties.getCompression().setEnabled(true);
+        properties.getCompression().getRules().add(new OssProperties.Compression.Rule());
+        byte[] data = new byte[20000];
+        ossTemplate.putObject("zeros.bin", new ByteArrayInputStream(data));
+        Assertions.assertTrue(server.getObjectData(TEST_BUCKET_NAME, "zeros.bin").length < data.length);
+        try (S3Object s3Object = ossTemplate.getObject("zeros.bin")) {
+            Assertions.assertArrayEquals(data, IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+        Assertions.assertArrayEquals(data, ossTemplate.getObjectAsync("zeros.bin").join());
+    }
+
+    @Test
+    public void presignedUrls() throws Exception {
+        byte[] data = random(100);
+        HttpURLConnection put = (HttpURLConnection) new URL(ossTemplate.getPresignedObjectPutUrl(TEST_BUCKET_NAME,
+                "signed.bin")).openConnection();
+        put.setRequestMethod("PUT");
+        put.setDoOutput(true);
+        try (OutputStream out = put.getOutputStream()) {
+            out.write(data);
+        }
+        Assertions.assertEquals(200, put.getResponseCode());
+        HttpURLConnection get = (HttpURLConnection) new URL(ossTemplate.getObjectUrl(TEST_BUCKET_NAME, "signed.bin",
+                10)).openConnection();
+        try (InputStream in = get.getInputStream()) {
+            Assertions.assertArrayEquals(data, IOUtils.toByteArray(in));
+        }
+        Assertions.assertEquals(server.getEndpoint() + "/" + TEST_BUCKET_NAME + "/signed.bin",
+                ossTemplate.getObjectUrl(TEST_BUCKET_NAME, "signed.bin"));
+    }
+
+    /**
+     * 并发异步读写
+     */
+    @Test
+    public void concurrentAsync() {
+        List<byte[]> contents = new ArrayList<>();
+        List<CompletableFuture<PutObjectResult>> puts = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            byte[] data = random(100 + i);
+            contents.add(data);
+            puts.add(ossTemplate.putObjectAsync("async/" + i, data, "application/octet-stream"));
+        }
+        CompletableFuture.allOf(puts.toArray(new CompletableFuture[0])).join();
+        List<CompletableFuture<byte[]>> gets = new ArrayList<>();
+        for (int i = 0; i < contents.size(); i++) {
+            gets.add(ossTemplate.getObjectAsync("async/" + i));
+        }
+        for (int i = 0; i < contents.size(); i++) {
+            Assertions.assertArrayEquals(contents.get(i), gets.get(i).join());
+        }
+        CompletionException e = Assertions.assertThrows(CompletionException.class,
+                () -> ossTemplate.getObjectAsync("async/missing").join());
+        Assertions.assertEquals(404, ((AmazonS3Exception) e.getCause()).getStatusCode());
+    }
+
+    private static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,628 @@
+package com.anthonyzero;
+
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试用的本地 S3 兼容服务，仅实现 starter 用到的 path-style 接口
+ *
+ * <p>所有数据保存在内存中，{@link #getRequests()} 记录收到的请求，用于断言请求次数
+ */
+public class LocalS3Server implements AutoCloseable {
+
+    private static final Pattern PART_PATTERN = Pattern.compile("<Part>(.*?)</Part>", Pattern.DOTALL);
+
+    private static final Pattern PART_NUMBER_PATTERN = Pattern.compile("<PartNumber>(\\d+)</PartNumber>");
+
+    private static final Pattern PART_ETAG_PATTERN = Pattern.compile("<ETag>(?:\"|&quot;)?([^<\"&]+)(?:\"|&quot;)?</ETag>");
+
+    private final HttpServer server;
+
+    private final Map<String, LocalBucket> buckets = new ConcurrentHashMap<>();
+
+    private final Map<String, Map<Integer, LocalObject>> uploads = new ConcurrentHashMap<>();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger slowRequests = new AtomicInteger();
+
+    private volatile long slowMillis;
+
+    private volatile int maxKeys = 1000;
+
+    private final AtomicInteger failedRequests = new AtomicInteger();
+
+    private volatile int failStatus;
+
+    private volatile String failPrefix;
+
+    private volatile String failCode;
+
+    public LocalS3Server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    public String getEndpoint() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 指向本服务的配置，默认 bucket 为 {@code bucketName}
+     */
+    public OssProperties newProperties(String bucketName) {
+        OssProperties properties = new OssProperties();
+        properties.setEndpoint(getEndpoint());
+        properties.setRegion("us-east-1");
+        properties.setAccessKey("local");
+        properties.setSecretKey("local");
+        properties.setBucketName(bucketName);
+        return properties;
+    }
+
+    public List<String> getRequests() {
+        return requests;
+    }
+
+    public byte[] getObjectData(String bucketName, String key) {
+        LocalBucket bucket = buckets.get(bucketName);
+        LocalObject object = bucket == null ? null : bucket.objects.get(key);
+        return object == null ? null : object.data;
+    }
+
+    public Map<String, String> getObjectMetadata(String bucketName, String key) {
+        LocalBucket bucket = buckets.get(bucketName);
+        LocalObject object = bucket == null ? null : bucket.objects.get(key);
+        return object == null ? null : object.metadata;
+    }
+
+    /**
+     * 篡改对象内容，ETag 按新内容重算，元数据保持不变
+     */
+    public void corrupt(String bucketName, String key) {
+        NavigableMap<String, LocalObject> objects = buckets.get(bucketName).objects;
+        LocalObject object = objects.get(key);
+        byte[] data = object.data.clone();
+        data[data.length / 2] ^= 0x01;
+        String etag = object.etag.contains("-") ? object.etag : hex(md5(data));
+        objects.put(key, new LocalObject(data, object.contentType, object.metadata, etag));
+    }
+
+    /**
+     * 列出对象时每页最多返回的数量，默认 1000
+     */
+    public void setMaxKeys(int maxKeys) {
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * 之后收到的 {@code count} 个请求延迟 {@code millis} 毫秒再处理，模拟慢请求
+     */
+    public void slowDown(int count, long millis) {
+        slowMillis = millis;
+        slowRequests.set(count);
+    }
+
+    /**
+     * 之后收到的 {@code count} 个请求直接返回 {@code status} 错误
+     */
+    public void fail(int count, int status) {
+        fail(count, status, "");
+    }
+
+    /**
+     * 之后收到的 {@code count} 个以 {@code requestPrefix}（如 {@code "PUT /bucket/key"}）开头的请求直接返回 {@code status} 错误
+     */
+    public void fail(int count, int status, String requestPrefix) {
+        fail(count, status, requestPrefix, "InjectedError");
+    }
+
+    /**
+     * 同 {@link #fail(int, int, String)}，错误响应使用指定的错误码
+     */
+    public void fail(int count, int status, String requestPrefix, String code) {
+        failCode = code;
+        failStatus = status;
+        failPrefix = requestPrefix;
+        failedRequests.set(count);
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            String path = exchange.getRequestURI().getRawPath();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String rawQuery = exchange.getRequestURI().getRawQuery();
+            requests.add(method + " " + path + (rawQuery == null ? "" : "?" + rawQuery)
+                    + (range == null ? "" : " " + range));
+            if (slowRequests.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                Thread.sleep(slowMillis);
+            }
+
+            String[] segments = path.substring(1).split("/", 2);
+            String bucketName = segments[0].isEmpty() ? null : decode(segments[0]);
+            String key = segments.length > 1 && !segments[1].isEmpty() ? decode(segments[1]) : null;
+            byte[] body = readBody(exchange);
+            if ((method + " " + path).startsWith(failPrefix == null ? "" : failPrefix)
+                    && failedRequests.getAndUpdate(count -> Math.max(0, count - 1)) > 0) {
+                error(exchange, failStatus, failCode, path);
+                return;
+            }
+
+            if (bucketName == null) {
+                listBuckets(exchange);
+            } else if (key == null) {
+                handleBucket(exchange, method, bucketName, query, body);
+            } else {
+                handleObject(exchange, method, bucketName, key, query, body);
+            }
+        } catch (RuntimeException e) {
+            error(exchange, 500, "InternalError", String.valueOf(e));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void listBuckets(HttpExchange exchange) throws IOException {
+        StringBuilder xml = new StringBuilder("<ListAllMyBucketsResult><Owner><ID>local</ID>"
+                + "<DisplayName>local</DisplayName></Owner><Buckets>");
+        for (Map.Entry<String, LocalBucket> entry : new java.util.TreeMap<>(buckets).entrySet()) {
+            xml.append("<Bucket><Name>").append(entry.getKey()).append("</Name><CreationDate>")
+                    .append(iso(entry.getValue().created)).append("</CreationDate></Bucket>");
+        }
+        xml.append("</Buckets></ListAllMyBucketsResult>");
+        xml(exchange, 200, xml.toString());
+    }
+
+    private void handleBucket(HttpExchange exchange, String method, String bucketName, Map<String, String> query,
+                              byte[] body) throws IOException {
+        LocalBucket bucket = buckets.get(bucketName);
+        if ("PUT".equals(method) && query.containsKey("policy")) {
+            if (bucket == null) {
+                error(exchange, 404, "NoSuchBucket", bucketName);
+                return;
+            }
+            bucket.policy = new String(body, StandardCharsets.UTF_8);
+            empty(exchange, 204);
+        } else if ("PUT".equals(method)) {
+            buckets.putIfAbsent(bucketName, new LocalBucket());
+            empty(exchange, 200);
+        } else if (bucket == null) {
+            error(exchange, 404, "NoSuchBucket", bucketName);
+        } else if ("DELETE".equals(method)) {
+            buckets.remove(bucketName);
+            empty(exchange, 204);
+        } else if ("HEAD".equals(method)) {
+            empty(exchange, 200);
+        } else if (query.containsKey("acl")) {
+            xml(exchange, 200, "<AccessControlPolicy><Owner><ID>local</ID></Owner>"
+                    + "<AccessControlList></AccessControlList></AccessControlPolicy>");
+        } else if (query.containsKey("policy")) {
+            if (bucket.policy == null) {
+                error(exchange, 404, "NoSuchBucketPolicy", bucketName);
+                return;
+            }
+            byte[] data = bucket.policy.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, data.length);
+            exchange.getResponseBody().write(data);
+        } else {
+            listObjects(exchange, bucketName, bucket, query);
+        }
+    }
+
+    private void listObjects(HttpExchange exchange, String bucketName, LocalBucket bucket, Map<String, String> query)
+            throws IOException {
+        String prefix = query.getOrDefault("prefix", "");
+        String marker = query.getOrDefault("marker", "");
+        boolean v2 = "2".equals(query.get("list-type"));
+        StringBuilder xml = new StringBuilder("<ListBucketResult><Name>").append(bucketName)
+                .append("</Name><Prefix>").append(prefix).append("</Prefix>");
+        int count = 0;
+        boolean truncated = false;
+        StringBuilder contents = new StringBuilder();
+        boolean afterMarker = !marker.isEmpty() && marker.compareTo(prefix) >= 0;
+        for (Map.Entry<String, LocalObject> entry : bucket.objects.tailMap(afterMarker ? marker : prefix,
+                !afterMarker).entrySet()) {
+            if (!entry.getKey().startsWith(prefix)) {
+                break;
+            }
+            if (count == maxKeys) {
+                truncated = true;
+                break;
+            }
+            LocalObject object = entry.getValue();
+            count++;
+            contents.append("<Contents><Key>").append(escape(entry.getKey())).append("</Key><LastModified>")
+                    .append(iso(object.lastModified)).append("</LastModified><ETag>&quot;").append(object.etag)
+                    .append("&quot;</ETag><Size>").append(object.data.length)
+                    .append("</Size><StorageClass>STANDARD</StorageClass></Contents>");
+        }
+        if (v2) {
+            xml.append("<KeyCount>").append(count).append("</KeyCount>");
+        } else {
+            xml.append("<Marker>").append(escape(marker)).append("</Marker>");
+        }
+        xml.append("<MaxKeys>").append(maxKeys).append("</MaxKeys><IsTruncated>").append(truncated)
+                .append("</IsTruncated>").append(contents)
+                .append("</ListBucketResult>");
+        xml(exchange, 200, xml.toString());
+    }
+
+    private void handleObject(HttpExchange exchange, String method, String bucketName, String key,
+                              Map<String, String> query, byte[] body) throws IOException {
+        LocalBucket bucket = buckets.get(bucketName);
+        if (bucket == null) {
+            error(exchange, 404, "NoSuchBucket", bucketName);
+            return;
+        }
+        String uploadId = query.get("uploadId");
+        if ("POST".equals(method) && query.containsKey("uploads")) {
+            String id = UUID.randomUUID().toString();
+            Map<Integer, LocalObject> parts = new ConcurrentSkipListMap<>();
+            // partNumber 0 用于保存 initiate 时的元数据
+            parts.put(0, metadataOnly(exchange.getRequestHeaders()));
+            uploads.put(id, parts);
+            xml(exchange, 200, "<InitiateMultipartUploadResult><Bucket>" + bucketName + "</Bucket><Key>"
+                    + escape(key) + "</Key><UploadId>" + id + "</UploadId></InitiateMultipartUploadResult>");
+        } else if ("PUT".equals(method) && uploadId != null) {
+            Map<Integer, LocalObject> parts = uploads.get(uploadId);
+            if (parts == null) {
+                error(exchange, 404, "NoSuchUpload", uploadId);
+                return;
+            }
+            LocalObject part = new LocalObject(body, exchange.getRequestHeaders());
+            if (!verifyContentMd5(exchange, part)) {
+                return;
+            }
+            parts.put(Integer.parseInt(query.get("partNumber")), part);
+            exchange.getResponseHeaders().set("ETag", "\"" + part.etag + "\"");
+            empty(exchange, 200);
+        } else if ("POST".equals(method) && uploadId != null) {
+            completeMultipart(exchange, bucket, bucketName, key, uploadId, body);
+        } else if ("DELETE".equals(method) && uploadId != null) {
+            uploads.remove(uploadId);
+            empty(exchange, 204);
+        } else if ("PUT".equals(method)) {
+            LocalObject object = new LocalObject(body, exchange.getRequestHeaders());
+            if (!verifyContentMd5(exchange, object)) {
+                return;
+            }
+            bucket.objects.put(key, object);
+            exchange.getResponseHeaders().set("ETag", "\"" + object.etag + "\"");
+            empty(exchange, 200);
+        } else if ("DELETE".equals(method)) {
+            bucket.objects.remove(key);
+            empty(exchange, 204);
+        } else {
+            LocalObject object = bucket.objects.get(key);
+            if (object == null) {
+                error(exchange, 404, "NoSuchKey", key);
+                return;
+            }
+            getObject(exchange, "HEAD".equals(method), object);
+        }
+    }
+
+    private void completeMultipart(HttpExchange exchange, LocalBucket bucket, String bucketName, String key,
+                                   String uploadId, byte[] body) throws IOException {
+        Map<Integer, LocalObject> parts = uploads.remove(uploadId);
+        if (parts == null) {
+            error(exchange, 404, "NoSuchUpload", uploadId);
+            return;
+        }
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        ByteArrayOutputStream digests = new ByteArrayOutputStream();
+        Matcher matcher = PART_PATTERN.matcher(new String(body, StandardCharsets.UTF_8));
+        int count = 0;
+        while (matcher.find()) {
+            // SDK v1 先写 PartNumber，v2 先写 ETag
+            Matcher partNumber = PART_NUMBER_PATTERN.matcher(matcher.group(1));
+            Matcher partEtag = PART_ETAG_PATTERN.matcher(matcher.group(1));
+            if (!partNumber.find() || !partEtag.find()) {
+                error(exchange, 400, "MalformedXML", matcher.group(1));
+                return;
+            }
+            LocalObject part = parts.get(Integer.parseInt(partNumber.group(1)));
+            if (part == null || !part.etag.equals(partEtag.group(1))) {
+                error(exchange, 400, "InvalidPart", partNumber.group(1));
+                return;
+            }
+            data.write(part.data);
+            digests.write(md5(part.data));
+            count++;
+        }
+        LocalObject initiate = parts.get(0);
+        LocalObject object = new LocalObject(data.toByteArray(), initiate.contentType, initiate.metadata,
+                hex(md5(digests.toByteArray())) + "-" + count);
+        bucket.objects.put(key, object);
+        xml(exchange, 200, "<CompleteMultipartUploadResult><Location>" + bucketName + "/" + escape(key)
+                + "</Location><Bucket>" + bucketName + "</Bucket><Key>" + escape(key) + "</Key><ETag>&quot;"
+                + object.etag + "&quot;</ETag></CompleteMultipartUploadResult>");
+    }
+
+    private void getObject(HttpExchange exchange, boolean head, LocalObject object) throws IOException {
+        Headers headers = exchange.getResponseHeaders();
+        headers.set("ETag", "\"" + object.etag + "\"");
+        headers.set("Last-Modified", rfc1123(object.lastModified));
+        headers.set("Content-Type", object.contentType);
+        headers.set("Accept-Ranges", "bytes");
+        object.metadata.forEach((name, value) -> headers.set("x-amz-meta-" + name, value));
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        if (ifNoneMatch != null && ifNoneMatch.replace("\"", "").equals(object.etag)) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        if (ifNoneMatch == null && ifModifiedSince != null
+                && object.lastModified.getTime() / 1000 <= parseRfc1123(ifModifiedSince).getTime() / 1000) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        int length = object.data.length;
+        int start = 0;
+        int end = length - 1;
+        int status = 200;
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        if (range != null && range.startsWith("bytes=")) {
+            String[] bounds = range.substring("bytes=".length()).split("-", 2);
+            if (bounds[0].isEmpty()) {
+                start = Math.max(0, length - Integer.parseInt(bounds[1]));
+            } else {
+                start = Integer.parseInt(bounds[0]);
+                if (!bounds[1].isEmpty()) {
+                    end = (int) Math.min(end, Long.parseLong(bounds[1]));
+                }
+            }
+            if (start >= length) {
+                headers.set("Content-Range", "bytes */" + length);
+                error(exchange, 416, "InvalidRange", range);
+                return;
+            }
+            status = 206;
+            headers.set("Content-Range", "bytes " + start + "-" + end + "/" + length);
+        }
+        int count = end - start + 1;
+        headers.set("Content-Length", String.valueOf(count));
+        if (head) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, count);
+        OutputStream out = exchange.getResponseBody();
+        try {
+            out.write(object.data, start, count);
+        } catch (IOException e) {
+            // 客户端提前断开
+        }
+    }
+
+    private boolean verifyContentMd5(HttpExchange exchange, LocalObject object) throws IOException {
+        String contentMd5 = exchange.getRequestHeaders().getFirst("Content-MD5");
+        if (contentMd5 != null && !contentMd5.equals(java.util.Base64.getEncoder().encodeToString(md5(object.data)))) {
+            error(exchange, 400, "BadDigest", "The Content-MD5 you specified did not match what we received.");
+            return false;
+        }
+        return true;
+    }
+
+    private static LocalObject metadataOnly(Headers headers) {
+        return new LocalObject(new byte[0], headers);
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        byte[] raw = out.toByteArray();
+        String encoding = exchange.getRequestHeaders().getFirst("Content-Encoding");
+        String sha = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        if ((encoding != null && encoding.contains("aws-chunked")) || (sha != null && sha.startsWith("STREAMING-"))) {
+            return decodeAwsChunked(raw);
+        }
+        return raw;
+    }
+
+    /**
+     * 解码 aws-chunked 编码的请求体：{@code hex-size[;chunk-signature=...]\r\n data \r\n ... 0\r\n[trailers]\r\n}
+     */
+    private static byte[] decodeAwsChunked(byte[] raw) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int pos = 0;
+        while (pos < raw.length) {
+            int lineEnd = indexOfCrlf(raw, pos);
+            String header = new String(raw, pos, lineEnd - pos, StandardCharsets.US_ASCII);
+            int size = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+            pos = lineEnd + 2;
+            if (size == 0) {
+                break;
+            }
+            out.write(raw, pos, size);
+            pos += size + 2;
+        }
+        return out.toByteArray();
+    }
+
+    private static int indexOfCrlf(byte[] data, int from) {
+        for (int i = from; i < data.length - 1; i++) {
+            if (data[i] == '\r' && data[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return data.length;
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> query = new HashMap<>();
+        for (String pair : rawQuery.split("&")) {
+            String[] kv = pair.split("=", 2);
+            query.put(decode(kv[0]), kv.length > 1 ? decode(kv[1]) : "");
+        }
+        return query;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value.replace("+", "%2B"), "UTF-8");
+        } catch (java.io.UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void xml(HttpExchange exchange, int status, String xml) throws IOException {
+        byte[] data = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/xml");
+        exchange.sendResponseHeaders(status, data.length);
+        exchange.getResponseBody().write(data);
+    }
+
+    private static void error(HttpExchange exchange, int status, String code, String message) throws IOException {
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        xml(exchange, status, "<Error><Code>" + code + "</Code><Message>" + escape(message)
+                + "</Message><RequestId>local</RequestId></Error>");
+    }
+
+    private static void empty(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+    }
+
+    private static String escape(String value) {
+        return value.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String iso(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(date);
+    }
+
+    private static String rfc1123(Date date) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format.format(date);
+    }
+
+    private static Date parseRfc1123(String value) {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        try {
+            return format.parse(value);
+        } catch (ParseException e) {
+            throw new IllegalArgumentException(value, e);
+        }
+    }
+
+    static byte[] md5(byte[] data) {
+        try {
+            return MessageDigest.getInstance("MD5").digest(data);
+        } catch (java.security.NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String hex(byte[] data) {
+        StringBuilder sb = new StringBuilder();
+        for (byte b : data) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private static class LocalBucket {
+        private final Date created = new Date();
+        private final NavigableMap<String, LocalObject> objects = new ConcurrentSkipListMap<>();
+        private volatile String policy;
+    }
+
+    private static class LocalObject {
+        private final byte[] data;
+        private final String contentType;
+        private final Map<String, String> metadata;
+        private final String etag;
+        // 精确到秒，与 HTTP 日期格式一致
+        private final Date lastModified = new Date(System.currentTimeMillis() / 1000 * 1000);
+
+        LocalObject(byte[] data, Headers headers) {
+            this(data, headers.getFirst("Content-Type") == null ? "application/octet-stream"
+                    : headers.getFirst("Content-Type"), userMetadata(headers), hex(md5(data)));
+        }
+
+        LocalObject(byte[] data, String contentType, Map<String, String> metadata, String etag) {
+            this.data = data;
+            this.contentType = contentType;
+            this.metadata = metadata;
+            this.etag = etag;
+        }
+
+        private static Map<String, String> userMetadata(Headers headers) {
+            Map<String, String> metadata = new HashMap<>();
+            headers.forEach((name, values) -> {
+                if (name.toLowerCase(Locale.ROOT).startsWith("x-amz-meta-")) {
+                    metadata.put(name.substring("x-amz-meta-".length()).toLowerCase(Locale.ROOT), values.get(0));
+                }
+            });
+            return metadata;
+        }
+    }
+
+    static List<String> filter(List<String> requests, String prefix) {
+        List<String> result = new ArrayList<>();
+        for (String request : requests) {
+            if (request.startsWith(prefix)) {
+                result.add(request);
+            }
+        }
+        return result;
+    }
+}
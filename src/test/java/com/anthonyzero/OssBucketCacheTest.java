@@ -0,0 +1,158 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.Bucket;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.routing.OssTemplateRegistry;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.PolicyType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.Optional;
+
+public class OssBucketCacheTest {
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private AmazonS3OssClient ossClient;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties("cached");
+        ossClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+    }
+
+    @AfterEach
+    public void destroy() {
+        ossClient.close();
+        ossClient.getAmazonS3().shutdown();
+        server.close();
+    }
+
+    /**
+     * 重复创建、查询 bucket 只在首次访问服务端
+     */
+    @Test
+    public void cachedBucketState() {
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        for (int i = 0; i < 5; i++) {
+            Assertions.assertTrue(ossTemplate.createBucket("cached", PolicyType.READ_WRITE));
+            Assertions.assertTrue(ossTemplate.existBucket("cached"));
+        }
+        Assertions.assertEquals(1, count("PUT /cached/"));
+        Assertions.assertEquals(1, count("PUT /cached/?policy"));
+        Assertions.assertEquals(0, count("GET /cached/?acl"));
+        Assertions.assertEquals(PolicyType.getPolicy(PolicyType.READ_WRITE, "cached"),
+                ossTemplate.getBucketPolicy("cached"));
+        Assertions.assertEquals(0, count("GET /cached/?policy"));
+
+        ossTemplate.createBucket("other");
+        for (int i = 0; i < 5; i++) {
+            Optional<Bucket> bucket = ossTemplate.getBucket("cached");
+            Assertions.assertTrue(bucket.isPresent());
+            Assertions.assertNotNull(bucket.get().getCreationDate());
+            Assertions.assertTrue(ossTemplate.getBucket("other").isPresent());
+            Assertions.assertFalse(ossTemplate.getBucket("missing").isPresent());
+        }
+        Assertions.assertEquals(1, count("GET /"));
+
+        ossTemplate.removeBucket("other");
+        Assertions.assertFalse(ossTemplate.existBucket("other"));
+        Assertions.assertFalse(ossTemplate.getBucket("other").isPresent());
+        Assertions.assertEquals(0, count("GET /other/?acl"));
+        Assertions.assertEquals(1, count("GET /"));
+    }
+
+    /**
+     * 其他途径修改后可以作废缓存
+     */
+    @Test
+    public void invalidate() {
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        Assertions.assertFalse(ossTemplate.existBucket("cached"));
+        ossClient.createBucket("cached");
+        Assertions.assertFalse(ossTemplate.existBucket("cached"));
+        ossTemplate.getBucketCache().invalidate("cached");
+        Assertions.assertTrue(ossTemplate.existBucket("cached"));
+        Assertions.assertEquals(2, count("GET /cached/?acl"));
+    }
+
+    @Test
+    public void disabled() {
+        properties.getBucketCache().setEnabled(false);
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertTrue(ossTemplate.createBucket("cached"));
+            Assertions.assertTrue(ossTemplate.existBucket("cached"));
+        }
+        Assertions.assertEquals(3, count("PUT /cached/"));
+        Assertions.assertEquals(3, count("GET /cached/?acl"));
+    }
+
+    /**
+     * 创建失败时不缓存不存在的状态，其他途径创建后可以立即查到
+     */
+    @Test
+    public void failedCreate() {
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        server.fail(1, 400, "PUT /cached");
+        Assertions.assertThrows(AmazonS3Exception.class, () -> ossTemplate.createBucket("cached"));
+        ossClient.createBucket("cached");
+        Assertions.assertTrue(ossTemplate.existBucket("cached"));
+    }
+
+    /**
+     * 名称被其他账号占用时创建失败，不写入缓存；已归属当前账号时视为成功
+     */
+    @Test
+    public void createExisting() {
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        server.fail(1, 409, "PUT /taken", "BucketAlreadyExists");
+        AmazonS3Exception e = Assertions.assertThrows(AmazonS3Exception.class,
+                () -> ossTemplate.createBucket("taken"));
+        Assertions.assertEquals("BucketAlreadyExists", e.getErrorCode());
+        Assertions.assertFalse(ossTemplate.existBucket("taken"));
+
+        server.fail(1, 409, "PUT /owned", "BucketAlreadyOwnedByYou");
+        Assertions.assertTrue(ossTemplate.createBucket("owned"));
+        Assertions.assertTrue(ossTemplate.existBucket("owned"));
+    }
+
+    /**
+     * 命名客户端沿用 oss.bucket-cache 配置
+     */
+    @Test
+    public void namedClientSettings() {
+        ossClient.createBucket("cached");
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-cache.enabled=false",
+                        "oss.clients.named.endpoint=" + server.getEndpoint(), "oss.clients.named.access-key=local",
+                        "oss.clients.named.secret-key=local", "oss.clients.named.bucket-name=cached")
+                .run(context -> {
+                    OssTemplate named = context.getBean(OssTemplateRegistry.class).getTemplate("named");
+                    for (int i = 0; i < 3; i++) {
+                        Assertions.assertTrue(named.existBucket("cached"));
+                    }
+                    Assertions.assertEquals(3, count("GET /cached/?acl"));
+                });
+    }
+
+    /**
+     * v1 客户端通过 GET ?acl 判断 bucket 是否存在
+     */
+    private long count(String request) {
+        return server.getRequests().stream().filter(request::equals).count();
+    }
+}
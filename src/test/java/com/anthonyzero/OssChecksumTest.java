@@ -0,0 +1,127 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.checksum.Crc32c;
+import com.anthonyzero.core.checksum.OssChecksumException;
+import com.anthonyzero.core.checksum.OssChecksums;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.ChecksumAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Checksum;
+
+public class OssChecksumTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private OssTemplate ossTemplate;
+
+    private byte[] data;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getChecksum().setEnabled(true);
+        properties.getMultipart().setPartSize(1000);
+        ossTemplate = new OssTemplate(properties, new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        data = new byte[3500];
+        new Random(42).nextBytes(data);
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.close();
+    }
+
+    /**
+     * CRC32C 已知向量，JDK 实现与查表实现一致
+     */
+    @Test
+    public void crc32c() {
+        byte[] vector = "123456789".getBytes(StandardCharsets.US_ASCII);
+        Checksum checksum = Crc32c.create();
+        checksum.update(vector, 0, vector.length);
+        Assertions.assertEquals(0xE3069283L, checksum.getValue());
+
+        Checksum fallback = new Crc32c();
+        fallback.update(data, 0, data.length);
+        checksum.reset();
+        checksum.update(data, 0, data.length);
+        Assertions.assertEquals(checksum.getValue(), fallback.getValue());
+    }
+
+    /**
+     * CRC32C 写入元数据，下载时校验
+     */
+    @Test
+    public void crc32cRoundTrip() throws Exception {
+        put("crc.bin");
+        Assertions.assertNotNull(server.getObjectMetadata(TEST_BUCKET_NAME, "crc.bin").get(OssChecksums.CRC32C_METADATA));
+        Assertions.assertArrayEquals(data, read("crc.bin"));
+
+        server.corrupt(TEST_BUCKET_NAME, "crc.bin");
+        Assertions.assertThrows(OssChecksumException.class, () -> read("crc.bin"));
+    }
+
+    /**
+     * MD5 通过 Content-MD5 上传，下载时与 ETag 比对
+     */
+    @Test
+    public void md5RoundTrip() throws Exception {
+        properties.getChecksum().setAlgorithm(ChecksumAlgorithm.MD5);
+        put("md5.bin");
+        Assertions.assertArrayEquals(data, read("md5.bin"));
+    }
+
+    /**
+     * 分片上传每片带 Content-MD5，下载时重算分片 ETag
+     */
+    @Test
+    public void multipartRoundTrip() throws Exception {
+        ossTemplate.putObjectMultipart(TEST_BUCKET_NAME, "multipart.bin", new ByteArrayInputStream(data),
+                "application/octet-stream");
+        Assertions.assertEquals(4, LocalS3Server.filter(server.getRequests(), "PUT /s3-oss/multipart.bin").size());
+        Assertions.assertArrayEquals(data, read("multipart.bin"));
+
+        server.corrupt(TEST_BUCKET_NAME, "multipart.bin");
+        Assertions.assertThrows(OssChecksumException.class, () -> read("multipart.bin"));
+    }
+
+    /**
+     * 超过一个分片的流不整体读入内存，改为分片上传
+     */
+    @Test
+    public void largeStreamUsesMultipart() throws Exception {
+        ossTemplate.putObject(TEST_BUCKET_NAME, "large.bin", new BufferedInputStream(new ByteArrayInputStream(data)),
+                data.length, "application/octet-stream");
+        Assertions.assertEquals(4, LocalS3Server.filter(server.getRequests(), "PUT /s3-oss/large.bin").size());
+        Assertions.assertArrayEquals(data, read("large.bin"));
+    }
+
+    private void put(String objectName) {
+        ossTemplate.putObject(TEST_BUCKET_NAME, objectName, new ByteArrayInputStream(data), data.length,
+                "application/octet-stream");
+    }
+
+    private byte[] read(String objectName) throws Exception {
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, objectName)) {
+            return IOUtils.toByteArray(s3Object.getObjectContent());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.codec.CompressingInputStream;
+import com.anthonyzero.core.codec.GzipCodec;
+import com.anthonyzero.core.codec.OssCodec;
+import com.anthonyzero.core.codec.OssCodecRegistry;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class OssCompressionTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private OssTemplate ossTemplate;
+
+    private byte[] data;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getCompression().setEnabled(true);
+        properties.getChecksum().setEnabled(true);
+        ossTemplate = new OssTemplate(properties, new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        StringBuilder log = new StringBuilder();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            log.append("{\"level\":\"INFO\",\"traceId\":").append(random.nextInt(1000))
+                    .append(",\"message\":\"request handled\"}\n");
+        }
+        data = log.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.close();
+    }
+
+    /**
+     * 单次上传：压缩后写入编码元数据，下载时自动解压
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "zstd", "lz4"})
+    public void putAndGet(String codec) throws Exception {
+        rule(codec);
+        String objectName = "logs/" + codec + ".json";
+        ossTemplate.putObject(TEST_BUCKET_NAME, objectName, new ByteArrayInputStream(data), data.length,
+                "application/json");
+        Assertions.assertEquals(codec, server.getObjectMetadata(TEST_BUCKET_NAME, objectName)
+                .get(OssCodecRegistry.CODEC_METADATA));
+        Assertions.assertTrue(server.getObjectData(TEST_BUCKET_NAME, objectName).length < data.length / 4);
+        Assertions.assertArrayEquals(data, read(objectName));
+    }
+
+    /**
+     * 压缩后超过一个分片时转为分片上传
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip", "zstd"})
+    public void multipart(String codec) throws Exception {
+        rule(codec);
+        properties.getMultipart().setPartSize(4096);
+        String objectName = "logs/multipart-" + codec + ".json";
+        ossTemplate.putObject(TEST_BUCKET_NAME, objectName, new ByteArrayInputStream(data), data.length,
+                "application/json");
+        Assertions.assertFalse(LocalS3Server.filter(server.getRequests(), "POST /s3-oss/" + objectName).isEmpty());
+        Assertions.assertArrayEquals(data, read(objectName));
+    }
+
+    /**
+     * 不匹配规则的对象原样上传
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"gzip"})
+    public void unmatched(String codec) throws Exception {
+        rule(codec);
+        ossTemplate.putObject(TEST_BUCKET_NAME, "images/raw.bin", new ByteArrayInputStream(data), data.length,
+                "application/octet-stream");
+        Assertions.assertArrayEquals(data, server.getObjectData(TEST_BUCKET_NAME, "images/raw.bin"));
+    }
+
+    /**
+     * 未读完就关闭时压缩流同样关闭
+     */
+    @Test
+    public void closeBeforeEnd() throws Exception {
+        AtomicBoolean closed = new AtomicBoolean();
+        OssCodec codec = new GzipCodec() {
+            @Override
+            public OutputStream compress(OutputStream out) throws IOException {
+                return new FilterOutputStream(super.compress(out)) {
+                    @Override
+                    public void close() throws IOException {
+                        closed.set(true);
+                        super.close();
+                    }
+                };
+            }
+        };
+        CompressingInputStream in = new CompressingInputStream(new ByteArrayInputStream(data), codec);
+        Assertions.assertTrue(in.read(new byte[100]) > 0);
+        in.close();
+        Assertions.assertTrue(closed.get());
+    }
+
+    private void rule(String codec) {
+        OssProperties.Compression.Rule rule = new OssProperties.Compression.Rule();
+        rule.setPrefix("logs/");
+        rule.setCodec(codec);
+        properties.getCompression().getRules().add(rule);
+    }
+
+    private byte[] read(String objectName) throws Exception {
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, objectName)) {
+            return IOUtils.toByteArray(s3Object.getObjectContent());
+        }
+    }
+}
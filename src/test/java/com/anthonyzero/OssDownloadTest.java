@@ -0,0 +1,351 @@
+package com.anthonyzero;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.web.OssDownloadHandler;
+import com.anthonyzero.core.web.OssDownloadServlet;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.OssWebAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import com.anthonyzero.support.DownloadMode;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.text.SimpleDateFormat;
+import java.time.Duration;
+import java.util.*;
+
+public class OssDownloadTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private AmazonS3OssClient ossClient;
+
+    private OssTemplate ossTemplate;
+
+    private byte[] data;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.setMaxConnections(1);
+        properties.getDownload().setBufferSize(64 * 1024);
+        ossClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate = new OssTemplate(properties, ossClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        data = new byte[2 * 1024 * 1024];
+        new Random(1).nextBytes(data);
+        ossTemplate.putObject(TEST_BUCKET_NAME, "videos/a.mp4", "video/mp4", new ByteArrayInputStream(data));
+    }
+
+    @AfterEach
+    public void destroy() {
+        ossClient.close();
+        ossClient.getAmazonS3().shutdown();
+        server.close();
+    }
+
+    /**
+     * Range 透传给对象存储，只传输请求的区间
+     */
+    @Test
+    public void range() throws Exception {
+        OssDownloadHandler handler = new OssDownloadHandler(ossTemplate, properties.getDownload());
+        FakeResponse response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET", "Range", "bytes=1000-1999"), response.proxy());
+        Assertions.assertEquals(206, response.status);
+        Assertions.assertEquals("bytes 1000-1999/" + data.length, response.headers.get("Content-Range"));
+        Assertions.assertEquals("1000", response.headers.get("Content-Length"));
+        Assertions.assertEquals("bytes", response.headers.get("Accept-Ranges"));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 1000, 2000), response.body.toByteArray());
+        Assertions.assertTrue(server.getRequests().contains("GET /s3-oss/videos/a.mp4 bytes=1000-1999"),
+                server.getRequests().toString());
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET", "Range", "bytes=-100"), response.proxy());
+        Assertions.assertEquals(206, response.status);
+        Assertions.assertEquals("bytes " + (data.length - 100) + "-" + (data.length - 1) + "/" + data.length,
+                response.headers.get("Content-Range"));
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, data.length - 100, data.length),
+                response.body.toByteArray());
+        // 后缀区间原样透传，不额外发起 HEAD 请求
+        Assertions.assertTrue(server.getRequests().contains("GET /s3-oss/videos/a.mp4 bytes=-100"),
+                server.getRequests().toString());
+        Assertions.assertTrue(LocalS3Server.filter(server.getRequests(), "HEAD ").isEmpty(),
+                server.getRequests().toString());
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET"), response.proxy());
+        Assertions.assertEquals(200, response.status);
+        Assertions.assertEquals("video/mp4", response.headers.get("Content-Type"));
+        Assertions.assertArrayEquals(data, response.body.toByteArray());
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/missing.mp4", request("GET"), response.proxy());
+        Assertions.assertEquals(404, response.status);
+    }
+
+    /**
+     * 浏览器缓存的条件请求由对象存储返回 304，不传输内容
+     */
+    @Test
+    public void conditional() throws Exception {
+        OssDownloadHandler handler = new OssDownloadHandler(ossTemplate, properties.getDownload());
+        FakeResponse response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("HEAD"), response.proxy());
+        Assertions.assertEquals(200, response.status);
+        Assertions.assertEquals(String.valueOf(data.length), response.headers.get("Content-Length"));
+        Assertions.assertEquals(0, response.body.size());
+        String etag = response.headers.get("ETag");
+        Assertions.assertNotNull(etag);
+        Assertions.assertNotNull(response.headers.get("Last-Modified"));
+        Assertions.assertTrue(LocalS3Server.filter(server.getRequests(), "GET /s3-oss/videos/").isEmpty());
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET", "If-None-Match", etag), response.proxy());
+        Assertions.assertEquals(304, response.status);
+        Assertions.assertEquals(0, response.body.size());
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4",
+                request("GET", "If-Modified-Since", httpDate(new Date(System.currentTimeMillis() + 60000))),
+                response.proxy());
+        Assertions.assertEquals(304, response.status);
+
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4",
+                request("GET", "If-Modified-Since", httpDate(new Date(System.currentTimeMillis() - 3600000))),
+                response.proxy());
+        Assertions.assertEquals(200, response.status);
+        Assertions.assertEquals(data.length, response.body.size());
+    }
+
+    /**
+     * 客户端中途断开时立即释放连接，连接池只有一个连接时后续下载不受影响
+     */
+    @Test
+    public void clientAbort() {
+        OssDownloadHandler handler = new OssDownloadHandler(ossTemplate, properties.getDownload());
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+            for (int i = 0; i < 3; i++) {
+                FakeResponse aborted = new FakeResponse(100 * 1024);
+                handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET"), aborted.proxy());
+                Assertions.assertTrue(aborted.body.size() < data.length);
+            }
+            FakeResponse response = new FakeResponse(-1);
+            handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET"), response.proxy());
+            Assertions.assertArrayEquals(data, response.body.toByteArray());
+        });
+    }
+
+    /**
+     * 重定向模式返回预签名地址，不经过应用转发内容
+     */
+    @Test
+    public void redirect() throws Exception {
+        properties.getDownload().setMode(DownloadMode.REDIRECT);
+        OssDownloadHandler handler = new OssDownloadHandler(ossTemplate, properties.getDownload());
+        FakeResponse response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "videos/a.mp4", request("GET", "Range", "bytes=0-99"), response.proxy());
+        Assertions.assertEquals(302, response.status);
+        String location = response.headers.get("Location");
+        Assertions.assertTrue(location.startsWith(server.getEndpoint() + "/s3-oss/videos/a.mp4?"), location);
+        Assertions.assertTrue(location.contains("Signature"), location);
+        Assertions.assertTrue(LocalS3Server.filter(server.getRequests(), "GET /s3-oss/videos/").isEmpty());
+    }
+
+    /**
+     * 压缩的对象直接解码第一次响应，只有带 Range 的请求重新下载完整对象
+     */
+    @Test
+    public void encoded() throws Exception {
+        properties.getCompression().setEnabled(true);
+        OssProperties.Compression.Rule rule = new OssProperties.Compression.Rule();
+        rule.setPrefix("logs/");
+        properties.getCompression().getRules().add(rule);
+        byte[] text = new byte[100 * 1024];
+        Arrays.fill(text, (byte) 'a');
+        ossTemplate.putObject(TEST_BUCKET_NAME, "logs/a.log", new ByteArrayInputStream(text), text.length,
+                "text/plain");
+        OssDownloadHandler handler = new OssDownloadHandler(ossTemplate, properties.getDownload());
+
+        server.getRequests().clear();
+        FakeResponse response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "logs/a.log", request("GET"), response.proxy());
+        Assertions.assertEquals(200, response.status);
+        Assertions.assertArrayEquals(text, response.body.toByteArray());
+        Assertions.assertEquals(1, LocalS3Server.filter(server.getRequests(), "GET /s3-oss/logs/a.log").size());
+
+        server.getRequests().clear();
+        response = new FakeResponse(-1);
+        handler.handle(TEST_BUCKET_NAME, "logs/a.log", request("GET", "Range", "bytes=0-99"), response.proxy());
+        Assertions.assertEquals(200, response.status);
+        Assertions.assertNull(response.headers.get("Content-Range"));
+        Assertions.assertArrayEquals(text, response.body.toByteArray());
+        Assertions.assertEquals(2, LocalS3Server.filter(server.getRequests(), "GET /s3-oss/logs/a.log").size());
+    }
+
+    /**
+     * Servlet 只允许下载配置前缀下的对象
+     */
+    @Test
+    public void servlet() throws Exception {
+        properties.getDownload().getPrefixes().add("videos/");
+        OssDownloadServlet servlet = new OssDownloadServlet(
+                new OssDownloadHandler(ossTemplate, properties.getDownload()), properties.getDownload(),
+                TEST_BUCKET_NAME);
+        ossTemplate.putObject("private/a.txt", new ByteArrayInputStream(new byte[10]));
+        for (String path : new String[]{"/private/a.txt", "/videos/../private/a.txt", "/", "/videos/missing"}) {
+            FakeResponse response = new FakeResponse(-1);
+            servlet.service(servletRequest("GET", path), response.proxy());
+            Assertions.assertEquals(404, response.status, path);
+        }
+        FakeResponse response = new FakeResponse(-1);
+        servlet.service(servletRequest("GET", "/videos/a.mp4", "Range", "bytes=10-19"), response.proxy());
+        Assertions.assertEquals(206, response.status);
+        Assertions.assertArrayEquals(Arrays.copyOfRange(data, 10, 20), response.body.toByteArray());
+    }
+
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class, OssWebAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.download.enabled=true")
+                .run(context -> {
+                    Assertions.assertNotNull(context.getBean(OssDownloadHandler.class));
+                    // 非 Servlet 应用不注册下载 Servlet
+                    Assertions.assertTrue(context.getBeansOfType(ServletRegistrationBean.class).isEmpty());
+                });
+    }
+
+    private static HttpServletRequest request(String method, String... headers) {
+        return servletRequest(method, null, headers);
+    }
+
+    private static HttpServletRequest servletRequest(String method, String pathInfo, String... headers) {
+        Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < headers.length; i += 2) {
+            values.put(headers[i], headers[i + 1]);
+        }
+        return (HttpServletRequest) Proxy.newProxyInstance(OssDownloadTest.class.getClassLoader(),
+                new Class[]{HttpServletRequest.class}, (proxy, m, args) -> {
+                    switch (m.getName()) {
+                        case "getMethod":
+                            return method;
+                        case "getPathInfo":
+                            return pathInfo;
+                        case "getProtocol":
+                            return "HTTP/1.1";
+                        case "getHeader":
+                            return values.get((String) args[0]);
+                        case "getDateHeader":
+                            String value = values.get((String) args[0]);
+                            return value == null ? -1L : dateFormat().parse(value).getTime();
+                        default:
+                            return null;
+                    }
+                });
+    }
+
+    private static String httpDate(Date date) {
+        return dateFormat().format(date);
+    }
+
+    private static SimpleDateFormat dateFormat() {
+        SimpleDateFormat format = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss zzz", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("GMT"));
+        return format;
+    }
+
+    /**
+     * 记录状态、响应头与内容，写出超过 {@code failAfter} 字节后模拟客户端断开
+     */
+    private static class FakeResponse {
+
+        private final Map<String, String> headers = new HashMap<>();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        private final int failAfter;
+
+        private int status = 200;
+
+        private FakeResponse(int failAfter) {
+            this.failAfter = failAfter;
+        }
+
+        private HttpServletResponse proxy() {
+            ServletOutputStream out = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[]{(byte) b}, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (failAfter >= 0 && body.size() + len > failAfter) {
+                        throw new IOException("Broken pipe");
+                    }
+                    body.write(b, off, len);
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                }
+            };
+            return (HttpServletResponse) Proxy.newProxyInstance(OssDownloadTest.class.getClassLoader(),
+                    new Class[]{HttpServletResponse.class}, (proxy, m, args) -> {
+                        switch (m.getName()) {
+                            case "setStatus":
+                            case "sendError":
+                                status = (Integer) args[0];
+                                return null;
+                            case "sendRedirect":
+                                status = 302;
+                                headers.put("Location", (String) args[0]);
+                                return null;
+                            case "setHeader":
+                                headers.put((String) args[0], (String) args[1]);
+                                return null;
+                            case "setDateHeader":
+                                headers.put((String) args[0], httpDate(new Date((Long) args[1])));
+                                return null;
+                            case "setContentType":
+                                headers.put("Content-Type", (String) args[0]);
+                                return null;
+                            case "setContentLengthLong":
+                                headers.put("Content-Length", String.valueOf(args[0]));
+                                return null;
+                            case "getOutputStream":
+                                return out;
+                            default:
+                                return null;
+                        }
+                    });
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.crypto.LocalKeyProvider;
+import com.anthonyzero.core.crypto.OssEncryptor;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Random;
+
+public class OssEncryptionTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private static final int FRAME_SIZE = 1024;
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private OssTemplate ossTemplate;
+
+    private LocalKeyProvider keyProvider;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getEncryption().setEnabled(true);
+        properties.getEncryption().setFrameSize(FRAME_SIZE);
+        OssProperties.Encryption.Rule rule = new OssProperties.Encryption.Rule();
+        rule.setPrefix("tenant-a/");
+        rule.setKeyId("tenant-a");
+        properties.getEncryption().getRules().add(rule);
+        byte[] masterKey = new byte[32];
+        new Random(1).nextBytes(masterKey);
+        keyProvider = new LocalKeyProvider(Collections.singletonMap("tenant-a",
+                Base64.getEncoder().encodeToString(masterKey)));
+        ossTemplate = new OssTemplate(properties, new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate.setEncryptor(new OssEncryptor(keyProvider, FRAME_SIZE));
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.close();
+    }
+
+    /**
+     * 加密上传、解密下载，包括空对象和帧长整数倍的对象
+     */
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, FRAME_SIZE, FRAME_SIZE * 3, 5000})
+    public void roundTrip(int size) throws Exception {
+        byte[] data = random(size);
+        String objectName = "tenant-a/" + size + ".bin";
+        put(objectName, data);
+        byte[] stored = server.getObjectData(TEST_BUCKET_NAME, objectName);
+        Assertions.assertEquals(size + (size / FRAME_SIZE + 1) * 16, stored.length);
+        Assertions.assertArrayEquals(data, read(objectName));
+    }
+
+    /**
+     * 与压缩、校验、分片上传组合
+     */
+    @Test
+    public void multipartWithCompressionAndChecksum() throws Exception {
+        properties.getChecksum().setEnabled(true);
+        properties.getMultipart().setPartSize(2000);
+        properties.getCompression().setEnabled(true);
+        OssProperties.Compression.Rule rule = new OssProperties.Compression.Rule();
+        rule.setPrefix("tenant-a/");
+        properties.getCompression().getRules().add(rule);
+        byte[] data = new byte[50000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + i % 7);
+        }
+        data[100] = 42;
+        ossTemplate.putObjectMultipart(TEST_BUCKET_NAME, "tenant-a/multipart.txt", new ByteArrayInputStream(data),
+                "text/plain");
+        Assertions.assertArrayEquals(data, read("tenant-a/multipart.txt"));
+    }
+
+    /**
+     * Range 下载只解密覆盖的帧，一次请求
+     */
+    @Test
+    public void range() throws Exception {
+        byte[] data = random(20000);
+        put("tenant-a/range.bin", data);
+        Random random = new Random(3);
+        for (int i = 0; i < 30; i++) {
+            int start = random.nextInt(data.length);
+            int end = Math.min(data.length - 1, start + random.nextInt(5000));
+            server.getRequests().clear();
+            try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, "tenant-a/range.bin", start, end)) {
+                Assertions.assertArrayEquals(Arrays.copyOfRange(data, start, end + 1),
+                        IOUtils.toByteArray(s3Object.getObjectContent()));
+            }
+            Assertions.assertEquals(1, server.getRequests().size());
+        }
+    }
+
+    /**
+     * 未加密的对象从帧对齐的响应中截取区间，对齐区间覆盖起点时不重复请求
+     */
+    @Test
+    public void plaintextRange() throws Exception {
+        byte[] data = random(20000);
+        ossTemplate.putObject(TEST_BUCKET_NAME, "plain/range.bin", new ByteArrayInputStream(data), data.length,
+                "application/octet-stream");
+        Random random = new Random(5);
+        for (int i = 0; i < 30; i++) {
+            int start = random.nextInt(data.length);
+            int end = Math.min(data.length - 1, start + random.nextInt(5000));
+            server.getRequests().clear();
+            try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, "plain/range.bin", start, end)) {
+                Assertions.assertArrayEquals(Arrays.copyOfRange(data, start, end + 1),
+                        IOUtils.toByteArray(s3Object.getObjectContent()));
+                Assertions.assertEquals(end - start + 1, s3Object.getObjectMetadata().getContentLength());
+            }
+            if (start < FRAME_SIZE) {
+                Assertions.assertEquals(1, server.getRequests().size());
+            }
+        }
+    }
+
+    /**
+     * 配置的帧长与对象不一致时按对象元数据重新请求
+     */
+    @Test
+    public void rangeWithDifferentFrameSize() throws Exception {
+        byte[] data = random(20000);
+        put("tenant-a/frame.bin", data);
+        ossTemplate.setEncryptor(new OssEncryptor(keyProvider, 4096));
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, "tenant-a/frame.bin", 5000, 9999)) {
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5000, 10000),
+                    IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+    }
+
+    /**
+     * 加密规则变更后仍按对象元数据解密
+     */
+    @Test
+    public void rangeAfterRuleChange() throws Exception {
+        byte[] data = random(20000);
+        put("tenant-a/moved.bin", data);
+        properties.getEncryption().getRules().get(0).setPrefix("tenant-b/");
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, "tenant-a/moved.bin", 5000, 9999)) {
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, 5000, 10000),
+                    IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+    }
+
+    /**
+     * 随机读取通道不支持加密的对象
+     */
+    @Test
+    public void channelRejectsEncrypted() throws Exception {
+        put("tenant-a/channel.bin", random(5000));
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, "tenant-a/channel.bin")) {
+            Assertions.assertThrows(UnsupportedOperationException.class, () -> channel.read(ByteBuffer.allocate(10)));
+        }
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, "tenant-a/channel.bin")) {
+            Assertions.assertThrows(UnsupportedOperationException.class, channel::size);
+        }
+    }
+
+    /**
+     * 密文被篡改时认证失败
+     */
+    @Test
+    public void tampered() {
+        byte[] data = random(5000);
+        put("tenant-a/tampered.bin", data);
+        server.corrupt(TEST_BUCKET_NAME, "tenant-a/tampered.bin");
+        Assertions.assertThrows(IOException.class, () -> read("tenant-a/tampered.bin"));
+    }
+
+    private void put(String objectName, byte[] data) {
+        ossTemplate.putObject(TEST_BUCKET_NAME, objectName, new ByteArrayInputStream(data), data.length,
+                "application/octet-stream");
+    }
+
+    private byte[] read(String objectName) throws Exception {
+        try (S3Object s3Object = ossTemplate.getObject(TEST_BUCKET_NAME, objectName)) {
+            return IOUtils.toByteArray(s3Object.getObjectContent());
+        }
+    }
+
+    private static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
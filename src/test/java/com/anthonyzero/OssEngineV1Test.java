@@ -0,0 +1,20 @@
+package com.anthonyzero;
+
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+
+public class OssEngineV1Test extends AbstractOssEngineTest {
+
+    @Override
+    protected OssClient newClient(OssProperties properties) {
+        return new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+    }
+
+    @Override
+    protected void closeClient(OssClient ossClient) {
+        ossClient.close();
+        ((AmazonS3OssClient) ossClient).getAmazonS3().shutdown();
+    }
+}
@@ -0,0 +1,46 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.S3AsyncOssClient;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+public class OssEngineV2AsyncTest extends AbstractOssEngineTest {
+
+    private S3Presigner presigner;
+
+    @Override
+    protected OssClient newClient(OssProperties properties) {
+        OssAutoConfiguration.S3AsyncClientConfiguration configuration = new OssAutoConfiguration.S3AsyncClientConfiguration();
+        presigner = configuration.s3Presigner(properties);
+        return new S3AsyncOssClient(configuration.s3AsyncClient(properties), presigner);
+    }
+
+    @Override
+    protected void closeClient(OssClient ossClient) {
+        ossClient.close();
+        ((S3AsyncOssClient) ossClient).getS3AsyncClient().close();
+        presigner.close();
+    }
+
+    /**
+     * oss.engine=v2-async 时自动配置异步引擎
+     */
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner().withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=http://127.0.0.1:9000", "oss.access-key=local",
+                        "oss.secret-key=local", "oss.engine=v2-async")
+                .run(context -> {
+                    Assertions.assertEquals(0, context.getBeanNamesForType(AmazonS3.class).length);
+                    Assertions.assertTrue(context.getBean(OssTemplate.class).getOssClient() instanceof S3AsyncOssClient);
+                });
+    }
+}
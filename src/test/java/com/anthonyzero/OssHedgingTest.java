@@ -0,0 +1,175 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.hedge.HedgeStats;
+import com.anthonyzero.core.hedge.HedgingOssClient;
+import com.anthonyzero.core.hedge.OssHedgeMeterBinder;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class OssHedgingTest {
+
+    private static final String TEST_BUCKET_NAME = "hedge";
+
+    private static final byte[] DATA = "hedged".getBytes(StandardCharsets.UTF_8);
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private AmazonS3OssClient amazonS3OssClient;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getHedge().setEnabled(true);
+        properties.getHedge().setInitialDelay(20);
+        properties.getHedge().setMaxDelay(200);
+        amazonS3OssClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+        OssTemplate ossTemplate = new OssTemplate(properties, amazonS3OssClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        ossTemplate.putObject("a.txt", new ByteArrayInputStream(DATA));
+    }
+
+    @AfterEach
+    public void destroy() {
+        amazonS3OssClient.close();
+        amazonS3OssClient.getAmazonS3().shutdown();
+        server.close();
+    }
+
+    /**
+     * 首次请求变慢时对冲请求先返回，GET、HEAD、异步 GET 均生效
+     */
+    @Test
+    public void hedgeSlowReads() throws Exception {
+        properties.getHedge().setBudgetPercent(100);
+        // 对冲请求晚于首次请求到达服务端，慢请求总是首次请求
+        properties.getHedge().setMinDelay(100);
+        HedgingOssClient hedgingOssClient = new HedgingOssClient(amazonS3OssClient, properties.getHedge());
+        OssTemplate ossTemplate = new OssTemplate(properties, hedgingOssClient);
+        HedgeStats stats = hedgingOssClient.getStats();
+        for (int i = 0; i < 30; i++) {
+            ossTemplate.getObjectMetadata("a.txt");
+        }
+        Assertions.assertEquals(100, stats.getDelayMillis(), stats.toString());
+
+        long wins = stats.getWins();
+        server.slowDown(1, 1500);
+        long start = System.nanoTime();
+        try (S3Object s3Object = ossTemplate.getObject("a.txt")) {
+            Assertions.assertArrayEquals(DATA, IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L, stats.toString());
+        Assertions.assertEquals(wins + 1, stats.getWins(), stats.toString());
+
+        server.slowDown(1, 1500);
+        start = System.nanoTime();
+        Assertions.assertEquals(DATA.length, ossTemplate.getObjectMetadata("a.txt").getContentLength());
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L, stats.toString());
+
+        server.slowDown(1, 1500);
+        start = System.nanoTime();
+        Assertions.assertArrayEquals(DATA, ossTemplate.getObjectAsync("a.txt").join());
+        Assertions.assertTrue(System.nanoTime() - start < 1_000_000_000L, stats.toString());
+        Assertions.assertEquals(wins + 3, stats.getWins(), stats.toString());
+        Assertions.assertEquals(3, stats.getHedges(), stats.toString());
+        Assertions.assertEquals(33, stats.getRequests());
+    }
+
+    /**
+     * 阻塞读取的线程数有上限，超出时排队；关闭后不再接受请求
+     */
+    @Test
+    public void boundedThreads() throws Exception {
+        properties.getHedge().setBudgetPercent(100);
+        properties.getHedge().setThreads(1);
+        HedgingOssClient hedgingOssClient = new HedgingOssClient(amazonS3OssClient, properties.getHedge());
+        OssTemplate ossTemplate = new OssTemplate(properties, hedgingOssClient);
+        server.slowDown(1, 500);
+        long start = System.nanoTime();
+        Assertions.assertEquals(DATA.length, ossTemplate.getObjectMetadata("a.txt").getContentLength());
+        // 唯一的线程被慢请求占用，对冲请求只能排队
+        Assertions.assertTrue(System.nanoTime() - start >= 500_000_000L);
+
+        hedgingOssClient.close();
+        Assertions.assertThrows(RejectedExecutionException.class, () -> ossTemplate.getObjectMetadata("a.txt"));
+    }
+
+    /**
+     * 关闭容器时对冲客户端的线程池随之关闭
+     */
+    @Test
+    public void closeWithContext() {
+        AtomicReference<OssTemplate> template = new AtomicReference<>();
+        new ApplicationContextRunner().withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=" + TEST_BUCKET_NAME, "oss.hedge.enabled=true",
+                        "oss.lazy-init.enabled=true")
+                .run(context -> {
+                    OssTemplate ossTemplate = context.getBean(OssTemplate.class);
+                    Assertions.assertEquals(DATA.length, ossTemplate.getObjectMetadata("a.txt").getContentLength());
+                    template.set(ossTemplate);
+                });
+        Assertions.assertThrows(RejectedExecutionException.class, () -> template.get().getObjectMetadata("a.txt"));
+    }
+
+    /**
+     * 预算耗尽时不发出对冲请求
+     */
+    @Test
+    public void budget() throws Exception {
+        properties.getHedge().setBudgetPercent(0);
+        HedgingOssClient hedgingOssClient = new HedgingOssClient(amazonS3OssClient, properties.getHedge());
+        OssTemplate ossTemplate = new OssTemplate(properties, hedgingOssClient);
+        server.slowDown(1, 300);
+        long start = System.nanoTime();
+        try (S3Object s3Object = ossTemplate.getObject("a.txt")) {
+            Assertions.assertArrayEquals(DATA, IOUtils.toByteArray(s3Object.getObjectContent()));
+        }
+        Assertions.assertTrue(System.nanoTime() - start >= 300_000_000L);
+        HedgeStats stats = hedgingOssClient.getStats();
+        Assertions.assertEquals(0, stats.getHedges());
+        Assertions.assertEquals(1, stats.getBudgetExhausted());
+        Assertions.assertEquals(1, server.getRequests().stream()
+                .filter(r -> r.equals("GET /" + TEST_BUCKET_NAME + "/a.txt")).count());
+    }
+
+    /**
+     * oss.hedge.enabled=true 时自动包装客户端并注册指标
+     */
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner().withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=" + TEST_BUCKET_NAME, "oss.hedge.enabled=true")
+                .run(context -> {
+                    OssTemplate ossTemplate = context.getBean(OssTemplate.class);
+                    Assertions.assertTrue(ossTemplate.getOssClient() instanceof HedgingOssClient);
+                    Assertions.assertSame(context.getBean(OssClient.class), ossTemplate.getOssClient());
+                    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+                    context.getBean(OssHedgeMeterBinder.class).bindTo(registry);
+                    ossTemplate.getObjectMetadata("a.txt");
+                    Assertions.assertEquals(1, registry.get("oss.hedge.requests").tag("client", "default")
+                            .functionCounter().count());
+                    Assertions.assertNotNull(registry.get("oss.hedge.delay").gauge());
+                });
+    }
+}
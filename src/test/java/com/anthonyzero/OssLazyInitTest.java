@@ -0,0 +1,106 @@
+package com.anthonyzero;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.LazyOssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OssLazyInitTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private ApplicationContextRunner runner;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        runner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=" + TEST_BUCKET_NAME);
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.close();
+    }
+
+    /**
+     * 启动时不创建 AmazonS3，首次请求时创建
+     */
+    @Test
+    public void createOnFirstUse() {
+        runner.withPropertyValues("oss.lazy-init.enabled=true").run(context -> {
+            LazyOssClient ossClient = (LazyOssClient) context.getBean(OssClient.class);
+            Assertions.assertFalse(ossClient.isInitialized());
+            Assertions.assertFalse(context.getBeanFactory().containsSingleton("amazonS3"));
+
+            OssTemplate ossTemplate = context.getBean(OssTemplate.class);
+            ossTemplate.createBucket(TEST_BUCKET_NAME);
+            ossTemplate.putObject(TEST_BUCKET_NAME, "a.txt", "text/plain",
+                    new ByteArrayInputStream("a".getBytes(StandardCharsets.UTF_8)));
+            Assertions.assertTrue(ossClient.isInitialized());
+            Assertions.assertTrue(context.getBeanFactory().containsSingleton("amazonS3"));
+            Assertions.assertArrayEquals("a".getBytes(StandardCharsets.UTF_8),
+                    server.getObjectData(TEST_BUCKET_NAME, "a.txt"));
+        });
+    }
+
+    /**
+     * 应用启动完成后在后台创建
+     */
+    @Test
+    public void warmUp() {
+        runner.withPropertyValues("oss.lazy-init.enabled=true").run(context -> {
+            LazyOssClient ossClient = (LazyOssClient) context.getBean(OssClient.class);
+            context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0],
+                    context.getSourceApplicationContext()));
+            for (int i = 0; i < 500 && !ossClient.isInitialized(); i++) {
+                Thread.sleep(10);
+            }
+            Assertions.assertTrue(ossClient.isInitialized());
+        });
+        runner.withPropertyValues("oss.lazy-init.enabled=true", "oss.lazy-init.warm-up=false").run(context -> {
+            LazyOssClient ossClient = (LazyOssClient) context.getBean(OssClient.class);
+            context.publishEvent(new ApplicationReadyEvent(new SpringApplication(), new String[0],
+                    context.getSourceApplicationContext()));
+            Thread.sleep(100);
+            Assertions.assertFalse(ossClient.isInitialized());
+        });
+    }
+
+    @Test
+    public void closeWithoutCreating() {
+        AtomicInteger created = new AtomicInteger();
+        LazyOssClient ossClient = new LazyOssClient(() -> {
+            created.incrementAndGet();
+            throw new IllegalStateException();
+        });
+        ossClient.close();
+        Assertions.assertThrows(IllegalStateException.class, () -> ossClient.listBuckets());
+        Assertions.assertEquals(0, created.get());
+    }
+
+    @Test
+    public void eagerByDefault() {
+        runner.run(context -> {
+            Assertions.assertTrue(context.getBean(OssClient.class) instanceof AmazonS3OssClient);
+            Assertions.assertFalse(context.containsBean("ossClientWarmUp"));
+        });
+    }
+}
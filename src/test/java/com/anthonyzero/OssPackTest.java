@@ -0,0 +1,274 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.pack.OssPackStore;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+public class OssPackTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private AmazonS3OssClient ossClient;
+
+    private OssTemplate ossTemplate;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getMultipart().setPartSize(1024);
+        properties.getPack().setPackSize(4096);
+        properties.getPack().setFlushInterval(0);
+        properties.getPack().setCompactInterval(0);
+        ossClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate = new OssTemplate(properties, ossClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+    }
+
+    @AfterEach
+    public void destroy() {
+        ossClient.close();
+        ossClient.getAmazonS3().shutdown();
+        server.close();
+    }
+
+    /**
+     * 小对象打包为分片上传的 pack，读取只发起一次 Range GET
+     */
+    @Test
+    public void putAndGet() {
+        Map<String, byte[]> objects = new LinkedHashMap<>();
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            for (int i = 0; i < 50; i++) {
+                String key = "thumbs/" + i + ".jpg";
+                objects.put(key, random(100 + i * 5, i));
+                store.put(key, objects.get(key));
+            }
+            store.put("thumbs/empty.jpg", new byte[0]);
+            objects.put("thumbs/empty.jpg", new byte[0]);
+            // 未上传的内容从内存读取
+            Assertions.assertArrayEquals(objects.get("thumbs/49.jpg"), store.get("thumbs/49.jpg"));
+            Assertions.assertTrue(store.exists("thumbs/49.jpg"));
+        }
+        Assertions.assertTrue(LocalS3Server.filter(server.getRequests(), "GET /s3-oss/packs/data/").isEmpty());
+        Assertions.assertFalse(LocalS3Server.filter(server.getRequests(), "POST /s3-oss/packs/data/").isEmpty());
+        // 51 个对象存放在少量 pack 中
+        List<String> packs = keys("packs/data/");
+        Assertions.assertTrue(packs.size() <= 5, packs.toString());
+
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            server.getRequests().clear();
+            for (Map.Entry<String, byte[]> entry : objects.entrySet()) {
+                Assertions.assertArrayEquals(entry.getValue(), store.get(entry.getKey()), entry.getKey());
+            }
+            Assertions.assertNull(store.get("thumbs/missing.jpg"));
+            Assertions.assertFalse(store.exists("thumbs/missing.jpg"));
+            List<String> reads = LocalS3Server.filter(server.getRequests(), "GET /s3-oss/packs/data/");
+            Assertions.assertEquals(objects.size() - 1, reads.size());
+            Assertions.assertTrue(reads.stream().allMatch(request -> request.contains(" bytes=")), reads.toString());
+            Assertions.assertEquals(server.getRequests().size(), reads.size());
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new OssPackStore(properties, ossTemplate)
+                .put("big", new byte[properties.getPack().getMaxObjectSize() + 1]));
+    }
+
+    /**
+     * 删除与覆盖在压缩后回收空间，索引合并为一个索引段
+     */
+    @Test
+    public void deleteAndCompact() {
+        properties.getPack().setCompactThreshold(0.4);
+        Map<String, byte[]> expected = new HashMap<>();
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            for (int i = 0; i < 40; i++) {
+                store.put("k" + i, random(200, i));
+                expected.put("k" + i, random(200, i));
+            }
+            store.flush();
+            for (int i = 0; i < 40; i += 2) {
+                Assertions.assertTrue(store.delete("k" + i));
+                expected.remove("k" + i);
+            }
+            Assertions.assertFalse(store.delete("k0"));
+            Assertions.assertFalse(store.delete("missing"));
+            store.put("k1", random(300, 1000));
+            expected.put("k1", random(300, 1000));
+            store.flush();
+            Assertions.assertNull(store.get("k0"));
+            int packsBefore = keys("packs/data/").size();
+
+            store.compact();
+            Assertions.assertEquals(1, store.getSegmentCount());
+            Assertions.assertEquals(1, keys("packs/index/").size());
+            Assertions.assertTrue(keys("packs/data/").size() < packsBefore);
+            assertContent(store, expected);
+
+            // 没有变化时不再重写索引
+            List<String> index = keys("packs/index/");
+            store.compact();
+            Assertions.assertEquals(index, keys("packs/index/"));
+        }
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            assertContent(store, expected);
+        }
+    }
+
+    /**
+     * 索引段超过上限时合并较新的索引段，分页加载全部索引段
+     */
+    @Test
+    public void mergeSegments() {
+        properties.getPack().setMaxSegments(4);
+        server.setMaxKeys(2);
+        Map<String, byte[]> expected = new HashMap<>();
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            for (int i = 0; i < 12; i++) {
+                store.put("k" + i, random(50, i));
+                store.put("shared", random(60, i));
+                if (i == 5) {
+                    store.delete("k0");
+                }
+                store.flush();
+                Assertions.assertTrue(store.getSegmentCount() <= 4, String.valueOf(store.getSegmentCount()));
+            }
+            for (int i = 1; i < 12; i++) {
+                expected.put("k" + i, random(50, i));
+            }
+            expected.put("shared", random(60, 11));
+            assertContent(store, expected);
+            Assertions.assertNull(store.get("k0"));
+        }
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            Assertions.assertEquals(keys("packs/index/").size(), store.getSegmentCount());
+            assertContent(store, expected);
+            Assertions.assertNull(store.get("k0"));
+        }
+    }
+
+    /**
+     * pack 已上传但索引段写入失败时，之后的写入进入新的 pack，重试后全部可读
+     */
+    @Test
+    public void retryAfterIndexFailure() {
+        Map<String, byte[]> expected = new HashMap<>();
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            for (int i = 0; i < 3; i++) {
+                store.put("a" + i, random(100, i));
+                expected.put("a" + i, random(100, i));
+            }
+            server.fail(1, 400, "PUT /s3-oss/packs/index/");
+            Assertions.assertThrows(AmazonS3Exception.class, store::flush);
+            Assertions.assertEquals(1, keys("packs/data/").size());
+            Assertions.assertEquals(0, store.getSegmentCount());
+
+            for (int i = 0; i < 3; i++) {
+                store.put("b" + i, random(120, i + 10));
+                expected.put("b" + i, random(120, i + 10));
+            }
+            store.put("a0", random(80, 99));
+            expected.put("a0", random(80, 99));
+            assertContent(store, expected);
+            store.flush();
+            Assertions.assertEquals(2, store.getSegmentCount());
+            Assertions.assertEquals(2, keys("packs/data/").size());
+            assertContent(store, expected);
+        }
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            assertContent(store, expected);
+        }
+    }
+
+    /**
+     * 只读实例加载时索引段已被写入实例删除，重新列举后加载
+     */
+    @Test
+    public void reloadAfterSegmentDeleted() {
+        Map<String, byte[]> expected = new HashMap<>();
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            for (int i = 0; i < 3; i++) {
+                store.put("k" + i, random(100, i));
+                expected.put("k" + i, random(100, i));
+                store.flush();
+            }
+        }
+        server.getRequests().clear();
+        server.fail(1, 404, "GET /s3-oss/packs/index/", "NoSuchKey");
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            Assertions.assertEquals(3, store.getSegmentCount());
+            assertContent(store, expected);
+        }
+        Assertions.assertEquals(2, LocalS3Server.filter(server.getRequests(), "GET /s3-oss/?").size());
+    }
+
+    /**
+     * 分片上传在写入时异步发起，写入不等待发起请求
+     */
+    @Test
+    public void putDoesNotWaitForInitiate() {
+        properties.getPack().setPackSize(64 * 1024);
+        try (OssPackStore store = new OssPackStore(properties, ossTemplate)) {
+            server.slowDown(1, 1000);
+            long start = System.nanoTime();
+            store.put("big", random(1500, 1));
+            store.put("small", random(10, 2));
+            Assertions.assertTrue(System.nanoTime() - start < 500_000_000L);
+            Assertions.assertArrayEquals(random(1500, 1), store.get("big"));
+            store.flush();
+            Assertions.assertArrayEquals(random(10, 2), store.get("small"));
+        }
+        Assertions.assertFalse(LocalS3Server.filter(server.getRequests(), "POST /s3-oss/packs/data/").isEmpty());
+    }
+
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=" + TEST_BUCKET_NAME, "oss.pack.enabled=true")
+                .run(context -> {
+                    OssPackStore store = context.getBean(OssPackStore.class);
+                    store.put("a", new byte[]{1, 2, 3});
+                    context.close();
+                    Assertions.assertEquals(1, keys("packs/data/").size());
+                });
+    }
+
+    private static void assertContent(OssPackStore store, Map<String, byte[]> expected) {
+        expected.forEach((key, value) -> Assertions.assertArrayEquals(value, store.get(key), key));
+    }
+
+    private List<String> keys(String prefix) {
+        ObjectListing listing = ossClient.listObjects(TEST_BUCKET_NAME, prefix);
+        List<String> keys = listing.getObjectSummaries().stream().map(S3ObjectSummary::getKey)
+                .collect(Collectors.toList());
+        while (listing.isTruncated()) {
+            listing = ossClient.listNextBatchOfObjects(listing);
+            listing.getObjectSummaries().forEach(summary -> keys.add(summary.getKey()));
+        }
+        return keys;
+    }
+
+    private static byte[] random(int size, int seed) {
+        byte[] data = new byte[size];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+}
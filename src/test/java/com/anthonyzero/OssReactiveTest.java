@@ -0,0 +1,223 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.client.LazyOssClient;
+import com.anthonyzero.core.client.OssClient;
+import com.anthonyzero.core.client.OssClients;
+import com.anthonyzero.core.client.S3AsyncOssClient;
+import com.anthonyzero.core.codec.OssCodecRegistry;
+import com.anthonyzero.core.reactive.ReactiveOssTemplate;
+import com.anthonyzero.core.routing.EndpointHealth;
+import com.anthonyzero.core.routing.HealthTrackingOssClient;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.OssReactiveAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class OssReactiveTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private OssClient ossClient;
+
+    private S3Presigner presigner;
+
+    private ReactiveOssTemplate reactiveOssTemplate;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getMultipart().setPartSize(1024);
+    }
+
+    @AfterEach
+    public void destroy() {
+        if (ossClient instanceof AmazonS3OssClient) {
+            ossClient.close();
+            ((AmazonS3OssClient) ossClient).getAmazonS3().shutdown();
+        } else if (ossClient instanceof S3AsyncOssClient) {
+            ((S3AsyncOssClient) ossClient).getS3AsyncClient().close();
+            presigner.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 上传按分片大小切分，下载按需读取，两种引擎结果一致
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"v1", "v2-async"})
+    public void putAndGet(String engine) {
+        init(engine);
+        byte[] data = random(5000);
+        List<Long> requested = new CopyOnWriteArrayList<>();
+        reactiveOssTemplate.putObject("a.bin", chunks(data, 300).doOnRequest(requested::add), "application/x-test")
+                .block();
+        Assertions.assertArrayEquals(data, server.getObjectData(TEST_BUCKET_NAME, "a.bin"));
+        Assertions.assertEquals(5, LocalS3Server.filter(server.getRequests(), "PUT /s3-oss/a.bin?").size());
+        // 只按分片需要请求上游，从不请求无限数据
+        Assertions.assertFalse(requested.contains(Long.MAX_VALUE), requested.toString());
+
+        Assertions.assertArrayEquals(data, join(reactiveOssTemplate.getObject("a.bin")));
+    }
+
+    /**
+     * 下游只请求一个 ByteBuffer 时只收到一个，取消后连接中止
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"v1", "v2-async"})
+    public void backpressure(String engine) {
+        init(engine);
+        byte[] data = random(256 * 1024);
+        reactiveOssTemplate.putObject("big.bin", Flux.just(ByteBuffer.wrap(data)), null).block();
+        StepVerifier.create(reactiveOssTemplate.getObject("big.bin"), 1)
+                .expectNextCount(1)
+                .expectNoEvent(Duration.ofMillis(100))
+                .thenCancel()
+                .verify();
+        Assertions.assertArrayEquals(data, join(reactiveOssTemplate.getObject("big.bin")));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"v1", "v2-async"})
+    public void emptyAndMissing(String engine) {
+        init(engine);
+        reactiveOssTemplate.putObject("empty.bin", Flux.empty(), null).block();
+        Assertions.assertEquals(0, server.getObjectData(TEST_BUCKET_NAME, "empty.bin").length);
+        Assertions.assertEquals(0, join(reactiveOssTemplate.getObject("empty.bin")).length);
+        StepVerifier.create(reactiveOssTemplate.getObject("missing.bin"))
+                .expectErrorMatches(e -> e instanceof AmazonS3Exception && ((AmazonS3Exception) e).getStatusCode() == 404)
+                .verify();
+    }
+
+    /**
+     * 需要压缩、校验的对象走阻塞流水线，结果与 OssTemplate 一致
+     */
+    @ParameterizedTest
+    @ValueSource(strings = {"v1", "v2-async"})
+    public void encodedObjects(String engine) {
+        properties.getChecksum().setEnabled(true);
+        properties.getCompression().setEnabled(true);
+        OssProperties.Compression.Rule rule = new OssProperties.Compression.Rule();
+        rule.setPrefix("logs/");
+        rule.setCodec("gzip");
+        properties.getCompression().getRules().add(rule);
+        init(engine);
+        StringBuilder log = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            log.append("{\"level\":\"INFO\",\"message\":\"request handled\"}\n");
+        }
+        byte[] data = log.toString().getBytes(StandardCharsets.UTF_8);
+        reactiveOssTemplate.putObject("logs/a.json", chunks(data, 4096), "application/json").block();
+        Assertions.assertEquals("gzip", server.getObjectMetadata(TEST_BUCKET_NAME, "logs/a.json")
+                .get(OssCodecRegistry.CODEC_METADATA));
+        Assertions.assertArrayEquals(data, join(reactiveOssTemplate.getObject("logs/a.json")));
+
+        byte[] plain = random(3000);
+        reactiveOssTemplate.putObject("plain.bin", chunks(plain, 700), null).block();
+        Assertions.assertArrayEquals(plain, join(reactiveOssTemplate.getObject("plain.bin")));
+    }
+
+    /**
+     * 装饰后的 v2 异步引擎仍按需读取，不在阻塞线程上下载
+     */
+    @Test
+    public void wrappedAsyncClient() {
+        init("v2-async");
+        byte[] data = random(5000);
+        reactiveOssTemplate.putObject("a.bin", chunks(data, 1000), null).block();
+        OssClient wrapped = new LazyOssClient(() -> ossClient);
+        ReactiveOssTemplate wrappedTemplate = new ReactiveOssTemplate(properties, new OssTemplate(properties, wrapped));
+        List<String> threads = new CopyOnWriteArrayList<>();
+        Assertions.assertArrayEquals(data, join(wrappedTemplate.getObject("a.bin")
+                .doOnNext(byteBuffer -> threads.add(Thread.currentThread().getName()))));
+        Assertions.assertFalse(threads.isEmpty());
+        Assertions.assertTrue(threads.stream().noneMatch(name -> name.startsWith("boundedElastic")), threads.toString());
+    }
+
+    /**
+     * 经过健康统计的客户端不绕过统计，响应式下载走阻塞下载
+     */
+    @Test
+    public void healthTrackedClient() {
+        init("v2-async");
+        byte[] data = random(3000);
+        reactiveOssTemplate.putObject("a.bin", chunks(data, 1000), null).block();
+        EndpointHealth health = new EndpointHealth("default", properties.getHealth());
+        OssClient tracked = new HealthTrackingOssClient(ossClient, health);
+        Assertions.assertFalse(OssClients.asyncDelegate(tracked).isPresent());
+        ReactiveOssTemplate trackedTemplate = new ReactiveOssTemplate(properties, new OssTemplate(properties, tracked));
+        Assertions.assertArrayEquals(data, join(trackedTemplate.getObject("a.bin")));
+        Assertions.assertEquals(1, health.getRequests());
+    }
+
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class, OssReactiveAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local")
+                .run(context -> Assertions.assertSame(context.getBean(OssTemplate.class),
+                        context.getBean(ReactiveOssTemplate.class).getOssTemplate()));
+    }
+
+    private void init(String engine) {
+        if ("v1".equals(engine)) {
+            ossClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+        } else {
+            OssAutoConfiguration.S3AsyncClientConfiguration configuration =
+                    new OssAutoConfiguration.S3AsyncClientConfiguration();
+            presigner = configuration.s3Presigner(properties);
+            ossClient = new S3AsyncOssClient(configuration.s3AsyncClient(properties), presigner);
+        }
+        OssTemplate ossTemplate = new OssTemplate(properties, ossClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        reactiveOssTemplate = new ReactiveOssTemplate(properties, ossTemplate);
+    }
+
+    private static Flux<ByteBuffer> chunks(byte[] data, int size) {
+        return Flux.range(0, (data.length + size - 1) / size)
+                .map(i -> ByteBuffer.wrap(data, i * size, Math.min(size, data.length - i * size)));
+    }
+
+    private static byte[] join(Flux<ByteBuffer> content) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        content.doOnNext(byteBuffer -> {
+            byte[] bytes = new byte[byteBuffer.remaining()];
+            byteBuffer.get(bytes);
+            out.write(bytes, 0, bytes.length);
+        }).blockLast();
+        return out.toByteArray();
+    }
+
+    private static byte[] random(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+}
@@ -0,0 +1,136 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.util.IOUtils;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.routing.EndpointHealth;
+import com.anthonyzero.core.routing.OssTemplateRegistry;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+public class OssRoutingTest {
+
+    private LocalS3Server defaultServer;
+
+    private LocalS3Server primaryServer;
+
+    private LocalS3Server replicaServer;
+
+    private ApplicationContextRunner contextRunner;
+
+    @BeforeEach
+    public void init() throws Exception {
+        defaultServer = new LocalS3Server();
+        primaryServer = new LocalS3Server();
+        replicaServer = new LocalS3Server();
+        contextRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + defaultServer.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=default",
+                        "oss.clients.primary.endpoint=" + primaryServer.getEndpoint(),
+                        "oss.clients.primary.access-key=local", "oss.clients.primary.secret-key=local",
+                        "oss.clients.primary.bucket-name=shared", "oss.clients.primary.buckets=shared,logs",
+                        "oss.clients.primary.tenants=tenant-a", "oss.clients.primary.replica=replica",
+                        "oss.clients.replica.endpoint=" + replicaServer.getEndpoint(),
+                        "oss.clients.replica.access-key=local", "oss.clients.replica.secret-key=local",
+                        "oss.clients.replica.bucket-name=shared", "oss.clients.replica.engine=v2-async",
+                        "oss.health.min-requests=2", "oss.health.probe-interval=60000");
+    }
+
+    @AfterEach
+    public void destroy() {
+        defaultServer.close();
+        primaryServer.close();
+        replicaServer.close();
+    }
+
+    /**
+     * 按客户端名称、bucket、租户路由，未匹配时使用默认客户端
+     */
+    @Test
+    public void routing() {
+        contextRunner.run(context -> {
+            OssTemplateRegistry registry = context.getBean(OssTemplateRegistry.class);
+            Assertions.assertEquals(2, registry.getNames().size());
+            Assertions.assertSame(registry.getTemplate("primary"), registry.getTemplateForBucket("logs"));
+            Assertions.assertSame(registry.getTemplate("primary"), registry.getTemplateForTenant("tenant-a"));
+            Assertions.assertSame(context.getBean(OssTemplate.class), registry.getTemplateForBucket("other"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> registry.getTemplate("missing"));
+
+            registry.getTemplateForBucket("logs").createBucket("logs");
+            registry.getTemplateForTenant("tenant-a").putObject("logs", "a.txt", new ByteArrayInputStream(
+                    "a".getBytes(StandardCharsets.UTF_8)));
+            Assertions.assertNotNull(primaryServer.getObjectData("logs", "a.txt"));
+            Assertions.assertNull(defaultServer.getObjectData("logs", "a.txt"));
+        });
+    }
+
+    /**
+     * 主端点不可用时读取切换到副本，降级后直接读副本
+     */
+    @Test
+    public void readFailover() {
+        contextRunner.run(context -> {
+            OssTemplateRegistry registry = context.getBean(OssTemplateRegistry.class);
+            OssTemplate primary = registry.getTemplate("primary");
+            OssTemplate replica = registry.getTemplate("replica");
+            primary.createBucket("shared");
+            replica.createBucket("shared");
+            byte[] data = "replicated".getBytes(StandardCharsets.UTF_8);
+            primary.putObject("r.txt", new ByteArrayInputStream(data));
+            replica.putObject("r.txt", new ByteArrayInputStream(data));
+            primaryServer.close();
+
+            for (int i = 0; i < 3; i++) {
+                try (S3Object s3Object = primary.getObject("r.txt")) {
+                    Assertions.assertArrayEquals(data, IOUtils.toByteArray(s3Object.getObjectContent()));
+                }
+            }
+            Assertions.assertArrayEquals(data, primary.getObjectAsync("r.txt").join());
+            EndpointHealth health = registry.getHealth("primary");
+            Assertions.assertTrue(health.isDegraded(), health.toString());
+            Assertions.assertTrue(health.getScore() < registry.getHealth("replica").getScore());
+            // 降级后只有首次探测请求到达主端点，其余直接读副本
+            Assertions.assertTrue(health.getRequests() <= 6, health.toString());
+            Assertions.assertTrue(replicaServer.getRequests().stream().filter(r -> r.startsWith("GET")).count() >= 4);
+        });
+    }
+
+    @Test
+    public void invalidReplica() {
+        contextRunner.withPropertyValues("oss.clients.primary.replica=missing")
+                .run(context -> Assertions.assertNotNull(context.getStartupFailure()));
+    }
+
+    @Test
+    public void healthScore() {
+        OssProperties.Health properties = new OssProperties.Health();
+        properties.setMinRequests(3);
+        properties.setLatencyThreshold(100);
+        EndpointHealth health = new EndpointHealth("test", properties);
+        health.record(5_000_000, true);
+        health.record(5_000_000, true);
+        Assertions.assertFalse(health.isDegraded());
+        health.record(5_000_000, true);
+        Assertions.assertTrue(health.isDegraded());
+        for (int i = 0; i < 30; i++) {
+            health.record(5_000_000, false);
+        }
+        Assertions.assertFalse(health.isDegraded());
+        Assertions.assertTrue(health.getScore() > 0.9);
+        for (int i = 0; i < 30; i++) {
+            health.record(500_000_000, false);
+        }
+        Assertions.assertTrue(health.isDegraded());
+        Assertions.assertTrue(health.getScore() < 0.5);
+    }
+}
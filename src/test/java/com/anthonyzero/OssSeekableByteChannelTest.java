@@ -0,0 +1,127 @@
+package com.anthonyzero;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.Random;
+
+public class OssSeekableByteChannelTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    private static final String TEST_OBJECT_NAME = "channel.bin";
+
+    private LocalS3Server server;
+
+    private OssTemplate ossTemplate;
+
+    private byte[] data;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        OssProperties properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getChannel().setBlockSize(4096);
+        properties.getChannel().setMaxReadaheadBlocks(8);
+        AmazonS3 amazonS3 = new OssAutoConfiguration().amazonS3(properties);
+        ossTemplate = new OssTemplate(properties, amazonS3);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+        data = new byte[1024 * 1024 + 123];
+        new Random(42).nextBytes(data);
+        ossTemplate.putObject(TEST_BUCKET_NAME, TEST_OBJECT_NAME, new ByteArrayInputStream(data), data.length,
+                "application/octet-stream");
+        server.getRequests().clear();
+    }
+
+    @AfterEach
+    public void destroy() {
+        server.close();
+    }
+
+    /**
+     * 读取对象尾部只需要一次请求
+     */
+    @Test
+    public void readTail() throws Exception {
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, TEST_OBJECT_NAME)) {
+            long size = channel.size();
+            Assertions.assertEquals(data.length, size);
+            ByteBuffer footer = ByteBuffer.allocate(3000);
+            channel.position(size - footer.capacity());
+            while (footer.hasRemaining()) {
+                channel.read(footer);
+            }
+            Assertions.assertArrayEquals(Arrays.copyOfRange(data, data.length - 3000, data.length), footer.array());
+        }
+        Assertions.assertEquals(1, LocalS3Server.filter(server.getRequests(), "GET").size());
+    }
+
+    /**
+     * 顺序读取整个对象
+     */
+    @Test
+    public void readSequential() throws Exception {
+        byte[] result = new byte[data.length];
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, TEST_OBJECT_NAME)) {
+            ByteBuffer buffer = ByteBuffer.wrap(result);
+            while (channel.read(buffer) >= 0 && buffer.hasRemaining()) {
+                // 每次读取的字节数由调用方的缓冲区大小决定
+            }
+            Assertions.assertEquals(-1, channel.read(ByteBuffer.allocate(1)));
+        }
+        Assertions.assertArrayEquals(data, result);
+        // 预读窗口增长后请求数远小于块数
+        Assertions.assertTrue(LocalS3Server.filter(server.getRequests(), "GET").size() < data.length / 4096 / 4);
+    }
+
+    /**
+     * 随机 seek 读取
+     */
+    @Test
+    public void readRandom() throws Exception {
+        Random random = new Random(7);
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, TEST_OBJECT_NAME)) {
+            for (int i = 0; i < 50; i++) {
+                int position = random.nextInt(data.length);
+                int length = Math.min(random.nextInt(20000) + 1, data.length - position);
+                ByteBuffer buffer = ByteBuffer.allocate(length);
+                channel.position(position);
+                while (buffer.hasRemaining()) {
+                    channel.read(buffer);
+                }
+                Assertions.assertArrayEquals(Arrays.copyOfRange(data, position, position + length), buffer.array());
+            }
+        }
+    }
+
+    /**
+     * 模板关闭后预取线程池停止，已打开的通道改为同步读取
+     */
+    @Test
+    public void readAfterTemplateClosed() throws Exception {
+        byte[] result = new byte[data.length];
+        try (SeekableByteChannel channel = ossTemplate.openChannel(TEST_BUCKET_NAME, TEST_OBJECT_NAME)) {
+            ByteBuffer buffer = ByteBuffer.wrap(result);
+            buffer.limit(100 * 1024);
+            while (buffer.hasRemaining()) {
+                channel.read(buffer);
+            }
+            ossTemplate.close();
+            buffer.limit(result.length);
+            while (channel.read(buffer) >= 0 && buffer.hasRemaining()) {
+                // 预取被拒绝时读取线程同步拉取
+            }
+        }
+        Assertions.assertArrayEquals(data, result);
+    }
+}
@@ -0,0 +1,96 @@
+package com.anthonyzero;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * 启动耗时基准：每次在新的 JVM 中刷新上下文，比较不引入 starter、立即创建客户端与延迟创建客户端的耗时
+ * <p>
+ * 运行方式：{@code mvn test -Dtest=OssStartupBenchmarkTest -Doss.benchmark=true [-Doss.benchmark.forks=10]}
+ */
+@EnabledIfSystemProperty(named = "oss.benchmark", matches = "true")
+public class OssStartupBenchmarkTest {
+
+    private static final List<String> MODES = Arrays.asList("baseline", "eager", "lazy");
+
+    @Test
+    public void startup() throws Exception {
+        int forks = Integer.getInteger("oss.benchmark.forks", 5);
+        Map<String, List<long[]>> results = new LinkedHashMap<>();
+        MODES.forEach(mode -> results.put(mode, new ArrayList<>()));
+        // 交替运行各模式，减少机器负载变化带来的偏差
+        for (int i = 0; i < forks; i++) {
+            for (String mode : MODES) {
+                results.get(mode).add(fork(mode));
+            }
+        }
+        long baseline = median(results.get("baseline"), 0);
+        System.out.printf("%-10s %12s %12s %14s%n", "mode", "refresh(ms)", "starter(ms)", "first-use(ms)");
+        results.forEach((mode, samples) -> {
+            long refresh = median(samples, 0);
+            System.out.printf("%-10s %12.1f %12.1f %14.1f%n", mode, refresh / 1e6, (refresh - baseline) / 1e6,
+                    median(samples, 1) / 1e6);
+        });
+    }
+
+    /**
+     * 子进程入口，输出上下文刷新耗时与首次使用客户端的耗时，单位纳秒
+     */
+    public static void main(String[] args) {
+        String mode = args[0];
+        ApplicationContextRunner runner = new ApplicationContextRunner();
+        if (!"baseline".equals(mode)) {
+            runner = runner.withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                    .withPropertyValues("oss.endpoint=http://127.0.0.1:9000", "oss.access-key=local",
+                            "oss.secret-key=local", "oss.bucket-name=s3-oss",
+                            "oss.lazy-init.enabled=" + "lazy".equals(mode));
+        }
+        long start = System.nanoTime();
+        runner.run(context -> {
+            long refreshed = System.nanoTime();
+            long firstUse = 0;
+            if (!"baseline".equals(mode)) {
+                // 生成访问地址不发起请求，只包含创建客户端的耗时
+                context.getBean(OssTemplate.class).getOssClient().getUrl("s3-oss", "a.txt");
+                firstUse = System.nanoTime() - refreshed;
+            }
+            System.out.println("RESULT " + (refreshed - start) + " " + firstUse);
+        });
+    }
+
+    private static long[] fork(String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                OssStartupBenchmarkTest.class.getName(), mode).redirectErrorStream(true).start();
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("RESULT ")) {
+                    String[] values = line.split(" ");
+                    result = new long[]{Long.parseLong(values[1]), Long.parseLong(values[2])};
+                }
+            }
+        }
+        Assertions.assertEquals(0, process.waitFor(), mode);
+        Assertions.assertNotNull(result, mode);
+        return result;
+    }
+
+    private static long median(List<long[]> samples, int index) {
+        long[] values = samples.stream().mapToLong(sample -> sample[index]).sorted().toArray();
+        return values[values.length / 2];
+    }
+}
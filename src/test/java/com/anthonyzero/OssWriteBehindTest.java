@@ -0,0 +1,208 @@
+package com.anthonyzero;
+
+import com.anthonyzero.core.OssTemplate;
+import com.anthonyzero.core.client.AmazonS3OssClient;
+import com.anthonyzero.core.spool.OssWriteBehindMeterBinder;
+import com.anthonyzero.core.spool.OssWriteBehindQueue;
+import com.anthonyzero.spring.boot.autoconfigure.OssAutoConfiguration;
+import com.anthonyzero.spring.boot.autoconfigure.properties.OssProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class OssWriteBehindTest {
+
+    private static final String TEST_BUCKET_NAME = "s3-oss";
+
+    @TempDir
+    Path directory;
+
+    private LocalS3Server server;
+
+    private OssProperties properties;
+
+    private AmazonS3OssClient ossClient;
+
+    private OssTemplate ossTemplate;
+
+    @BeforeEach
+    public void init() throws Exception {
+        server = new LocalS3Server();
+        properties = server.newProperties(TEST_BUCKET_NAME);
+        properties.getWriteBehind().setDirectory(directory.toString());
+        properties.getWriteBehind().setSegmentSize(1024);
+        properties.getWriteBehind().setInitialBackoff(10);
+        properties.getWriteBehind().setMaxBackoff(50);
+        ossClient = new AmazonS3OssClient(new OssAutoConfiguration().amazonS3(properties));
+        ossTemplate = new OssTemplate(properties, ossClient);
+        ossTemplate.createBucket(TEST_BUCKET_NAME);
+    }
+
+    @AfterEach
+    public void destroy() {
+        ossClient.close();
+        ossClient.getAmazonS3().shutdown();
+        server.close();
+    }
+
+    /**
+     * 多个线程并发上传，同一对象按入队顺序上传，被覆盖的写入直接跳过
+     */
+    @Test
+    public void drainInOrder() throws Exception {
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            for (int version = 0; version < 30; version++) {
+                for (int i = 0; i < 5; i++) {
+                    queue.enqueuePut("k" + i, bytes("k" + i + "-v" + version), "text/plain");
+                }
+            }
+            queue.enqueuePut(TEST_BUCKET_NAME, "stream.txt", new ByteArrayInputStream(bytes("stream")), null);
+            Assertions.assertTrue(queue.awaitDrained(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 5; i++) {
+                Assertions.assertEquals("k" + i + "-v29", string(server.getObjectData(TEST_BUCKET_NAME, "k" + i)));
+            }
+            Assertions.assertEquals("stream", string(server.getObjectData(TEST_BUCKET_NAME, "stream.txt")));
+            Assertions.assertEquals("text/plain", ossTemplate.getObjectMetadata("k0").getContentType());
+            Assertions.assertEquals(151, queue.getUploadedCount() + queue.getCoalescedCount());
+            Assertions.assertEquals(0, queue.getQueueDepth());
+            Assertions.assertEquals(0, queue.getDrainLagMillis());
+            // 全部确认的旧段已删除
+            Assertions.assertEquals(1, segments().size());
+        }
+    }
+
+    /**
+     * 其他错误重试 maxAttempts 次后丢弃，之后的条目继续上传
+     */
+    @Test
+    public void retryAndGiveUp() throws Exception {
+        properties.getWriteBehind().setMaxAttempts(3);
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            server.fail(2, 400);
+            queue.enqueuePut("a.txt", bytes("a"), "text/plain");
+            Assertions.assertTrue(queue.awaitDrained(10, TimeUnit.SECONDS));
+            Assertions.assertEquals("a", string(server.getObjectData(TEST_BUCKET_NAME, "a.txt")));
+            Assertions.assertEquals(2, queue.getRetryCount());
+
+            server.fail(3, 400);
+            queue.enqueuePut("b.txt", bytes("b"), "text/plain");
+            Assertions.assertTrue(queue.awaitDrained(10, TimeUnit.SECONDS));
+            Assertions.assertNull(server.getObjectData(TEST_BUCKET_NAME, "b.txt"));
+            Assertions.assertEquals(1, queue.getFailedCount());
+            Assertions.assertEquals(1, queue.getUploadedCount());
+        }
+    }
+
+    /**
+     * 关闭时未上传的条目保留在本地日志中，重启后继续上传，末尾不完整的记录被忽略
+     */
+    @Test
+    public void recoverAfterRestart() throws Exception {
+        properties.getWriteBehind().setMaxAttempts(Integer.MAX_VALUE);
+        properties.getWriteBehind().setSegmentSize(128);
+        server.fail(Integer.MAX_VALUE, 400);
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            for (int i = 0; i < 10; i++) {
+                queue.enqueuePut("k" + i, bytes("value-" + i), "text/plain");
+            }
+            SimpleMeterRegistry registry = new SimpleMeterRegistry();
+            new OssWriteBehindMeterBinder(queue).bindTo(registry);
+            Thread.sleep(50);
+            Assertions.assertFalse(queue.awaitDrained(10, TimeUnit.MILLISECONDS));
+            Assertions.assertEquals(10, registry.get("oss.write-behind.depth").gauge().value());
+            Assertions.assertTrue(registry.get("oss.write-behind.spool").gauge().value() > 10 * 7);
+            Assertions.assertTrue(registry.get("oss.write-behind.lag").gauge().value() >= 50);
+            Assertions.assertTrue(registry.get("oss.write-behind.retries").functionCounter().count() > 0);
+        }
+        Assertions.assertTrue(segments().size() > 1);
+        Path last = segments().get(segments().size() - 1);
+        Files.write(last, new byte[]{1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        server.fail(0, 400);
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            Assertions.assertTrue(queue.awaitDrained(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 10; i++) {
+                Assertions.assertEquals("value-" + i, string(server.getObjectData(TEST_BUCKET_NAME, "k" + i)));
+            }
+            Assertions.assertEquals(10, queue.getUploadedCount());
+        }
+        // 再次启动没有待上传的条目
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            Assertions.assertEquals(0, queue.getQueueDepth());
+        }
+    }
+
+    /**
+     * 上传线程正在读取日志时关闭，未上传的条目不会被丢弃
+     */
+    @Test
+    public void closeWhileReading() throws Exception {
+        properties.getWriteBehind().setWorkers(8);
+        properties.getWriteBehind().setSegmentSize(64 * 1024 * 1024);
+        byte[] data = new byte[4 * 1024 * 1024];
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            for (int i = 0; i < 40; i++) {
+                queue.enqueuePut("k" + i, data, "application/octet-stream");
+            }
+            // 等待部分条目开始上传
+            while (queue.getUploadedCount() == 0) {
+                Thread.sleep(1);
+            }
+            queue.close();
+            Assertions.assertEquals(0, queue.getFailedCount());
+            Assertions.assertEquals(40, queue.getUploadedCount() + queue.getQueueDepth());
+        }
+        try (OssWriteBehindQueue queue = new OssWriteBehindQueue(properties, ossTemplate)) {
+            Assertions.assertTrue(queue.awaitDrained(30, TimeUnit.SECONDS));
+            Assertions.assertEquals(0, queue.getFailedCount());
+        }
+        for (int i = 0; i < 40; i++) {
+            Assertions.assertArrayEquals(data, server.getObjectData(TEST_BUCKET_NAME, "k" + i), "k" + i);
+        }
+    }
+
+    @Test
+    public void autoConfiguration() {
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(OssAutoConfiguration.class))
+                .withPropertyValues("oss.endpoint=" + server.getEndpoint(), "oss.access-key=local",
+                        "oss.secret-key=local", "oss.bucket-name=" + TEST_BUCKET_NAME,
+                        "oss.write-behind.enabled=true", "oss.write-behind.directory=" + directory)
+                .run(context -> {
+                    OssWriteBehindQueue queue = context.getBean(OssWriteBehindQueue.class);
+                    Assertions.assertNotNull(context.getBean(OssWriteBehindMeterBinder.class));
+                    queue.enqueuePut("a.txt", bytes("a"), "text/plain");
+                    Assertions.assertTrue(queue.awaitDrained(10, TimeUnit.SECONDS));
+                    Assertions.assertEquals("a", string(server.getObjectData(TEST_BUCKET_NAME, "a.txt")));
+                });
+    }
+
+    private List<Path> segments() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] data) {
+        return data == null ? null : new String(data, StandardCharsets.UTF_8);
+    }
+}
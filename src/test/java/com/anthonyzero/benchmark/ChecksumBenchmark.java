@@ -0,0 +1,71 @@
+package com.anthonyzero.benchmark;
+
+import com.anthonyzero.core.checksum.ChecksumInputStream;
+import com.anthonyzero.core.checksum.StreamChecksum;
+import com.anthonyzero.support.ChecksumAlgorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 流式校验的开销：同一份 8MB 数据分别不校验、CRC32C、MD5 读完一遍
+ * <p>
+ * 运行：{@code mvn test-compile} 后执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChecksumBenchmark {
+
+    @Param({"NONE", "CRC32C", "MD5"})
+    private String algorithm;
+
+    private byte[] data;
+
+    private byte[] buffer;
+
+    @Setup
+    public void setup() {
+        data = new byte[8 * 1024 * 1024];
+        new Random(42).nextBytes(data);
+        buffer = new byte[64 * 1024];
+    }
+
+    @Benchmark
+    public long read() throws IOException {
+        InputStream in = new ByteArrayInputStream(data);
+        if (!"NONE".equals(algorithm)) {
+            in = new ChecksumInputStream(in, StreamChecksum.of(ChecksumAlgorithm.valueOf(algorithm)), null, "benchmark");
+        }
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            total += n;
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ChecksumBenchmark.class.getSimpleName()).build()).run();
+    }
+}
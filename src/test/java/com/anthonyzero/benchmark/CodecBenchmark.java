@@ -0,0 +1,96 @@
+package com.anthonyzero.benchmark;
+
+import com.anthonyzero.core.codec.CompressingInputStream;
+import com.anthonyzero.core.codec.OssCodec;
+import com.anthonyzero.core.codec.OssCodecRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各压缩编码的吞吐：8MB JSON 日志经过 {@link CompressingInputStream} 压缩、解压各一遍
+ * <p>
+ * 运行：{@code mvn test-compile} 后执行 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+
+    @Param({"gzip", "zstd", "lz4"})
+    private String codecName;
+
+    private OssCodec codec;
+
+    private byte[] data;
+
+    private byte[] compressed;
+
+    private byte[] buffer;
+
+    @Setup
+    public void setup() throws IOException {
+        codec = OssCodecRegistry.defaults().getCodec(codecName);
+        StringBuilder log = new StringBuilder();
+        Random random = new Random(42);
+        while (log.length() < 8 * 1024 * 1024) {
+            log.append("{\"ts\":").append(System.nanoTime()).append(",\"level\":\"INFO\",\"traceId\":\"")
+                    .append(Long.toHexString(random.nextLong())).append("\",\"message\":\"request handled\"}\n");
+        }
+        data = log.toString().getBytes(StandardCharsets.UTF_8);
+        buffer = new byte[64 * 1024];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        InputStream in = new CompressingInputStream(new ByteArrayInputStream(data), codec);
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        compressed = out.toByteArray();
+        System.out.printf("%n%s ratio: %.2f%n", codecName, (double) data.length / compressed.length);
+    }
+
+    @Benchmark
+    public long compress() throws IOException {
+        return drain(new CompressingInputStream(new ByteArrayInputStream(data), codec));
+    }
+
+    @Benchmark
+    public long decompress() throws IOException {
+        return drain(codec.decompress(new ByteArrayInputStream(compressed)));
+    }
+
+    private long drain(InputStream in) throws IOException {
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            total += n;
+        }
+        return total;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}